@@ -8,11 +8,15 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+/**
+ * Fields every command carries. Abstract, so that it is never sent as a type of its own and is left
+ * out of {@link com.codeexpert.common.event.DomainEventTypes}.
+ */
 @Data
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-public class BaseCommand implements DomainEvent {
+public abstract class BaseCommand implements DomainEvent {
 
     private String orderId;
 
@@ -0,0 +1,21 @@
+package com.codeexpert.common.constant;
+
+public final class EventHeaders {
+
+    private EventHeaders() {
+        // Prevent instantiation
+    }
+
+    // Wire id of the DomainEvent in the record value, see DomainEventTypes.wireId, as four big-endian bytes
+    public static final String EVENT_TYPE_ID = "event-type-id";
+
+    // Simple class name of the DomainEvent in the record value, e.g. "ProcessPaymentCommand"; written
+    // before EVENT_TYPE_ID and still read from records that have no id
+    public static final String EVENT_TYPE = "event-type";
+
+    // Set on records forwarded to a retry tier or the dead-letter topic
+    public static final String ORIGINAL_TOPIC = "original-topic";
+    public static final String RETRY_ATTEMPT = "retry-attempt";
+    public static final String RETRY_DUE_AT = "retry-due-at";
+    public static final String EXCEPTION = "exception";
+}
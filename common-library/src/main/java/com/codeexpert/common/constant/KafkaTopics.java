@@ -15,4 +15,13 @@ public final class KafkaTopics {
     public static final String PAYMENT_EVENTS = "payment-events";
     public static final String INVENTORY_EVENTS = "inventory-events";
     public static final String SHIPPING_EVENTS = "shipping-events";
+
+    // Retry tiers (1-based) and dead-letter topic of a consumed topic
+    public static String retryTopic(String topic, int tier) {
+        return topic + "-retry-" + tier;
+    }
+
+    public static String deadLetterTopic(String topic) {
+        return topic + "-dlt";
+    }
 }
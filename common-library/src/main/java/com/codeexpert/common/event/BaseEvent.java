@@ -5,11 +5,15 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+/**
+ * Fields every event carries. Abstract, so that it is never sent as a type of its own and is left
+ * out of {@link DomainEventTypes}.
+ */
 @Data
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-public class BaseEvent implements DomainEvent {
+public abstract class BaseEvent implements DomainEvent {
 
     private String orderId;
 
@@ -1,24 +1,19 @@
 package com.codeexpert.common.event;
 
-import com.codeexpert.common.command.*;
-import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
 
+/**
+ * Every command and event exchanged between the services. The concrete classes of the command and
+ * event packages are indexed at build time in {@link DomainEventTypes}, which serializers use to
+ * resolve types.
+ */
 @JsonTypeInfo(
-        use = JsonTypeInfo.Id.NAME,
+        use = JsonTypeInfo.Id.CUSTOM,
         include = JsonTypeInfo.As.PROPERTY,
         property = "commandType"
 )
-@JsonSubTypes({
-        @JsonSubTypes.Type(value = CreateShipmentCommand.class, name = "CreateShipmentCommand"),
-        @JsonSubTypes.Type(value = ProcessPaymentCommand.class, name = "ProcessPaymentCommand"),
-        @JsonSubTypes.Type(value = RefundPaymentCommand.class, name = "RefundPaymentCommand"),
-        @JsonSubTypes.Type(value = ReleaseInventoryCommand.class, name = "ReleaseInventoryCommand"),
-        @JsonSubTypes.Type(value = ReserveInventoryCommand.class, name = "ReserveInventoryCommand"),
-        @JsonSubTypes.Type(value = InventoryReservedEvent.class, name = "InventoryReservedEvent"),
-        @JsonSubTypes.Type(value = ShipmentCreatedEvent.class, name = "ShipmentCreatedEvent"),
-        @JsonSubTypes.Type(value = InventoryReleasedEvent.class, name = "InventoryReleasedEvent"),
-        @JsonSubTypes.Type(value = PaymentProcessedEvent.class, name = "PaymentProcessedEvent"),
-})
+@JsonTypeIdResolver(DomainEventTypeIdResolver.class)
+@EventTypeRegistry(packages = {"com.codeexpert.common.command", "com.codeexpert.common.event"})
 public interface DomainEvent {
 }
@@ -0,0 +1,46 @@
+package com.codeexpert.common.event;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+
+/**
+ * Writes and reads the {@code commandType} of serialized events through the generated
+ * {@link DomainEventTypes}, so Jackson needs no subtype list and resolves a type name with a
+ * string switch.
+ */
+public class DomainEventTypeIdResolver extends TypeIdResolverBase {
+
+    private JavaType baseType;
+
+    @Override
+    public void init(JavaType baseType) {
+        this.baseType = baseType;
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+        return idFromValueAndType(value, value.getClass());
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> suggestedType) {
+        int id = DomainEventTypes.idOf(suggestedType);
+        return id >= 0 ? DomainEventTypes.name(id) : suggestedType.getSimpleName();
+    }
+
+    /**
+     * Returns {@code null} for unknown names, which Jackson reports as an unknown type id.
+     */
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) {
+        int typeId = DomainEventTypes.idOfName(id);
+        return typeId >= 0 ? context.constructSpecializedType(baseType, DomainEventTypes.type(typeId)) : null;
+    }
+
+    @Override
+    public JsonTypeInfo.Id getMechanism() {
+        return JsonTypeInfo.Id.CUSTOM;
+    }
+}
@@ -0,0 +1,20 @@
+package com.codeexpert.common.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates {@code <Type>Types} next to the annotated base type at build time: an index of every
+ * concrete subtype of it in the given packages, so a subtype can be resolved from its class or its
+ * simple name in constant time without a hand-kept list.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface EventTypeRegistry {
+
+    String[] packages();
+}
@@ -1,12 +1,17 @@
 package com.codeexpert.common.event;
 
-import lombok.Builder;
-import lombok.Data;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
 
 @Data
-@Builder
-public class PaymentRefundedEvent {
-    private String orderId;
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRefundedEvent extends BaseEvent {
+
+    @Builder.Default
+    private String commandType = "PaymentRefundedEvent";
+
     private String transactionId;
-    private String correlationId;
 }
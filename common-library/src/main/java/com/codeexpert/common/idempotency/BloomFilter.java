@@ -0,0 +1,77 @@
+package com.codeexpert.common.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set membership with false positives but no false negatives, in a fixed number of bits.
+ * <p>
+ * Sized for an expected number of entries and false-positive rate; more entries than expected
+ * raise the rate but never lose one. Safe for concurrent use without locking.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount * 64;
+        this.hashes = (int) Math.max(1, Math.round((double) bits / Math.max(1, expectedEntries) * ln2));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(hash, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code false} only if {@code value} was never added.
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The i-th bit of {@code value}, derived from the two halves of its hash.
+     */
+    private long index(long hash, int i) {
+        long combined = (hash >>> 32) + i * (hash & 0xffffffffL) + (long) i * i;
+        return Long.remainderUnsigned(combined, bits);
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters, finished with the MurmurHash3 mixer to spread both halves.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
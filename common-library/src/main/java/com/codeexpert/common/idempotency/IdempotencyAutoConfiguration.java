@@ -0,0 +1,13 @@
+package com.codeexpert.common.idempotency;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Handles each command once per order. Sized with the {@code idempotency.*} properties read by
+ * {@link IdempotentCommandHandler}; a service that takes no commands excludes it.
+ */
+@AutoConfiguration
+@Import(IdempotencyConfiguration.class)
+public class IdempotencyAutoConfiguration {
+}
@@ -0,0 +1,15 @@
+package com.codeexpert.common.idempotency;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Imported by {@link IdempotencyAutoConfiguration} to handle each command once: registers the
+ * processed-command table and the {@link IdempotentCommandHandler}. Needs a {@code JdbcTemplate},
+ * a transaction manager over the same database and a
+ * {@link com.codeexpert.common.publisher.MessagePublisher}.
+ */
+@Configuration
+@Import({ProcessedCommandStore.class, IdempotentCommandHandler.class})
+public class IdempotencyConfiguration {
+}
@@ -0,0 +1,230 @@
+package com.codeexpert.common.idempotency;
+
+import com.codeexpert.common.command.BaseCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.listener.EventSerializer;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.MessagePublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs a command handler at most once per (order id, command type) and answers redeliveries with
+ * the result of that one run.
+ * <p>
+ * The result event is recorded in {@link ProcessedCommandStore} and published in one transaction,
+ * so with the outbox a result is published if and only if it is recorded. A command seen before
+ * gets its recorded result published again, without calling the handler, so a sender that lost
+ * the first reply still gets one. Of two deliveries racing each other the one that records second
+ * rolls back and replays the winner's result.
+ * <p>
+ * Lookups go through two bounded in-memory layers before the table: the most recent results, which
+ * answer duplicates straight away, and a Bloom filter of the keys recorded within the retention
+ * period, which lets a command never seen before skip the table. Only filter hits not among the
+ * recent results go to the database, and so does every lookup until the filter has been loaded.
+ * <p>
+ * Commands are remembered for {@code idempotency.retention-ms}. The filter keeps its keys in
+ * {@value #FILTER_GENERATIONS} generations, one more than the retention period is split into, and
+ * at the end of each part drops its oldest generation while the table drops the rows older than the
+ * retention period. The filter's false-positive rate thus stays within the configured one for up to
+ * {@code idempotency.filter.expected-entries} commands per retention period, and on startup only
+ * the keys of that period are loaded, in the background.
+ */
+@Log4j2
+@Component
+public class IdempotentCommandHandler implements SmartLifecycle {
+
+    private static final int FILTER_GENERATIONS = 4;
+
+    private final ProcessedCommandStore store;
+    private final MessagePublisher messagePublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EventSerializer serializer = new JsonEventSerializer();
+    private final RotatingBloomFilter seen;
+    private final Map<String, ProcessedCommand> recent;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final Duration generationPeriod;
+    private volatile boolean filterLoaded;
+    private MeterRegistry meterRegistry;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public IdempotentCommandHandler(
+            ProcessedCommandStore store,
+            MessagePublisher messagePublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${idempotency.cache.max-entries:10000}") int maxCachedResults,
+            @Value("${idempotency.filter.expected-entries:1000000}") long expectedEntries,
+            @Value("${idempotency.filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${idempotency.retention-ms:604800000}") long retentionMillis) {
+        this.store = store;
+        this.messagePublisher = messagePublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.generationPeriod = retention.dividedBy(FILTER_GENERATIONS - 1);
+        this.seen = new RotatingBloomFilter(FILTER_GENERATIONS,
+                (expectedEntries + FILTER_GENERATIONS - 2) / (FILTER_GENERATIONS - 1), falsePositiveRate);
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProcessedCommand> eldest) {
+                return size() > maxCachedResults;
+            }
+        });
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Adds the commands processed within the retention period to the filter, each to the generation
+     * of its age. Until this has run every lookup goes to the database.
+     */
+    void loadFilter() {
+        Instant now = Instant.now();
+        int[] count = {0};
+        store.forEachKeySince(now.minus(retention), (orderId, commandType, processedAt) -> {
+            int age = (int) (Duration.between(processedAt, now).toMillis() / generationPeriod.toMillis()) + 1;
+            seen.add(key(orderId, commandType), age);
+            count[0]++;
+        });
+        filterLoaded = true;
+        log.info("Loaded {} processed commands into the idempotency filter", count[0]);
+    }
+
+    /**
+     * Starts a new filter generation and forgets the commands processed before the retention period.
+     */
+    void expire() {
+        seen.rotate();
+        int purged = store.deleteProcessedBefore(Instant.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} processed commands older than {}", purged, retention);
+        }
+    }
+
+    /**
+     * Publishes {@code handler}'s result for the command to {@code resultTopic}, keyed by order id,
+     * unless the command has been handled before, in which case the earlier result is published
+     * again instead. If the handler throws nothing is recorded and the command may be retried.
+     */
+    public <C extends BaseCommand> void handleOnce(
+            C command, String resultTopic, Function<? super C, ? extends DomainEvent> handler) {
+        String commandType = command.getClass().getSimpleName();
+        String key = key(command.getOrderId(), commandType);
+
+        ProcessedCommand processed = find(command.getOrderId(), commandType, key);
+        if (processed != null) {
+            replay(processed);
+            return;
+        }
+
+        DomainEvent result = handler.apply(command);
+        ProcessedCommand record = new ProcessedCommand(command.getOrderId(), commandType, resultTopic,
+                command.getOrderId(), result.getClass().getSimpleName(), serializer.toBytes(result));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                store.insert(record, Instant.now());
+                messagePublisher.publish(resultTopic, record.key(), result);
+            });
+        } catch (DuplicateKeyException e) {
+            ProcessedCommand winner = store.find(command.getOrderId(), commandType).orElseThrow(() -> e);
+            remember(key, winner);
+            replay(winner);
+            return;
+        }
+        remember(key, record);
+    }
+
+    private ProcessedCommand find(String orderId, String commandType, String key) {
+        ProcessedCommand processed = recent.get(key);
+        if (processed != null || filterLoaded && !seen.mightContain(key)) {
+            return processed;
+        }
+        processed = store.find(orderId, commandType).orElse(null);
+        if (processed != null) {
+            recent.put(key, processed);
+        }
+        return processed;
+    }
+
+    private void remember(String key, ProcessedCommand processed) {
+        seen.add(key);
+        recent.put(key, processed);
+    }
+
+    private void replay(ProcessedCommand processed) {
+        log.info("{} for order {} was already handled, replaying its {}", processed.commandType(),
+                processed.orderId(), processed.eventType());
+        messagePublisher.publish(processed.topic(), processed.key(), serializer.fromBytes(processed.payload()));
+        if (meterRegistry != null) {
+            counters.computeIfAbsent(processed.commandType(), commandType ->
+                    Counter.builder("messaging.consume.duplicates")
+                            .tag("command_type", commandType)
+                            .register(meterRegistry)).increment();
+        }
+    }
+
+    private static String key(String orderId, String commandType) {
+        return orderId + '/' + commandType;
+    }
+
+    private void runLogged(Runnable task, String description) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Failed to {}: {}", description, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(() -> runLogged(this::loadFilter, "load the idempotency filter"));
+        long period = generationPeriod.toMillis();
+        scheduler.scheduleAtFixedRate(() -> runLogged(this::expire, "expire processed commands"),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+}
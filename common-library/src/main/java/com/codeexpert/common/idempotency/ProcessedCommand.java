@@ -0,0 +1,9 @@
+package com.codeexpert.common.idempotency;
+
+/**
+ * A command that has been handled, with the result event it produced, already encoded, and where
+ * that event was published.
+ */
+public record ProcessedCommand(
+        String orderId, String commandType, String topic, String key, String eventType, byte[] payload) {
+}
@@ -0,0 +1,95 @@
+package com.codeexpert.common.idempotency;
+
+import com.codeexpert.common.jdbc.BinaryColumnType;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to the {@code PROCESSED_COMMAND} table.
+ * <p>
+ * The primary key on (order id, command type) is what makes a command's result unique: of two
+ * deliveries of the same command racing each other, the second insert fails. The time each command
+ * was processed is indexed, to load recent keys and purge old ones without scanning the table.
+ */
+@Component
+public class ProcessedCommandStore {
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS PROCESSED_COMMAND ("
+            + "order_id VARCHAR(255) NOT NULL, "
+            + "command_type VARCHAR(255) NOT NULL, "
+            + "topic VARCHAR(255) NOT NULL, "
+            + "message_key VARCHAR(255), "
+            + "event_type VARCHAR(255) NOT NULL, "
+            + "payload %s NOT NULL, "
+            + "processed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, "
+            + "PRIMARY KEY (order_id, command_type))";
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS PROCESSED_COMMAND_PROCESSED_AT ON PROCESSED_COMMAND (processed_at)";
+    private static final String INSERT_SQL = "INSERT INTO PROCESSED_COMMAND "
+            + "(order_id, command_type, topic, message_key, event_type, payload, processed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT order_id, command_type, topic, message_key, event_type, payload "
+            + "FROM PROCESSED_COMMAND WHERE order_id = ? AND command_type = ?";
+    private static final String SELECT_KEYS_SQL =
+            "SELECT order_id, command_type, processed_at FROM PROCESSED_COMMAND WHERE processed_at >= ?";
+    private static final String DELETE_SQL = "DELETE FROM PROCESSED_COMMAND WHERE processed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProcessedCommandStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_SQL.formatted(BinaryColumnType.of(jdbcTemplate)));
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+    }
+
+    /**
+     * Records the command as processed at {@code processedAt} in the caller's transaction, if there is
+     * one. Throws {@link org.springframework.dao.DuplicateKeyException} if it has already been recorded.
+     */
+    public void insert(ProcessedCommand command, Instant processedAt) {
+        jdbcTemplate.update(INSERT_SQL, command.orderId(), command.commandType(), command.topic(), command.key(),
+                command.eventType(), command.payload(), Timestamp.from(processedAt));
+    }
+
+    public Optional<ProcessedCommand> find(String orderId, String commandType) {
+        List<ProcessedCommand> found = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new ProcessedCommand(
+                rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getBytes(6)),
+                orderId, commandType);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Streams the (order id, command type) and time of every command processed at or after
+     * {@code since} to {@code consumer}.
+     */
+    public void forEachKeySince(Instant since, KeyConsumer consumer) {
+        jdbcTemplate.query(SELECT_KEYS_SQL, rs -> {
+            consumer.accept(rs.getString(1), rs.getString(2), rs.getTimestamp(3).toInstant());
+        }, Timestamp.from(since));
+    }
+
+    /**
+     * Forgets every command processed before {@code before} and returns how many there were.
+     */
+    public int deleteProcessedBefore(Instant before) {
+        return jdbcTemplate.update(DELETE_SQL, Timestamp.from(before));
+    }
+
+    @FunctionalInterface
+    public interface KeyConsumer {
+
+        void accept(String orderId, String commandType, Instant processedAt);
+    }
+}
@@ -0,0 +1,68 @@
+package com.codeexpert.common.idempotency;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BloomFilter} over a sliding window: a fixed number of generations, each a filter of its
+ * own, of which only the newest takes new entries. {@link #rotate} drops the oldest generation and
+ * starts a new one, so entries are forgotten after as many rotations as there are generations and
+ * no generation is ever filled past the size it was made for.
+ * <p>
+ * A lookup checks every generation, so each one is given an equal share of the false-positive
+ * rate and the rate of the whole stays within it as long as no generation takes more than
+ * {@code entriesPerGeneration} entries.
+ */
+class RotatingBloomFilter {
+
+    private final long entriesPerGeneration;
+    private final double generationFalsePositiveRate;
+    private volatile List<BloomFilter> generations;
+
+    RotatingBloomFilter(int generations, long entriesPerGeneration, double falsePositiveRate) {
+        this.entriesPerGeneration = entriesPerGeneration;
+        this.generationFalsePositiveRate = falsePositiveRate / generations;
+        List<BloomFilter> filters = new ArrayList<>(generations);
+        for (int i = 0; i < generations; i++) {
+            filters.add(newGeneration());
+        }
+        this.generations = List.copyOf(filters);
+    }
+
+    void add(String value) {
+        generations.get(0).add(value);
+    }
+
+    /**
+     * Adds {@code value} to the generation {@code age} rotations older than the newest, or to the
+     * oldest if there are not that many.
+     */
+    void add(String value, int age) {
+        List<BloomFilter> current = generations;
+        current.get(Math.min(age, current.size() - 1)).add(value);
+    }
+
+    /**
+     * Returns {@code false} only if {@code value} was never added or has been rotated out.
+     */
+    boolean mightContain(String value) {
+        for (BloomFilter generation : generations) {
+            if (generation.mightContain(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void rotate() {
+        List<BloomFilter> current = generations;
+        List<BloomFilter> rotated = new ArrayList<>(current.size());
+        rotated.add(newGeneration());
+        rotated.addAll(current.subList(0, current.size() - 1));
+        generations = List.copyOf(rotated);
+    }
+
+    private BloomFilter newGeneration() {
+        return new BloomFilter(entriesPerGeneration, generationFalsePositiveRate);
+    }
+}
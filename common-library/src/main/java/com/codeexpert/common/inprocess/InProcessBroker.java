@@ -0,0 +1,183 @@
+package com.codeexpert.common.inprocess;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Topics held in memory, so that several services can exchange events in one JVM without Kafka.
+ * <p>
+ * As with Kafka, a message goes to the partition picked by its key and every consumer group
+ * subscribed to the topic receives it, each partition in order and on one thread at a time. A
+ * partition is a lock-free queue; a drain task is put on the broker's worker pool when the queue
+ * gets its first message and leaves once it is empty, so idle partitions cost no thread and no
+ * lock is taken between publisher and consumer.
+ * <p>
+ * Unlike Kafka nothing is retained: a group only receives what is sent after it subscribed,
+ * queues are unbounded and everything is gone with the JVM. This is a stand-in for load tests and
+ * profiling, not a broker.
+ */
+@Log4j2
+public class InProcessBroker {
+
+    public static final int DEFAULT_PARTITIONS = 8;
+
+    /**
+     * Messages a drain task delivers before yielding its worker to other partitions.
+     */
+    private static final int DRAIN_BUDGET = 1024;
+
+    private static final InProcessBroker SHARED =
+            new InProcessBroker(DEFAULT_PARTITIONS, Runtime.getRuntime().availableProcessors());
+
+    private final int partitions;
+    private final ExecutorService workers;
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger unkeyed = new AtomicInteger();
+
+    public InProcessBroker(int partitions, int workerThreads) {
+        this.partitions = partitions;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "in-process-broker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The broker of the JVM, shared by every application context in it so that services started
+     * side by side reach each other.
+     */
+    public static InProcessBroker shared() {
+        return SHARED;
+    }
+
+    public void send(String topic, String key, String eventType, Object payload) {
+        List<Subscription> groups = subscriptions.get(topic);
+        if (groups == null || groups.isEmpty()) {
+            log.debug("No subscribers on in-process topic '{}', dropping {}", topic, eventType);
+            return;
+        }
+        int partition = key != null
+                ? (key.hashCode() & Integer.MAX_VALUE) % partitions
+                : Math.floorMod(unkeyed.getAndIncrement(), partitions);
+        InProcessMessage message = new InProcessMessage(topic, key, eventType, payload);
+        for (Subscription group : groups) {
+            group.partitions[partition].offer(message);
+        }
+    }
+
+    /**
+     * Subscribes a consumer group to the topic. Messages are handed to {@code consumer} in order
+     * per partition, up to {@code maxBatchSize} at a time, once the subscription is started; until
+     * then they queue up.
+     */
+    public Subscription subscribe(String topic, String groupId, int maxBatchSize,
+                                  Consumer<List<InProcessMessage>> consumer) {
+        Subscription subscription = new Subscription(topic, groupId, maxBatchSize, consumer);
+        subscriptions.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    public final class Subscription {
+
+        private final String topic;
+        private final String groupId;
+        private final int maxBatchSize;
+        private final Consumer<List<InProcessMessage>> consumer;
+        private final Partition[] partitions;
+        private volatile boolean running;
+
+        private Subscription(String topic, String groupId, int maxBatchSize,
+                             Consumer<List<InProcessMessage>> consumer) {
+            this.topic = topic;
+            this.groupId = groupId;
+            this.maxBatchSize = maxBatchSize;
+            this.consumer = consumer;
+            this.partitions = new Partition[InProcessBroker.this.partitions];
+            for (int i = 0; i < this.partitions.length; i++) {
+                this.partitions[i] = new Partition(this);
+            }
+        }
+
+        public void start() {
+            running = true;
+            for (Partition partition : partitions) {
+                partition.schedule();
+            }
+        }
+
+        /**
+         * Stops delivery after the batches in progress; queued messages wait for a restart.
+         */
+        public void stop() {
+            running = false;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        private final Subscription subscription;
+        private final Queue<InProcessMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Partition(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        void offer(InProcessMessage message) {
+            queue.offer(message);
+            schedule();
+        }
+
+        void schedule() {
+            if (subscription.running && !queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int delivered = 0;
+                while (subscription.running && delivered < DRAIN_BUDGET) {
+                    List<InProcessMessage> batch = new ArrayList<>(Math.min(subscription.maxBatchSize, 64));
+                    InProcessMessage message;
+                    while (batch.size() < subscription.maxBatchSize && (message = queue.poll()) != null) {
+                        batch.add(message);
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    try {
+                        subscription.consumer.accept(batch);
+                    } catch (RuntimeException e) {
+                        log.error("Error delivering {} messages of in-process topic '{}' to group '{}': {}",
+                                batch.size(), subscription.topic, subscription.groupId, e.getMessage(), e);
+                    }
+                    delivered += batch.size();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // A message offered after the last poll but before the flag was cleared found it set
+            schedule();
+        }
+    }
+}
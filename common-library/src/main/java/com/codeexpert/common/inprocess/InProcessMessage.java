@@ -0,0 +1,8 @@
+package com.codeexpert.common.inprocess;
+
+/**
+ * A message on an {@link InProcessBroker} topic. The payload is the event itself, or its encoded
+ * bytes when the publisher serializes.
+ */
+public record InProcessMessage(String topic, String key, String eventType, Object payload) {
+}
@@ -0,0 +1,47 @@
+package com.codeexpert.common.inprocess;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.listener.EventSerializer;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.MessagePublisher;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link MessagePublisher} that hands events to an {@link InProcessBroker}.
+ * <p>
+ * With {@code serialize} each event is encoded with the topic's {@link EventSerializer} and decoded
+ * by every consuming group, as over Kafka, so each group works on an instance of its own. Without it
+ * nothing is encoded or decoded and every group receives the publisher's instance, which neither
+ * the publisher nor any consumer may change after publishing.
+ */
+@Log4j2
+public class InProcessMessagePublisher implements MessagePublisher {
+
+    private final InProcessBroker broker;
+    private final boolean serialize;
+    private final EventSerializer defaultSerializer = new JsonEventSerializer();
+    private final Map<String, EventSerializer> serializers = new ConcurrentHashMap<>();
+
+    public InProcessMessagePublisher(InProcessBroker broker, boolean serialize) {
+        this.broker = broker;
+        this.serialize = serialize;
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(String topic, String key, T message) {
+        log.debug("→ Publishing in-process to topic: {}, key: {}", topic, key);
+        Object payload = serialize ? serializers.getOrDefault(topic, defaultSerializer).toBytes(message) : message;
+        broker.send(topic, key, message.getClass().getSimpleName(), payload);
+    }
+
+    /**
+     * Encodes events published to the topic with the given serializer instead of JSON when
+     * serializing. Consumers of the topic must register with the same serializer.
+     */
+    public void useSerializer(String topic, EventSerializer serializer) {
+        serializers.put(topic, serializer);
+    }
+}
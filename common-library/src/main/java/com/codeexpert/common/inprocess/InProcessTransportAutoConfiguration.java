@@ -0,0 +1,16 @@
+package com.codeexpert.common.inprocess;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Import;
+
+/**
+ * With {@code messaging.transport=in-process} events go through the JVM's in-memory broker instead
+ * of Kafka, so that all services can run in one JVM for load tests and profiling. Any other value,
+ * or none, leaves them on Kafka.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "messaging.transport", havingValue = "in-process")
+@Import(InProcessTransportConfiguration.class)
+public class InProcessTransportAutoConfiguration {
+}
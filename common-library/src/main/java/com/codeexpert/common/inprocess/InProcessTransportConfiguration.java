@@ -0,0 +1,37 @@
+package com.codeexpert.common.inprocess;
+
+import com.codeexpert.common.listener.InProcessListenerRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Imported by {@link InProcessTransportAutoConfiguration} to exchange events through the JVM's
+ * shared {@link InProcessBroker} instead of Kafka. The publisher and registrar defined here take
+ * precedence over the Kafka and outbox ones. Events are encoded and
+ * decoded as over Kafka, so every consumer group gets an instance of its own; set
+ * {@code messaging.in-process.serialize=false} to hand over the published instance instead.
+ */
+@Configuration
+public class InProcessTransportConfiguration {
+
+    @Bean
+    public InProcessBroker inProcessBroker() {
+        return InProcessBroker.shared();
+    }
+
+    @Bean
+    @Primary
+    public InProcessMessagePublisher inProcessMessagePublisher(
+            InProcessBroker inProcessBroker,
+            @Value("${messaging.in-process.serialize:true}") boolean serialize) {
+        return new InProcessMessagePublisher(inProcessBroker, serialize);
+    }
+
+    @Bean
+    @Primary
+    public InProcessListenerRegistrar inProcessListenerRegistrar(InProcessBroker inProcessBroker) {
+        return new InProcessListenerRegistrar(inProcessBroker);
+    }
+}
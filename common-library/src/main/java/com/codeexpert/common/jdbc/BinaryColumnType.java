@@ -0,0 +1,45 @@
+package com.codeexpert.common.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import java.sql.DatabaseMetaData;
+
+/**
+ * Column type for variable-length binary values, which no single SQL type covers on every
+ * database: PostgreSQL has only {@code BYTEA}, MySQL's {@code VARBINARY} needs a length and H2
+ * keeps a {@code BLOB} out of the row. Anything not listed gets the standard {@code BLOB}.
+ */
+public final class BinaryColumnType {
+
+    private BinaryColumnType() {
+    }
+
+    /**
+     * Returns the binary column type of the database behind {@code jdbcTemplate}.
+     */
+    public static String of(JdbcTemplate jdbcTemplate) {
+        String product;
+        try {
+            product = JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(
+                    jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            product = null;
+        }
+        return forProduct(product);
+    }
+
+    static String forProduct(String product) {
+        if (product == null) {
+            return "BLOB";
+        }
+        return switch (product) {
+            case "PostgreSQL" -> "BYTEA";
+            case "H2", "HSQL Database Engine" -> "VARBINARY";
+            case "MySQL", "MariaDB" -> "LONGBLOB";
+            case "Microsoft SQL Server" -> "VARBINARY(MAX)";
+            default -> "BLOB";
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Receives the decoded events of one Kafka poll at a time, so a handler can share one database
+ * transaction or one round of publishes across all of them. Offsets of the batch are committed
+ * after {@link #onEvents(List)} returns.
+ */
+public interface BatchDomainEventListener {
+
+    void onEvents(List<DomainEvent> events);
+
+    /**
+     * Returns {@code listener} itself if it is batch-capable, otherwise an adapter that hands it
+     * the events of each batch one by one.
+     */
+    static BatchDomainEventListener adapt(DomainEventListener listener) {
+        if (listener instanceof BatchDomainEventListener batchListener) {
+            return batchListener;
+        }
+        return new SingleEventBatchAdapter(listener);
+    }
+}
@@ -0,0 +1,363 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.command.BaseCommand;
+import com.codeexpert.common.command.CreateShipmentCommand;
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.command.ReleaseInventoryCommand;
+import com.codeexpert.common.command.ReserveInventoryCommand;
+import com.codeexpert.common.event.BaseEvent;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.DomainEventTypes;
+import com.codeexpert.common.event.InventoryReleasedEvent;
+import com.codeexpert.common.event.InventoryReservedEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.codeexpert.common.event.ShipmentCreatedEvent;
+import com.codeexpert.common.model.OrderItem;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact binary {@link EventSerializer}.
+ * <p>
+ * A message is the varint type id of the event followed by its fields in a fixed order, with no
+ * field names. Strings are a varint length plus UTF-8 bytes, decimals a varint length plus the
+ * unscaled two's-complement bytes and a zig-zag varint scale, lists a varint size plus their
+ * elements. Lengths and sizes are stored plus one so that zero can mean {@code null}.
+ * <p>
+ * Type ids and field orders are the wire format: never renumber a type or reorder its fields, only
+ * append new types and new trailing fields.
+ * <p>
+ * {@link #toBytes} and {@link #fromBytes} are the encoding that goes on the wire. The string
+ * methods carry the same bytes as Base64 for callers that still need text.
+ */
+public class BinaryEventSerializer implements EventSerializer {
+
+    private static final Codec<?>[] CODECS = {
+            null,
+            new Codec<>(1, CreateShipmentCommand.class, (out, e) -> {
+                writeCommand(out, e);
+                out.writeItems(e.getItems());
+            }, in -> {
+                CreateShipmentCommand e = readCommand(in, new CreateShipmentCommand());
+                e.setItems(in.readItems());
+                return e;
+            }),
+            new Codec<>(2, ProcessPaymentCommand.class, (out, e) -> {
+                writeCommand(out, e);
+                out.writeString(e.getCustomerId());
+                out.writeDecimal(e.getAmount());
+            }, in -> {
+                ProcessPaymentCommand e = readCommand(in, new ProcessPaymentCommand());
+                e.setCustomerId(in.readString());
+                e.setAmount(in.readDecimal());
+                return e;
+            }),
+            new Codec<>(3, RefundPaymentCommand.class, (out, e) -> {
+                writeCommand(out, e);
+                out.writeString(e.getPaymentTransactionId());
+            }, in -> {
+                RefundPaymentCommand e = readCommand(in, new RefundPaymentCommand());
+                e.setPaymentTransactionId(in.readString());
+                return e;
+            }),
+            new Codec<>(4, ReleaseInventoryCommand.class, (out, e) -> {
+                writeCommand(out, e);
+                out.writeString(e.getReservationId());
+            }, in -> {
+                ReleaseInventoryCommand e = readCommand(in, new ReleaseInventoryCommand());
+                e.setReservationId(in.readString());
+                return e;
+            }),
+            new Codec<>(5, ReserveInventoryCommand.class, (out, e) -> {
+                writeCommand(out, e);
+                out.writeItems(e.getItems());
+            }, in -> {
+                ReserveInventoryCommand e = readCommand(in, new ReserveInventoryCommand());
+                e.setItems(in.readItems());
+                return e;
+            }),
+            new Codec<>(6, InventoryReservedEvent.class, (out, e) -> {
+                writeEvent(out, e);
+                out.writeString(e.getReservationId());
+            }, in -> {
+                InventoryReservedEvent e = readEvent(in, new InventoryReservedEvent());
+                e.setReservationId(in.readString());
+                return e;
+            }),
+            new Codec<>(7, ShipmentCreatedEvent.class, (out, e) -> {
+                writeEvent(out, e);
+                out.writeString(e.getShipmentId());
+            }, in -> {
+                ShipmentCreatedEvent e = readEvent(in, new ShipmentCreatedEvent());
+                e.setShipmentId(in.readString());
+                return e;
+            }),
+            new Codec<>(8, InventoryReleasedEvent.class, (out, e) -> {
+                writeEvent(out, e);
+                out.writeString(e.getReservationId());
+            }, in -> {
+                InventoryReleasedEvent e = readEvent(in, new InventoryReleasedEvent());
+                e.setReservationId(in.readString());
+                return e;
+            }),
+            new Codec<>(9, PaymentProcessedEvent.class, (out, e) -> {
+                writeEvent(out, e);
+                out.writeString(e.getTransactionId());
+            }, in -> {
+                PaymentProcessedEvent e = readEvent(in, new PaymentProcessedEvent());
+                e.setTransactionId(in.readString());
+                return e;
+            }),
+            new Codec<>(10, PaymentRefundedEvent.class, (out, e) -> {
+                writeEvent(out, e);
+                out.writeString(e.getTransactionId());
+            }, in -> {
+                PaymentRefundedEvent e = readEvent(in, new PaymentRefundedEvent());
+                e.setTransactionId(in.readString());
+                return e;
+            }),
+    };
+
+    /**
+     * Codecs by {@link DomainEventTypes} index, so encoding finds its codec without hashing.
+     */
+    private static final Codec<?>[] CODECS_BY_TYPE = new Codec<?>[DomainEventTypes.count()];
+
+    static {
+        for (int id = 1; id < CODECS.length; id++) {
+            if (CODECS[id].typeId() != id) {
+                throw new IllegalStateException("Codec for " + CODECS[id].type().getSimpleName()
+                        + " is registered under type id " + id);
+            }
+            CODECS_BY_TYPE[DomainEventTypes.idOf(CODECS[id].type())] = CODECS[id];
+        }
+    }
+
+    @Override
+    public DomainEvent fromString(String source) throws SerializationException {
+        try {
+            return fromBytes(Base64.getDecoder().decode(source));
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Not a Base64 encoded binary event", e);
+        }
+    }
+
+    @Override
+    public String toString(DomainEvent event) throws SerializationException {
+        return Base64.getEncoder().encodeToString(toBytes(event));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] toBytes(DomainEvent event) throws SerializationException {
+        int registryId = DomainEventTypes.idOf(event.getClass());
+        Codec<DomainEvent> codec = registryId >= 0 ? (Codec<DomainEvent>) CODECS_BY_TYPE[registryId] : null;
+        if (codec == null) {
+            throw new SerializationException("No binary type id for " + event.getClass().getName());
+        }
+        Output out = new Output();
+        out.writeVarInt(codec.typeId());
+        codec.encoder().accept(out, event);
+        return out.toByteArray();
+    }
+
+    @Override
+    public DomainEvent fromBytes(byte[] source) throws SerializationException {
+        try {
+            Input in = new Input(source);
+            int typeId = in.readVarInt();
+            if (typeId <= 0 || typeId >= CODECS.length) {
+                throw new SerializationException("Unknown binary type id " + typeId);
+            }
+            DomainEvent event = CODECS[typeId].decoder().apply(in);
+            if (in.position != source.length) {
+                throw new SerializationException((source.length - in.position) + " trailing bytes after "
+                        + event.getClass().getSimpleName());
+            }
+            return event;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated binary event", e);
+        }
+    }
+
+    private static void writeCommand(Output out, BaseCommand command) {
+        out.writeString(command.getOrderId());
+        out.writeString(command.getCorrelationId());
+        out.writeString(command.getStatus());
+        out.writeString(command.getErrorMessage());
+    }
+
+    private static <T extends BaseCommand> T readCommand(Input in, T command) {
+        command.setOrderId(in.readString());
+        command.setCorrelationId(in.readString());
+        command.setStatus(in.readString());
+        command.setErrorMessage(in.readString());
+        return command;
+    }
+
+    private static void writeEvent(Output out, BaseEvent event) {
+        out.writeString(event.getOrderId());
+        out.writeString(event.getCorrelationId());
+        out.writeString(event.getStatus());
+        out.writeString(event.getErrorMessage());
+    }
+
+    private static <T extends BaseEvent> T readEvent(Input in, T event) {
+        event.setOrderId(in.readString());
+        event.setCorrelationId(in.readString());
+        event.setStatus(in.readString());
+        event.setErrorMessage(in.readString());
+        return event;
+    }
+
+    private record Codec<T extends DomainEvent>(
+            int typeId,
+            Class<T> type,
+            BiConsumer<Output, T> encoder,
+            Function<Input, T> decoder) {
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeVarInt(unscaled.length + 1);
+            writeBytes(unscaled);
+            writeVarInt((value.scale() << 1) ^ (value.scale() >> 31));
+        }
+
+        void writeItems(List<OrderItem> items) {
+            if (items == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(items.size() + 1);
+            for (OrderItem item : items) {
+                writeString(item.getProductId());
+                writeVarInt((item.getQuantity() << 1) ^ (item.getQuantity() >> 31));
+                writeDecimal(item.getPrice());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = buffer[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint at offset " + position);
+        }
+
+        int readZigZag() {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            checkRemaining(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            checkRemaining(length);
+            BigInteger unscaled = new BigInteger(buffer, position, length);
+            position += length;
+            return new BigDecimal(unscaled, readZigZag());
+        }
+
+        List<OrderItem> readItems() {
+            int size = readVarInt() - 1;
+            if (size < 0) {
+                return null;
+            }
+            checkRemaining(size);
+            List<OrderItem> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(new OrderItem(readString(), readZigZag(), readDecimal()));
+            }
+            return items;
+        }
+
+        private void checkRemaining(int length) {
+            if (length > buffer.length - position) {
+                throw new SerializationException("Truncated binary event at offset " + position);
+            }
+        }
+    }
+}
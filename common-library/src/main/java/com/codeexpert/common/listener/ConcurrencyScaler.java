@@ -0,0 +1,162 @@
+package com.codeexpert.common.listener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Resizes a container between {@link ListenerOptions#getMinConcurrency()} and
+ * {@link ListenerOptions#getMaxConcurrency()} from its consumers' own fetch metrics.
+ * <p>
+ * The backlog is the summed {@code records-lag} of the topic's partitions and the drain rate the
+ * container's {@code records-consumed-rate}, which already reflects how long each record takes to
+ * process. While the backlog would take longer than {@link #SCALE_UP_DRAIN} to clear, consumers are
+ * added in proportion, up to the topic's partition count since further consumers would sit idle.
+ * One is removed once the backlog has stayed under {@link #SCALE_DOWN_DRAIN} for
+ * {@link #SCALE_DOWN_CHECKS} checks in a row, so a short lull does not shrink the container.
+ * <p>
+ * Resizing restarts the container, which rebalances the group, and resets the consumer metrics;
+ * the next {@link #COOLDOWN_CHECKS} checks are skipped while they fill again.
+ */
+@Log4j2
+class ConcurrencyScaler {
+
+    static final Duration CHECK_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration SCALE_UP_DRAIN = Duration.ofSeconds(5);
+    private static final Duration SCALE_DOWN_DRAIN = Duration.ofMillis(500);
+    private static final int SCALE_DOWN_CHECKS = 6;
+    private static final int COOLDOWN_CHECKS = 3;
+    private static final String FETCH_METRICS = "consumer-fetch-manager-metrics";
+
+    private final String topic;
+    private final ConcurrentMessageListenerContainer<?, ?> container;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final IntSupplier partitionCount;
+    private int partitions;
+    private int quietChecks;
+    private int cooldown;
+
+    ConcurrencyScaler(String topic, ConcurrentMessageListenerContainer<?, ?> container, ListenerOptions options,
+                      IntSupplier partitionCount, MeterRegistry meterRegistry) {
+        if (options.getMinConcurrency() < 1 || options.getMaxConcurrency() < options.getMinConcurrency()) {
+            throw new IllegalArgumentException("Invalid concurrency bounds for topic '" + topic + "': "
+                    + options.getMinConcurrency() + ".." + options.getMaxConcurrency());
+        }
+        this.topic = topic;
+        this.container = container;
+        this.minConcurrency = options.getMinConcurrency();
+        this.maxConcurrency = options.getMaxConcurrency();
+        this.partitionCount = partitionCount;
+        container.setConcurrency(minConcurrency);
+        if (meterRegistry != null) {
+            Gauge.builder("messaging.consume.concurrency", container, ConcurrentMessageListenerContainer::getConcurrency)
+                    .description("Consumers of the listener container")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Samples the container's metrics and resizes it if its backlog calls for it.
+     */
+    void check() {
+        if (!container.isRunning()) {
+            return;
+        }
+        if (cooldown > 0) {
+            cooldown--;
+            return;
+        }
+
+        double lag = 0;
+        double rate = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                MetricName name = metric.getKey();
+                if (!FETCH_METRICS.equals(name.group()) || !isTopic(name.tags().get("topic"))) {
+                    continue;
+                }
+                boolean perPartition = name.tags().containsKey("partition");
+                if (perPartition && "records-lag".equals(name.name())) {
+                    lag += value(metric.getValue());
+                } else if (!perPartition && "records-consumed-rate".equals(name.name())) {
+                    rate += value(metric.getValue());
+                }
+            }
+        }
+
+        int current = container.getConcurrency();
+        int target = target(current, lag, rate);
+        if (target != current) {
+            log.info("Resizing listener container for topic '{}' from {} to {} consumers (lag {}, {} records/s)",
+                    topic, current, target, (long) lag, String.format("%.1f", rate));
+            container.stop();
+            container.setConcurrency(target);
+            container.start();
+            cooldown = COOLDOWN_CHECKS;
+        }
+    }
+
+    /**
+     * Consumers the container should have for the given backlog and drain rate; counts the quiet
+     * checks towards scaling down, so it is called once per check.
+     */
+    int target(int current, double lag, double rate) {
+        double drainSeconds = lag <= 0 ? 0 : rate > 0 ? lag / rate : Double.POSITIVE_INFINITY;
+        double scaleUpSeconds = SCALE_UP_DRAIN.toMillis() / 1000.0;
+        if (drainSeconds > scaleUpSeconds) {
+            quietChecks = 0;
+            int limit = Math.min(maxConcurrency, partitions());
+            if (current >= limit) {
+                return current;
+            }
+            double wanted = Math.ceil(current * Math.min(drainSeconds / scaleUpSeconds, limit));
+            return (int) Math.min(Math.max(wanted, current + 1), limit);
+        }
+        if (drainSeconds < SCALE_DOWN_DRAIN.toMillis() / 1000.0 && current > minConcurrency) {
+            if (++quietChecks >= SCALE_DOWN_CHECKS) {
+                quietChecks = 0;
+                return current - 1;
+            }
+            return current;
+        }
+        quietChecks = 0;
+        return current;
+    }
+
+    /**
+     * Partition count of the topic, looked up once; until it is known the container is not grown.
+     */
+    private int partitions() {
+        if (partitions == 0) {
+            try {
+                partitions = partitionCount.getAsInt();
+            } catch (RuntimeException e) {
+                log.warn("Could not look up partitions of topic '{}': {}", topic, e.getMessage());
+                return 0;
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Topic-level fetch metrics tag the topic with dots replaced by underscores.
+     */
+    private boolean isTopic(String tag) {
+        return topic.equals(tag) || topic.replace('.', '_').equals(tag);
+    }
+
+    private static double value(Metric metric) {
+        return metric.metricValue() instanceof Number number && !Double.isNaN(number.doubleValue())
+                ? number.doubleValue()
+                : 0;
+    }
+}
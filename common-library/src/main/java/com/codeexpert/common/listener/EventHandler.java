@@ -0,0 +1,24 @@
+package com.codeexpert.common.listener;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link DomainEventListener} as the handler of the event type it takes as its
+ * only parameter.
+ * <p>
+ * At build time a {@code <Listener>Dispatcher} is generated next to the listener, whose
+ * {@code dispatch(listener, event)} calls the handler for the event's exact type through a dense
+ * switch, without maps or reflection. Handlers must not be private, and no two may take the same
+ * type.
+ *
+ * @see EventHandlers
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface EventHandler {
+}
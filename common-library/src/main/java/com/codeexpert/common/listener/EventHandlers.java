@@ -0,0 +1,21 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the event types a listener receives. The build fails if any of them has no
+ * {@link EventHandler} method, so a type added to a topic cannot go unhandled unnoticed.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface EventHandlers {
+
+    Class<? extends DomainEvent>[] consumes();
+}
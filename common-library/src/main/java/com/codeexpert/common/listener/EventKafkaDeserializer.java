@@ -0,0 +1,37 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value {@link Deserializer} that decodes events straight from the record bytes with an
+ * {@link EventSerializer}, JSON unless {@value EventKafkaSerializer#EVENT_SERIALIZER_CONFIG} names
+ * another implementation.
+ */
+public class EventKafkaDeserializer implements Deserializer<DomainEvent> {
+
+    private EventSerializer eventSerializer;
+
+    public EventKafkaDeserializer() {
+        this(new JsonEventSerializer());
+    }
+
+    public EventKafkaDeserializer(EventSerializer eventSerializer) {
+        this.eventSerializer = eventSerializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        EventSerializer configured = EventKafkaSerializer.fromConfig(configs);
+        if (configured != null) {
+            eventSerializer = configured;
+        }
+    }
+
+    @Override
+    public DomainEvent deserialize(String topic, byte[] data) {
+        return data != null ? eventSerializer.fromBytes(data) : null;
+    }
+}
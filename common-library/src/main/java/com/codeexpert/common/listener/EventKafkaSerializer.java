@@ -0,0 +1,71 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value {@link Serializer} that writes events straight to bytes with an
+ * {@link EventSerializer}, JSON unless {@value #EVENT_SERIALIZER_CONFIG} names another
+ * implementation. Values that are already {@code byte[]}, e.g. events a publisher encoded with a
+ * per-topic serializer, are passed through unchanged.
+ * <p>
+ * Configure it with {@code spring.kafka.producer.value-serializer}.
+ */
+public class EventKafkaSerializer implements Serializer<Object> {
+
+    /**
+     * Class name of the {@link EventSerializer} to encode with.
+     */
+    public static final String EVENT_SERIALIZER_CONFIG = "event.serializer";
+
+    private EventSerializer eventSerializer;
+
+    public EventKafkaSerializer() {
+        this(new JsonEventSerializer());
+    }
+
+    public EventKafkaSerializer(EventSerializer eventSerializer) {
+        this.eventSerializer = eventSerializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        EventSerializer configured = fromConfig(configs);
+        if (configured != null) {
+            eventSerializer = configured;
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (data instanceof DomainEvent event) {
+            return eventSerializer.toBytes(event);
+        }
+        throw new SerializationException("Cannot serialize " + data.getClass().getName() + " for topic " + topic);
+    }
+
+    static EventSerializer fromConfig(Map<String, ?> configs) {
+        Object value = configs.get(EVENT_SERIALIZER_CONFIG);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof EventSerializer eventSerializer) {
+            return eventSerializer;
+        }
+        try {
+            Class<?> type = value instanceof Class<?> c ? c : Class.forName(value.toString().trim());
+            return (EventSerializer) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new SerializationException("Invalid " + EVENT_SERIALIZER_CONFIG + ": " + value, e);
+        }
+    }
+}
@@ -10,4 +10,14 @@ public interface EventSerializer {
     DomainEvent fromString(String source) throws SerializationException;
 
     String toString(DomainEvent command) throws SerializationException;
+
+    /**
+     * Decodes a record value as received from Kafka, without an intermediate {@code String}.
+     */
+    DomainEvent fromBytes(byte[] source) throws SerializationException;
+
+    /**
+     * Encodes an event into the record value sent to Kafka, without an intermediate {@code String}.
+     */
+    byte[] toBytes(DomainEvent event) throws SerializationException;
 }
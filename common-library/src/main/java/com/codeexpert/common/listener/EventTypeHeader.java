@@ -0,0 +1,61 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.event.DomainEventTypes;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes and reads the {@link EventHeaders#EVENT_TYPE_ID} header, which names the event in a
+ * record by its {@link DomainEventTypes#wireId(int) wire id}. Consumers resolve it from the raw
+ * bytes, without decoding a string; the header of each type is built once and shared by all records.
+ */
+public final class EventTypeHeader {
+
+    private static final Header[] HEADERS = new Header[DomainEventTypes.count()];
+
+    static {
+        for (int id = 0; id < HEADERS.length; id++) {
+            int wireId = DomainEventTypes.wireId(id);
+            HEADERS[id] = new RecordHeader(EventHeaders.EVENT_TYPE_ID, new byte[]{
+                    (byte) (wireId >>> 24), (byte) (wireId >>> 16), (byte) (wireId >>> 8), (byte) wireId});
+        }
+    }
+
+    private EventTypeHeader() {
+    }
+
+    /**
+     * Returns the header for the event type of the given simple name, or {@code null} if it is not
+     * a registered type.
+     */
+    public static Header forType(String typeName) {
+        int id = DomainEventTypes.idOfName(typeName);
+        return id >= 0 ? HEADERS[id] : null;
+    }
+
+    /**
+     * Returns the {@link DomainEventTypes} index of the event type the headers name, falling back to
+     * the {@link EventHeaders#EVENT_TYPE} name of older records, or -1 if they name no type of this
+     * build.
+     */
+    public static int typeOf(Headers headers) {
+        Header header = headers.lastHeader(EventHeaders.EVENT_TYPE_ID);
+        if (header != null) {
+            byte[] value = header.value();
+            if (value == null || value.length != 4) {
+                return -1;
+            }
+            return DomainEventTypes.idOfWireId((value[0] & 0xFF) << 24 | (value[1] & 0xFF) << 16
+                    | (value[2] & 0xFF) << 8 | value[3] & 0xFF);
+        }
+        header = headers.lastHeader(EventHeaders.EVENT_TYPE);
+        if (header == null) {
+            return -1;
+        }
+        return DomainEventTypes.idOfName(new String(header.value(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.DomainEventTypes;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatches the events of one topic subscription to the listener registered for their exact
+ * type, falling back to the listener registered without types, if any. Events nobody registered
+ * for are dropped.
+ * <p>
+ * Records carrying an {@link EventHeaders#EVENT_TYPE_ID} header can be checked with
+ * {@link #accepts(ConsumerRecord)} before their value is deserialized, so events nobody listens for
+ * cost no parsing; the id is matched on its raw bytes. Records that name no type of this build are
+ * always accepted and decided after decoding.
+ */
+@Log4j2
+class EventTypeRouter implements DomainEventListener {
+
+    private final String topic;
+    private final Map<Class<?>, DomainEventListener> routes = new ConcurrentHashMap<>();
+    private volatile boolean[] routedTypes = new boolean[DomainEventTypes.count()];
+    private volatile DomainEventListener fallback;
+
+    EventTypeRouter(String topic) {
+        this.topic = topic;
+    }
+
+    synchronized void addRoute(DomainEventListener listener, Class<?>... eventTypes) {
+        if (eventTypes.length == 0) {
+            if (fallback != null && fallback != listener) {
+                throw new IllegalStateException("Topic '" + topic + "' already has a listener for all event types");
+            }
+            fallback = listener;
+            return;
+        }
+
+        for (Class<?> eventType : eventTypes) {
+            DomainEventListener existing = routes.putIfAbsent(eventType, listener);
+            if (existing != null && existing != listener) {
+                throw new IllegalStateException("Topic '" + topic + "' already has a listener for "
+                        + eventType.getSimpleName());
+            }
+            int id = DomainEventTypes.idOf(eventType);
+            if (id >= 0) {
+                boolean[] routed = routedTypes.clone();
+                routed[id] = true;
+                routedTypes = routed;
+            }
+        }
+        log.debug("Routing {} on topic '{}' to {}", Arrays.toString(eventTypes), topic,
+                listener.getClass().getSimpleName());
+    }
+
+    /**
+     * Returns {@code false} only if the record's type header names a type nobody listens for.
+     */
+    boolean accepts(ConsumerRecord<?, ?> record) {
+        return fallback != null || accepts(EventTypeHeader.typeOf(record.headers()));
+    }
+
+    /**
+     * Returns {@code false} only if nobody listens for the event type of the given simple name.
+     */
+    boolean accepts(String typeName) {
+        return fallback != null || accepts(DomainEventTypes.idOfName(typeName));
+    }
+
+    private boolean accepts(int typeId) {
+        if (typeId < 0 || routedTypes[typeId]) {
+            return true;
+        }
+        log.debug("No listener for {} on topic '{}', skipping without decoding", DomainEventTypes.name(typeId),
+                topic);
+        return false;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        DomainEventListener listener = routes.get(event.getClass());
+        if (listener == null) {
+            listener = fallback;
+        }
+        if (listener == null) {
+            log.debug("No listener for {} on topic '{}', skipping", event.getClass().getSimpleName(), topic);
+            return;
+        }
+        listener.onEvent(event);
+    }
+}
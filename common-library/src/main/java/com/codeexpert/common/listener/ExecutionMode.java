@@ -0,0 +1,26 @@
+package com.codeexpert.common.listener;
+
+/**
+ * How a registered listener's records are handed to its {@link DomainEventListener}.
+ */
+public enum ExecutionMode {
+
+    /**
+     * One record at a time on the consumer thread.
+     */
+    SERIAL,
+
+    /**
+     * Records are processed concurrently on a worker pool, but records with the same key (the
+     * orderId) run strictly one after another in partition order. Offsets are committed only up to
+     * the last record whose predecessors in the partition have all completed.
+     */
+    KEY_ORDERED,
+
+    /**
+     * All records of a poll, up to {@link ListenerOptions#getMaxBatchSize()}, are decoded and handed
+     * to a {@link BatchDomainEventListener} in one call on the consumer thread. Offsets are
+     * committed after the call returns.
+     */
+    BATCH
+}
@@ -0,0 +1,149 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.constant.KafkaTopics;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.DomainEventTypes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Takes records whose handling failed off the topic they were consumed from.
+ * <p>
+ * A record whose handler threw moves to the next retry tier, {@code <topic>-retry-<n>}, stamped with
+ * the attempt number and the time it becomes due; once every tier has been tried, or straight away
+ * if the record cannot even be decoded, it goes to {@code <topic>-dlt} with the exception that
+ * failed it. The record value and its other headers are forwarded unchanged.
+ * <p>
+ * Without a producer, or with no tiers and no dead-letter topic configured, failures are only
+ * logged.
+ */
+@Log4j2
+class FailedRecordForwarder {
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+    private static final Set<String> FORWARDING_HEADERS = Set.of(
+            EventHeaders.ORIGINAL_TOPIC, EventHeaders.RETRY_ATTEMPT, EventHeaders.RETRY_DUE_AT, EventHeaders.EXCEPTION);
+
+    private final String topic;
+    private final List<Duration> retryDelays;
+    private final boolean deadLetter;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    FailedRecordForwarder(String topic, ListenerOptions options, KafkaTemplate<String, byte[]> kafkaTemplate,
+                          MeterRegistry meterRegistry) {
+        this.topic = topic;
+        this.retryDelays = List.copyOf(options.getRetryDelays());
+        this.deadLetter = options.isDeadLetter();
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    int tiers() {
+        return kafkaTemplate != null ? retryDelays.size() : 0;
+    }
+
+    /**
+     * Forwards the failed record. {@code retriable} is {@code false} for records that will never
+     * succeed, such as undecodable ones. Throws if the record could not be forwarded, so the
+     * container does not commit past it.
+     */
+    void forward(ConsumerRecord<String, byte[]> record, String eventType, Exception error, boolean retriable) {
+        int attempt = attempt(record);
+        boolean retry = retriable && attempt < tiers();
+        if (kafkaTemplate == null || (!retry && !deadLetter)) {
+            log.error("Error processing {} from topic {} at {}-{}@{}: {}", eventType, topic,
+                    record.topic(), record.partition(), record.offset(), error.getMessage(), error);
+            return;
+        }
+
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!FORWARDING_HEADERS.contains(header.key())) {
+                headers.add(header);
+            }
+        }
+        headers.add(header(EventHeaders.ORIGINAL_TOPIC, topic));
+
+        String target;
+        if (retry) {
+            target = KafkaTopics.retryTopic(topic, attempt + 1);
+            long dueAt = System.currentTimeMillis() + retryDelays.get(attempt).toMillis();
+            headers.add(header(EventHeaders.RETRY_ATTEMPT, String.valueOf(attempt + 1)));
+            headers.add(header(EventHeaders.RETRY_DUE_AT, String.valueOf(dueAt)));
+            log.warn("Retrying {} from topic {} via {} after: {}", eventType, topic, target, error.getMessage());
+        } else {
+            target = KafkaTopics.deadLetterTopic(topic);
+            headers.add(header(EventHeaders.RETRY_ATTEMPT, String.valueOf(attempt)));
+            headers.add(header(EventHeaders.EXCEPTION, error.getClass().getName() + ": " + error.getMessage()));
+            log.error("Dead-lettering {} from topic {} after {} retries: {}", eventType, topic, attempt,
+                    error.getMessage(), error);
+        }
+
+        try {
+            kafkaTemplate.send(new ProducerRecord<>(target, null, record.key(), record.value(), headers))
+                    .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding record to " + target, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not forward record to " + target, e);
+        }
+        count(retry ? "messaging.consume.retried" : "messaging.consume.dead-lettered", eventType);
+    }
+
+    /**
+     * Names the event for logs and metrics, from the decoded event if there is one.
+     */
+    static String eventType(ConsumerRecord<?, ?> record, DomainEvent event) {
+        if (event != null) {
+            return event.getClass().getSimpleName();
+        }
+        int typeId = EventTypeHeader.typeOf(record.headers());
+        return typeId >= 0 ? DomainEventTypes.name(typeId) : "unknown";
+    }
+
+    static int attempt(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(EventHeaders.RETRY_ATTEMPT);
+        return header != null ? Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8)) : 0;
+    }
+
+    static long dueAt(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(EventHeaders.RETRY_DUE_AT);
+        return header != null ? Long.parseLong(new String(header.value(), StandardCharsets.UTF_8)) : 0;
+    }
+
+    private void count(String name, String eventType) {
+        if (meterRegistry == null) {
+            return;
+        }
+        counters.computeIfAbsent(name + "/" + eventType, key -> Counter.builder(name)
+                .tag("topic", topic)
+                .tag("event_type", eventType)
+                .register(meterRegistry)).increment();
+    }
+
+    private static Header header(String key, String value) {
+        return new RecordHeader(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+}
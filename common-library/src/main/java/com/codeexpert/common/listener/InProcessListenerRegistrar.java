@@ -0,0 +1,182 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.inprocess.InProcessBroker;
+import com.codeexpert.common.inprocess.InProcessMessage;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * {@link ListenerRegistrar} over an {@link InProcessBroker}.
+ * <p>
+ * Events are routed by type as by {@link KafkaListenerRegistrar}, with the same rules for sharing
+ * a topic, and those nobody listens for are dropped before decoding. Each partition is delivered
+ * in order, which serves both {@link ExecutionMode#SERIAL} and {@link ExecutionMode#KEY_ORDERED};
+ * {@link ExecutionMode#BATCH} listeners receive up to {@link ListenerOptions#getMaxBatchSize()}
+ * events at a time. A failing event is logged. Retry tiers, dead-letter topics and concurrency
+ * scaling belong to Kafka and are ignored here.
+ * <p>
+ * Subscriptions made while the application context is starting begin delivery once it has
+ * refreshed; later ones start right away.
+ */
+@Log4j2
+public class InProcessListenerRegistrar implements ListenerRegistrar, SmartLifecycle {
+
+    private final InProcessBroker broker;
+    private final EventSerializer eventSerializer = new JsonEventSerializer();
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private volatile boolean running;
+
+    public InProcessListenerRegistrar(InProcessBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public synchronized void registerListener(
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener,
+            ListenerOptions options,
+            Class<?>... eventTypes) {
+
+        Subscription subscription = subscriptions.get(key(topic, groupId));
+        if (subscription == null) {
+            EventTypeRouter router = new EventTypeRouter(topic);
+            EventSerializer serializer = serializer(options);
+            BatchDomainEventListener batchListener = BatchDomainEventListener.adapt(router);
+            InProcessBroker.Subscription brokerSubscription = options.getExecutionMode() == ExecutionMode.BATCH
+                    ? broker.subscribe(topic, groupId, options.getMaxBatchSize(), messages ->
+                            deliverBatch(messages, batchListener, router::accepts, serializer))
+                    : broker.subscribe(topic, groupId, options.getMaxBatchSize(), messages ->
+                            deliverEach(messages, router, serializer));
+            subscription = new Subscription(brokerSubscription, options.getExecutionMode(), serializer, router);
+            add(subscription, topic, groupId);
+        } else if (subscription.router == null || subscription.mode != options.getExecutionMode()) {
+            throw new IllegalStateException("Topic '" + topic + "' is already consumed by group '" + groupId
+                    + "' in " + subscription.mode + " mode");
+        } else if (subscription.serializer.getClass() != serializer(options).getClass()) {
+            throw new IllegalStateException("Topic '" + topic + "' is already decoded by group '" + groupId
+                    + "' with " + subscription.serializer.getClass().getSimpleName());
+        }
+
+        subscription.router.addRoute(domainEventListener, eventTypes);
+    }
+
+    @Override
+    public synchronized void registerBatchListener(
+            String topic,
+            String groupId,
+            BatchDomainEventListener batchListener,
+            ListenerOptions options) {
+
+        if (subscriptions.containsKey(key(topic, groupId))) {
+            throw new IllegalStateException("Topic '" + topic + "' is already consumed by group '" + groupId + "'");
+        }
+        EventSerializer serializer = serializer(options);
+        InProcessBroker.Subscription brokerSubscription = broker.subscribe(topic, groupId,
+                options.getMaxBatchSize(), messages -> deliverBatch(messages, batchListener, type -> true, serializer));
+        add(new Subscription(brokerSubscription, ExecutionMode.BATCH, serializer, null), topic, groupId);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        subscriptions.values().forEach(subscription -> subscription.brokerSubscription.start());
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        subscriptions.values().forEach(subscription -> subscription.brokerSubscription.stop());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void add(Subscription subscription, String topic, String groupId) {
+        subscriptions.put(key(topic, groupId), subscription);
+        if (running) {
+            subscription.brokerSubscription.start();
+        }
+        log.info("Registered {} in-process listener for topic '{}' with group '{}'", subscription.mode, topic,
+                groupId);
+    }
+
+    private static String key(String topic, String groupId) {
+        return groupId + "/" + topic;
+    }
+
+    private EventSerializer serializer(ListenerOptions options) {
+        return options.getSerializer() != null ? options.getSerializer() : eventSerializer;
+    }
+
+    private static void deliverEach(List<InProcessMessage> messages, EventTypeRouter router,
+                                    EventSerializer serializer) {
+        for (InProcessMessage message : messages) {
+            if (!router.accepts(message.eventType())) {
+                continue;
+            }
+            try {
+                router.onEvent(decode(message, serializer));
+            } catch (Exception e) {
+                log.error("Error processing {} from in-process topic {}: {}", message.eventType(), message.topic(),
+                        e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void deliverBatch(List<InProcessMessage> messages, BatchDomainEventListener batchListener,
+                                     Predicate<String> filter, EventSerializer serializer) {
+        List<DomainEvent> events = new ArrayList<>(messages.size());
+        for (InProcessMessage message : messages) {
+            if (!filter.test(message.eventType())) {
+                continue;
+            }
+            try {
+                events.add(decode(message, serializer));
+            } catch (Exception e) {
+                log.error("Skipping undecodable {} from in-process topic {}: {}", message.eventType(),
+                        message.topic(), e.getMessage());
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            batchListener.onEvents(events);
+        } catch (Exception e) {
+            log.error("Error processing batch of {} events from in-process topic {}: {}", events.size(),
+                    messages.get(0).topic(), e.getMessage(), e);
+        }
+    }
+
+    private static DomainEvent decode(InProcessMessage message, EventSerializer serializer) {
+        return message.payload() instanceof byte[] bytes
+                ? serializer.fromBytes(bytes)
+                : (DomainEvent) message.payload();
+    }
+
+    private static final class Subscription {
+
+        private final InProcessBroker.Subscription brokerSubscription;
+        private final ExecutionMode mode;
+        private final EventSerializer serializer;
+        private final EventTypeRouter router;
+
+        private Subscription(InProcessBroker.Subscription brokerSubscription, ExecutionMode mode,
+                             EventSerializer serializer, EventTypeRouter router) {
+            this.brokerSubscription = brokerSubscription;
+            this.mode = mode;
+            this.serializer = serializer;
+            this.router = router;
+        }
+    }
+}
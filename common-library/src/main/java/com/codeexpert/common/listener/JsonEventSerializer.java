@@ -27,4 +27,22 @@ public class JsonEventSerializer implements EventSerializer {
         }
     }
 
+    @Override
+    public DomainEvent fromBytes(byte[] source) {
+        try {
+            return objectMapper.readValue(source, DomainEvent.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to deserialize command", e);
+        }
+    }
+
+    @Override
+    public byte[] toBytes(DomainEvent command) {
+        try {
+            return objectMapper.writeValueAsBytes(command);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize command", e);
+        }
+    }
+
 }
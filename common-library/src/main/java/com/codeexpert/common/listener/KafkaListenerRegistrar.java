@@ -1,25 +1,86 @@
 package com.codeexpert.common.listener;
 
 import com.codeexpert.common.command.BaseCommand;
+import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.event.BaseEvent;
 import com.codeexpert.common.event.DomainEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchMessageListener;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.MessageListener;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
+/**
+ * Creates and runs the Kafka consumers of a service.
+ * <p>
+ * Each topic gets exactly one container per consumer group, however many listeners are registered
+ * on it: decoded events are routed to the listener registered for their type, so several event
+ * types sharing a topic do not split its partitions between competing containers. The execution
+ * mode and {@link EventSerializer} are chosen by the first registration for a topic and must match
+ * in later ones. Records whose event-type header names a type without a route are dropped before
+ * their value is decoded.
+ * <p>
+ * A record whose handler throws is passed on to the topic's retry tiers and finally its dead-letter
+ * topic, as configured by {@link ListenerOptions#getRetryDelays()} and
+ * {@link ListenerOptions#isDeadLetter()}; see {@link FailedRecordForwarder}. Each tier is consumed
+ * by a container of its own that holds a record back until its delay has passed, so the main
+ * container moves on immediately.
+ * <p>
+ * With a {@link ListenerOptions#getCommitBatchSize()} set, offsets are committed in batches and
+ * only past records whose handling has finished, for the retry tiers as for the topic; see
+ * {@link OffsetCommitter}. Otherwise the container factory's ack mode applies.
+ * <p>
+ * With a {@link ListenerOptions#getMaxConcurrency()} set, the number of consumers of a topic's
+ * container follows its lag; see {@link ConcurrencyScaler}.
+ * <p>
+ * Containers registered while the application context is starting are started together once it
+ * has refreshed, so no event can arrive before all routes of its topic are in place. Later
+ * registrations start right away.
+ */
 @Log4j2
 @Component
-public class KafkaListenerRegistrar {
+public class KafkaListenerRegistrar implements ListenerRegistrar, SmartLifecycle {
 
     private final ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory;
     private final ObjectMapper objectMapper;
     private final EventSerializer eventSerializer = new JsonEventSerializer();
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private final List<WorkerPool> ownedWorkers = new CopyOnWriteArrayList<>();
+    private final List<ConcurrencyScaler> scalers = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scalerScheduler;
+    private KafkaTemplate<String, byte[]> retryTemplate;
+    private MeterRegistry meterRegistry;
+    private volatile boolean running;
 
 
     public KafkaListenerRegistrar(
@@ -29,28 +90,359 @@ public class KafkaListenerRegistrar {
         this.objectMapper = objectMapper;
     }
 
-    public void registerListener(
+    /**
+     * Producer for retry and dead-letter records; without it failed records are only logged.
+     * Records are forwarded as the bytes they were received as, whatever the factory's value
+     * serializer.
+     */
+    @Autowired(required = false)
+    @SuppressWarnings("unchecked")
+    public void setProducerFactory(ProducerFactory<?, ?> producerFactory) {
+        this.retryTemplate = new KafkaTemplate<>((ProducerFactory<String, byte[]>) producerFactory,
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public synchronized void registerListener(
             String topic,
             String groupId,
-            DomainEventListener domainEventListener) {
+            DomainEventListener domainEventListener,
+            ListenerOptions options,
+            Class<?>... eventTypes) {
+
+        Subscription subscription = subscriptions.get(key(topic, groupId));
+        if (subscription == null) {
+            EventTypeRouter router = new EventTypeRouter(topic);
+            FailedRecordForwarder forwarder = new FailedRecordForwarder(topic, options, retryTemplate, meterRegistry);
+            ConcurrentMessageListenerContainer<String, Object> container = createContainer(topic, groupId);
+            scaleWithLag(container, topic, options);
+            switch (options.getExecutionMode()) {
+                case KEY_ORDERED -> configureKeyOrdered(container, topic, groupId, router, router::accepts, forwarder,
+                        options);
+                case BATCH -> configureBatch(container, topic, BatchDomainEventListener.adapt(router), router::accepts,
+                        forwarder, options);
+                default -> configureSerial(container, router, router::accepts, serializer(options), forwarder);
+            }
+            commitInBatches(container, topic, options);
+            subscription = new Subscription(container, options.getExecutionMode(), serializer(options), router,
+                    createRetryTiers(topic, groupId, router, router::accepts, options, forwarder));
+            add(subscription, topic, groupId);
+        } else if (subscription.router == null || subscription.mode != options.getExecutionMode()) {
+            throw new IllegalStateException("Topic '" + topic + "' is already consumed by group '" + groupId
+                    + "' in " + subscription.mode + " mode");
+        } else if (subscription.serializer.getClass() != serializer(options).getClass()) {
+            throw new IllegalStateException("Topic '" + topic + "' is already decoded by group '" + groupId
+                    + "' with " + subscription.serializer.getClass().getSimpleName());
+        }
+
+        subscription.router.addRoute(domainEventListener, eventTypes);
+    }
+
+    @Override
+    public synchronized void registerBatchListener(
+            String topic,
+            String groupId,
+            BatchDomainEventListener batchListener,
+            ListenerOptions options) {
+
+        if (subscriptions.containsKey(key(topic, groupId))) {
+            throw new IllegalStateException("Topic '" + topic + "' is already consumed by group '" + groupId + "'");
+        }
+        FailedRecordForwarder forwarder = new FailedRecordForwarder(topic, options, retryTemplate, meterRegistry);
+        ConcurrentMessageListenerContainer<String, Object> container = createContainer(topic, groupId);
+        scaleWithLag(container, topic, options);
+        configureBatch(container, topic, batchListener, record -> true, forwarder, options);
+        commitInBatches(container, topic, options);
+        DomainEventListener retryListener = event -> batchListener.onEvents(List.of(event));
+        add(new Subscription(container, ExecutionMode.BATCH, serializer(options), null,
+                createRetryTiers(topic, groupId, retryListener, record -> true, options, forwarder)),
+                topic, groupId);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        ownedWorkers.forEach(WorkerPool::start);
+        subscriptions.values().forEach(subscription ->
+                subscription.containers.forEach(ConcurrentMessageListenerContainer::start));
+        if (scalerScheduler == null) {
+            scalerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "kafka-listener-scaler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = ConcurrencyScaler.CHECK_INTERVAL.toMillis();
+            scalerScheduler.scheduleWithFixedDelay(this::checkConcurrency, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (scalerScheduler != null) {
+            // Lets a resize in progress finish, so it cannot restart a container stopped below
+            scalerScheduler.shutdown();
+            awaitTermination(scalerScheduler);
+            scalerScheduler = null;
+        }
+        subscriptions.values().forEach(subscription ->
+                subscription.containers.forEach(ConcurrentMessageListenerContainer::stop));
+        ownedWorkers.forEach(WorkerPool::stop);
+    }
 
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private ConcurrentMessageListenerContainer<String, Object> createContainer(String topic, String groupId) {
         ConcurrentMessageListenerContainer<String, Object> container =
                 kafkaListenerContainerFactory.createContainer(topic);
         container.getContainerProperties().setGroupId(groupId);
-        container.getContainerProperties().setMessageListener(new MessageListener<String, String>() {
+        // Values reach the listener as raw bytes and are decoded by the topic's EventSerializer
+        container.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        return container;
+    }
+
+    private void scaleWithLag(
+            ConcurrentMessageListenerContainer<String, Object> container, String topic, ListenerOptions options) {
+        if (options.getMaxConcurrency() > 0) {
+            scalers.add(new ConcurrencyScaler(topic, container, options, () -> partitionCount(topic), meterRegistry));
+        }
+    }
+
+    private void commitInBatches(
+            ConcurrentMessageListenerContainer<String, Object> container, String topic, ListenerOptions options) {
+        if (options.getCommitBatchSize() > 0) {
+            new OffsetCommitter(topic, options, meterRegistry).install(container);
+        }
+    }
+
+    /**
+     * Runs on the scaler thread without this registrar's lock, as resizing stops and starts a
+     * container; {@link #stop()} waits for a check in progress instead.
+     */
+    private void checkConcurrency() {
+        for (ConcurrencyScaler scaler : scalers) {
+            if (!running) {
+                return;
+            }
+            try {
+                scaler.check();
+            } catch (RuntimeException e) {
+                log.error("Could not scale Kafka listener container: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void awaitTermination(ScheduledExecutorService scheduler) {
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Kafka listener container resize still running after one minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int partitionCount(String topic) {
+        try (Consumer<?, ?> consumer = kafkaListenerContainerFactory.getConsumerFactory().createConsumer()) {
+            return consumer.partitionsFor(topic).size();
+        }
+    }
+
+    private void add(Subscription subscription, String topic, String groupId) {
+        subscriptions.put(key(topic, groupId), subscription);
+        if (running) {
+            subscription.containers.forEach(ConcurrentMessageListenerContainer::start);
+        }
+        log.info("Registered {} Kafka listener for topic '{}' with group '{}'", subscription.mode, topic, groupId);
+    }
+
+    private static String key(String topic, String groupId) {
+        return groupId + "/" + topic;
+    }
+
+    private EventSerializer serializer(ListenerOptions options) {
+        return options.getSerializer() != null ? options.getSerializer() : eventSerializer;
+    }
+
+    private void configureSerial(
+            ConcurrentMessageListenerContainer<String, Object> container,
+            DomainEventListener domainEventListener,
+            Predicate<ConsumerRecord<?, ?>> filter,
+            EventSerializer serializer,
+            FailedRecordForwarder forwarder) {
+        container.getContainerProperties().setMessageListener(new MessageListener<String, byte[]>() {
             @Override
             @SuppressWarnings("unchecked") // Suppress unchecked cast warning
-            public void onMessage(ConsumerRecord<String, String> record) {
+            public void onMessage(ConsumerRecord<String, byte[]> record) {
+                if (filter.test(record)) {
+                    deliver(record, domainEventListener, serializer, forwarder);
+                }
+            }
+        });
+    }
+
+    /**
+     * One serial container per retry tier of the topic. Records of a tier share its delay, so
+     * they fall due in the order they arrive and the container only has to wait for the head
+     * record: one not yet due is nacked for the time it has left, which seeks back to it and
+     * pauses the consumer while it keeps polling, so the group does not rebalance.
+     */
+    private List<ConcurrentMessageListenerContainer<String, Object>> createRetryTiers(
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener,
+            Predicate<ConsumerRecord<?, ?>> filter,
+            ListenerOptions options,
+            FailedRecordForwarder forwarder) {
+        EventSerializer serializer = serializer(options);
+        List<ConcurrentMessageListenerContainer<String, Object>> containers = new ArrayList<>();
+        for (int tier = 1; tier <= forwarder.tiers(); tier++) {
+            String retryTopic = KafkaTopics.retryTopic(topic, tier);
+            ConcurrentMessageListenerContainer<String, Object> container = createContainer(retryTopic, groupId);
+            ContainerProperties containerProperties = container.getContainerProperties();
+            containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+            containerProperties.setAsyncAcks(false);
+            containerProperties.setMessageListener((AcknowledgingMessageListener<String, byte[]>) (record, ack) -> {
+                long wait = FailedRecordForwarder.dueAt(record) - System.currentTimeMillis();
+                if (wait > 0) {
+                    ack.nack(Duration.ofMillis(wait));
+                    return;
+                }
+                if (filter.test(record)) {
+                    deliver(record, domainEventListener, serializer, forwarder);
+                }
+                ack.acknowledge();
+            });
+            commitInBatches(container, retryTopic, options);
+            containers.add(container);
+        }
+        return containers;
+    }
+
+    private static void deliver(
+            ConsumerRecord<String, byte[]> record,
+            DomainEventListener domainEventListener,
+            EventSerializer serializer,
+            FailedRecordForwarder forwarder) {
+        DomainEvent event = null;
+        try {
+            event = serializer.fromBytes(record.value());
+            domainEventListener.onEvent(event);
+        } catch (Exception e) {
+            forwarder.forward(record, FailedRecordForwarder.eventType(record, event), e, event != null);
+        }
+    }
+
+    /**
+     * Offsets are acknowledged by the workers, possibly out of order; with async acks the
+     * container holds back each commit until the gap before it has been filled. An
+     * {@link OffsetCommitter}, if configured, takes the acknowledgements over instead.
+     */
+    private void configureKeyOrdered(
+            ConcurrentMessageListenerContainer<String, Object> container,
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener,
+            Predicate<ConsumerRecord<?, ?>> filter,
+            FailedRecordForwarder forwarder,
+            ListenerOptions options) {
+        Executor executor = options.getExecutor();
+        if (executor == null) {
+            WorkerPool workers = new WorkerPool(options.getWorkerThreads(), workerThreadFactory(groupId, topic));
+            ownedWorkers.add(workers);
+            executor = workers;
+        }
+
+        ContainerProperties containerProperties = container.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setAsyncAcks(true);
+        containerProperties.getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        containerProperties.setMessageListener(new KeyOrderedMessageListener(
+                topic, domainEventListener, serializer(options), filter, forwarder, new KeyOrderedExecutor(executor),
+                options.getMaxInFlight()));
+    }
+
+    /**
+     * Records rejected by the filter are left out of the batch and records failing to decode are
+     * forwarded on their own. If the listener throws, every record of the batch is forwarded, as
+     * there is no telling which of them failed. The container commits the whole poll once the
+     * listener returns.
+     */
+    private void configureBatch(
+            ConcurrentMessageListenerContainer<String, Object> container,
+            String topic,
+            BatchDomainEventListener batchListener,
+            Predicate<ConsumerRecord<?, ?>> filter,
+            FailedRecordForwarder forwarder,
+            ListenerOptions options) {
+        EventSerializer serializer = serializer(options);
+        ContainerProperties containerProperties = container.getContainerProperties();
+        containerProperties.getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(options.getMaxBatchSize()));
+        containerProperties.setMessageListener((BatchMessageListener<String, byte[]>) records -> {
+            List<ConsumerRecord<String, byte[]>> decoded = new ArrayList<>(records.size());
+            List<DomainEvent> events = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, byte[]> record : records) {
+                if (!filter.test(record)) {
+                    continue;
+                }
                 try {
-                    DomainEvent command = eventSerializer.fromString(record.value());
-                    domainEventListener.onEvent(command);
+                    events.add(serializer.fromBytes(record.value()));
+                    decoded.add(record);
                 } catch (Exception e) {
-                    log.error("Error processing Kafka message for topic {}: {}", topic, e.getMessage(), e);
+                    forwarder.forward(record, FailedRecordForwarder.eventType(record, null), e, false);
+                }
+            }
+            if (events.isEmpty()) {
+                return;
+            }
+            try {
+                batchListener.onEvents(events);
+            } catch (Exception e) {
+                log.error("Error processing batch of {} Kafka messages for topic {}: {}",
+                        events.size(), topic, e.getMessage());
+                for (int i = 0; i < decoded.size(); i++) {
+                    forwarder.forward(decoded.get(i), FailedRecordForwarder.eventType(decoded.get(i), events.get(i)),
+                            e, true);
                 }
             }
         });
+    }
+
+    private static ThreadFactory workerThreadFactory(String groupId, String topic) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, groupId + "-" + topic + "-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscription {
+
+        private final List<ConcurrentMessageListenerContainer<String, Object>> containers = new ArrayList<>();
+        private final ExecutionMode mode;
+        private final EventSerializer serializer;
+        private final EventTypeRouter router;
 
-        container.start();
-        log.info("Registered Kafka listener for topic '{}' with group '{}'", topic, groupId);
+        private Subscription(ConcurrentMessageListenerContainer<String, Object> container, ExecutionMode mode,
+                             EventSerializer serializer, EventTypeRouter router,
+                             List<ConcurrentMessageListenerContainer<String, Object>> retryContainers) {
+            this.containers.add(container);
+            this.containers.addAll(retryContainers);
+            this.mode = mode;
+            this.serializer = serializer;
+            this.router = router;
+        }
     }
 }
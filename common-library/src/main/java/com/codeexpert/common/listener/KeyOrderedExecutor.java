@@ -0,0 +1,40 @@
+package com.codeexpert.common.listener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks concurrently on an {@link Executor} while keeping tasks that share a key in
+ * submission order.
+ * <p>
+ * Each key maps to the future of its most recently submitted task; a new task for the key is
+ * chained behind it, and the entry is dropped once the chain drains, so idle keys cost nothing.
+ * Tasks without a key are not ordered against anything.
+ */
+class KeyOrderedExecutor {
+
+    private final Executor executor;
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    KeyOrderedExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    CompletableFuture<Void> submit(Object key, Runnable task) {
+        if (key == null) {
+            return CompletableFuture.runAsync(task, executor);
+        }
+
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                : tail.handle((result, error) -> null).thenRunAsync(task, executor));
+        next.whenComplete((result, error) -> tails.remove(key, next));
+        return next;
+    }
+
+    int activeKeys() {
+        return tails.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * Message listener for {@link ExecutionMode#KEY_ORDERED} containers.
+ * <p>
+ * Each record is handed to a {@link KeyOrderedExecutor} keyed by the record key and acknowledged
+ * when its handler finishes. The container runs with async acks, so it only commits an offset once
+ * every earlier record of the partition has been acknowledged. A semaphore caps the records in
+ * flight; when it is exhausted the consumer thread blocks, which stops polling. Records rejected by
+ * the filter are acknowledged straight away without being decoded or queued. Failed records are
+ * handed to the {@link FailedRecordForwarder} before they are acknowledged; one that cannot be
+ * forwarded is never acknowledged, which holds the partition's committed offset below it so it is
+ * delivered again after the next rebalance or restart. If the consumer thread is interrupted while
+ * waiting for a slot, the record is neither queued nor acknowledged and the exception goes to the
+ * container.
+ */
+@Log4j2
+class KeyOrderedMessageListener implements AcknowledgingMessageListener<String, byte[]> {
+
+    private final String topic;
+    private final DomainEventListener domainEventListener;
+    private final EventSerializer eventSerializer;
+    private final Predicate<ConsumerRecord<?, ?>> filter;
+    private final FailedRecordForwarder failedRecordForwarder;
+    private final KeyOrderedExecutor executor;
+    private final Semaphore inFlight;
+
+    KeyOrderedMessageListener(String topic, DomainEventListener domainEventListener,
+                              EventSerializer eventSerializer, Predicate<ConsumerRecord<?, ?>> filter,
+                              FailedRecordForwarder failedRecordForwarder, KeyOrderedExecutor executor,
+                              int maxInFlight) {
+        this.topic = topic;
+        this.domainEventListener = domainEventListener;
+        this.eventSerializer = eventSerializer;
+        this.filter = filter;
+        this.failedRecordForwarder = failedRecordForwarder;
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        if (!filter.test(record)) {
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            // Unacknowledged, the record must not be skipped: the error handler seeks back to it
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to dispatch record of " + topic, e);
+        }
+
+        try {
+            executor.submit(record.key(), () -> process(record))
+                    .whenComplete((result, error) -> {
+                        inFlight.release();
+                        if (error == null) {
+                            acknowledgment.acknowledge();
+                        } else {
+                            log.error("Holding back offset of topic {} at {}-{}@{}, record could not be forwarded: {}",
+                                    topic, record.topic(), record.partition(), record.offset(), error.getMessage(),
+                                    error);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void process(ConsumerRecord<String, byte[]> record) {
+        DomainEvent event = null;
+        try {
+            event = eventSerializer.fromBytes(record.value());
+            domainEventListener.onEvent(event);
+        } catch (Exception e) {
+            failedRecordForwarder.forward(record, FailedRecordForwarder.eventType(record, event), e, event != null);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.codeexpert.common.listener;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Per-registration settings for {@link KafkaListenerRegistrar}.
+ */
+@Value
+@Builder
+public class ListenerOptions {
+
+    private static final ListenerOptions DEFAULTS = ListenerOptions.builder().build();
+
+    /**
+     * Retry delays the services use: a quick retry for blips, then longer ones for outages.
+     */
+    public static final List<Duration> STANDARD_RETRY_DELAYS =
+            List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1));
+
+    @Builder.Default
+    ExecutionMode executionMode = ExecutionMode.SERIAL;
+
+    /**
+     * Worker threads created for {@link ExecutionMode#KEY_ORDERED} when no {@link #executor} is given.
+     */
+    @Builder.Default
+    int workerThreads = 16;
+
+    /**
+     * Upper bound on records dispatched to workers but not yet completed, per container.
+     */
+    @Builder.Default
+    int maxInFlight = 1024;
+
+    /**
+     * Upper bound on records per {@link ExecutionMode#BATCH} delivery ({@code max.poll.records}).
+     */
+    @Builder.Default
+    int maxBatchSize = 500;
+
+    /**
+     * Fewest consumers the container shrinks to when its concurrency is scaled with the lag.
+     */
+    @Builder.Default
+    int minConcurrency = 1;
+
+    /**
+     * Most consumers the container grows to when its lag builds up, further capped by the
+     * partition count of the topic. {@code 0} keeps the factory's fixed concurrency.
+     */
+    @Builder.Default
+    int maxConcurrency = 0;
+
+    /**
+     * Executor for {@link ExecutionMode#KEY_ORDERED} work, e.g. a virtual-thread-per-task executor
+     * on Java 21. When {@code null} a fixed pool of {@link #workerThreads} is created.
+     */
+    ExecutorService executor;
+
+    /**
+     * Decodes the records of the topic, e.g. a {@link BinaryEventSerializer} for topics whose
+     * producers publish binary events. When {@code null} records are decoded as JSON.
+     */
+    EventSerializer serializer;
+
+    /**
+     * Delays of the retry tiers a record whose handler threw passes through, in order. Each tier
+     * is a topic of its own with its own consumer, so waiting records never hold up the main topic.
+     * Empty means no retries.
+     */
+    @Builder.Default
+    List<Duration> retryDelays = List.of();
+
+    /**
+     * Whether records that failed every retry tier, or could not be decoded, go to the topic's
+     * dead-letter topic. When {@code false} they are only logged.
+     */
+    @Builder.Default
+    boolean deadLetter = false;
+
+    /**
+     * Records to complete before their offsets are committed, counted per consumer; only offsets
+     * up to which every record has been handled are committed. {@code 0} leaves committing to the
+     * container factory's ack mode.
+     */
+    @Builder.Default
+    int commitBatchSize = 0;
+
+    /**
+     * Longest a completed record waits for its offset to be committed when
+     * {@link #commitBatchSize} is set.
+     */
+    @Builder.Default
+    Duration commitInterval = Duration.ofSeconds(1);
+
+    public static ListenerOptions defaults() {
+        return DEFAULTS;
+    }
+}
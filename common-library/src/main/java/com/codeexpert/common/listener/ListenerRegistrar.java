@@ -0,0 +1,60 @@
+package com.codeexpert.common.listener;
+
+/**
+ * Subscribes a service's listeners to topics, whatever the transport behind them.
+ *
+ * @see KafkaListenerRegistrar
+ * @see InProcessListenerRegistrar
+ */
+public interface ListenerRegistrar {
+
+    /**
+     * Delivers the given event types on the topic, or every event if none are given, to the
+     * listener.
+     */
+    void registerListener(
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener,
+            ListenerOptions options,
+            Class<?>... eventTypes);
+
+    /**
+     * Delivers every event on the topic to the batch listener. A batch listener owns its topic; it
+     * cannot share it with other listeners of the same group.
+     */
+    void registerBatchListener(
+            String topic,
+            String groupId,
+            BatchDomainEventListener batchListener,
+            ListenerOptions options);
+
+    /**
+     * Delivers every event on the topic to the listener.
+     */
+    default void registerListener(
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener) {
+        registerListener(topic, groupId, domainEventListener, ListenerOptions.defaults());
+    }
+
+    /**
+     * Delivers the given event types on the topic to the listener.
+     */
+    default void registerListener(
+            String topic,
+            String groupId,
+            DomainEventListener domainEventListener,
+            Class<?>... eventTypes) {
+        registerListener(topic, groupId, domainEventListener, ListenerOptions.defaults(), eventTypes);
+    }
+
+    default void registerBatchListener(
+            String topic,
+            String groupId,
+            BatchDomainEventListener batchListener) {
+        registerBatchListener(topic, groupId, batchListener,
+                ListenerOptions.builder().executionMode(ExecutionMode.BATCH).build());
+    }
+}
@@ -0,0 +1,281 @@
+package com.codeexpert.common.listener;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Commits a container's offsets itself, in batches, and only past records whose handling has
+ * finished.
+ * <p>
+ * Every record is tracked per partition from delivery until its handler returns, or for
+ * {@link ExecutionMode#KEY_ORDERED} until its worker acknowledges it; records completing out of
+ * order are held back until every earlier record of the partition has completed too, and a record
+ * whose listener throws holds them back until it is delivered again; see {@link PartitionOffsets}.
+ * A consumer commits the completed prefix of its partitions once
+ * {@link ListenerOptions#getCommitBatchSize()} records have completed since its last commit, or
+ * once {@link ListenerOptions#getCommitInterval()} has passed with any completed; the interval is
+ * also checked while the container is idle. Revoked partitions are committed before they go.
+ * <p>
+ * Commits run on the consumer thread, timed as {@code messaging.consume.commit} by {@code result},
+ * with the records completed in between recorded as {@code messaging.consume.commit.records}.
+ */
+@Log4j2
+class OffsetCommitter implements ConsumerAwareRebalanceListener {
+
+    private final String topic;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final Map<Consumer<?, ?>, ConsumerOffsets> consumers = new ConcurrentHashMap<>();
+    private final Timer commits;
+    private final Timer failedCommits;
+    private final DistributionSummary recordsPerCommit;
+
+    OffsetCommitter(String topic, ListenerOptions options, MeterRegistry meterRegistry) {
+        this.topic = topic;
+        this.batchSize = options.getCommitBatchSize();
+        this.intervalNanos = options.getCommitInterval().toNanos();
+        this.commits = meterRegistry != null ? commitTimer(meterRegistry, "success") : null;
+        this.failedCommits = meterRegistry != null ? commitTimer(meterRegistry, "failure") : null;
+        this.recordsPerCommit = meterRegistry != null
+                ? DistributionSummary.builder("messaging.consume.commit.records")
+                        .description("Records completed between two offset commits")
+                        .tag("topic", topic)
+                        .register(meterRegistry)
+                : null;
+    }
+
+    private Timer commitTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("messaging.consume.commit")
+                .description("Offset commits of a listener container")
+                .tag("topic", topic)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes committing over from the container: wraps the message listener it has been configured
+     * with and switches it to manual acks, which it then never sends.
+     */
+    @SuppressWarnings("unchecked")
+    void install(ConcurrentMessageListenerContainer<String, Object> container) {
+        ContainerProperties containerProperties = container.getContainerProperties();
+        Object listener = containerProperties.getMessageListener();
+        if (listener instanceof AcknowledgingMessageListener<?, ?> acknowledging) {
+            containerProperties.setMessageListener(track((AcknowledgingMessageListener<String, byte[]>) acknowledging));
+        } else if (listener instanceof BatchMessageListener<?, ?> batch) {
+            containerProperties.setMessageListener(trackBatch((BatchMessageListener<String, byte[]>) batch));
+        } else if (listener instanceof MessageListener<?, ?> single) {
+            MessageListener<String, byte[]> recordListener = (MessageListener<String, byte[]>) single;
+            containerProperties.setMessageListener(track((record, acknowledgment) -> {
+                recordListener.onMessage(record);
+                acknowledgment.acknowledge();
+            }));
+        } else {
+            throw new IllegalStateException("Cannot track offsets for listener " + listener);
+        }
+
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setAsyncAcks(false);
+        containerProperties.getKafkaConsumerProperties().setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        containerProperties.setConsumerRebalanceListener(this);
+        containerProperties.setIdleEventInterval(Math.max(1, TimeUnit.NANOSECONDS.toMillis(intervalNanos)));
+
+        // Idle events are published on the consumer thread, the only one that may commit
+        ApplicationEventPublisher publisher = container.getApplicationEventPublisher();
+        container.setApplicationEventPublisher(event -> {
+            if (event instanceof ListenerContainerIdleEvent idle && idle.getConsumer() != null) {
+                ConsumerOffsets offsets = consumers.get(idle.getConsumer());
+                if (offsets != null) {
+                    commitIfDue(idle.getConsumer(), offsets);
+                }
+            }
+            if (publisher != null) {
+                publisher.publishEvent(event);
+            }
+        });
+    }
+
+    private AcknowledgingConsumerAwareMessageListener<String, byte[]> track(
+            AcknowledgingMessageListener<String, byte[]> listener) {
+        return (record, containerAcknowledgment, consumer) -> {
+            ConsumerOffsets offsets = consumers.computeIfAbsent(consumer, c -> new ConsumerOffsets());
+            PartitionOffsets partition = offsets.delivered(record);
+            try {
+                listener.onMessage(record, new Acknowledgment() {
+                    @Override
+                    public void acknowledge() {
+                        offsets.completed(partition, record.offset());
+                    }
+
+                    @Override
+                    public void nack(Duration sleep) {
+                        // The container seeks back to the record; its redelivery resets the tracking
+                        containerAcknowledgment.nack(sleep);
+                    }
+                });
+            } catch (RuntimeException e) {
+                partition.discard(record.offset());
+                throw e;
+            }
+            commitIfDue(consumer, offsets);
+        };
+    }
+
+    private BatchConsumerAwareMessageListener<String, byte[]> trackBatch(BatchMessageListener<String, byte[]> listener) {
+        return (records, consumer) -> {
+            ConsumerOffsets offsets = consumers.computeIfAbsent(consumer, c -> new ConsumerOffsets());
+            List<PartitionOffsets> partitions = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, byte[]> record : records) {
+                partitions.add(offsets.delivered(record));
+            }
+            try {
+                listener.onMessage(records);
+            } catch (RuntimeException e) {
+                for (int i = 0; i < records.size(); i++) {
+                    partitions.get(i).discard(records.get(i).offset());
+                }
+                throw e;
+            }
+            for (int i = 0; i < records.size(); i++) {
+                offsets.completed(partitions.get(i), records.get(i).offset());
+            }
+            commitIfDue(consumer, offsets);
+        };
+    }
+
+    private void commitIfDue(Consumer<?, ?> consumer, ConsumerOffsets offsets) {
+        int completed = offsets.completedSinceCommit.get();
+        if (completed == 0
+                || (completed < batchSize && System.nanoTime() - offsets.lastCommitNanos < intervalNanos)) {
+            return;
+        }
+        commit(consumer, offsets, offsets.partitions.values());
+    }
+
+    private void commit(Consumer<?, ?> consumer, ConsumerOffsets offsets, Collection<PartitionOffsets> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>();
+        for (PartitionOffsets partition : partitions) {
+            long offset = partition.uncommitted();
+            if (offset >= 0) {
+                commit.put(partition.partition(), new OffsetAndMetadata(offset));
+            }
+        }
+        int completed = offsets.completedSinceCommit.getAndSet(0);
+        offsets.lastCommitNanos = System.nanoTime();
+        if (commit.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            consumer.commitSync(commit);
+        } catch (KafkaException e) {
+            offsets.completedSinceCommit.addAndGet(completed);
+            if (failedCommits != null) {
+                failedCommits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            log.warn("Could not commit offsets of topic {} for {}: {}", topic, commit.keySet(), e.getMessage());
+            return;
+        }
+        for (PartitionOffsets partition : partitions) {
+            OffsetAndMetadata committed = commit.get(partition.partition());
+            if (committed != null) {
+                partition.committed(committed.offset());
+            }
+        }
+        if (commits != null) {
+            commits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordsPerCommit.record(completed);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets == null) {
+            return;
+        }
+        List<PartitionOffsets> leaving = offsets.remove(revoked);
+        commit(consumer, offsets, leaving);
+        leaving.forEach(PartitionOffsets::revoke);
+        if (offsets.partitions.isEmpty()) {
+            consumers.remove(consumer);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets == null) {
+            return;
+        }
+        offsets.remove(lost).forEach(PartitionOffsets::revoke);
+        if (offsets.partitions.isEmpty()) {
+            consumers.remove(consumer);
+        }
+    }
+
+    /**
+     * The partitions of one consumer. Only its consumer thread adds and removes partitions;
+     * completions may come from worker threads.
+     */
+    private static final class ConsumerOffsets {
+
+        private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+        private final AtomicInteger completedSinceCommit = new AtomicInteger();
+        private volatile long lastCommitNanos = System.nanoTime();
+
+        PartitionOffsets delivered(ConsumerRecord<?, ?> record) {
+            PartitionOffsets partition = partitions.computeIfAbsent(
+                    new TopicPartition(record.topic(), record.partition()), PartitionOffsets::new);
+            partition.delivered(record.offset());
+            return partition;
+        }
+
+        void completed(PartitionOffsets partition, long offset) {
+            if (partition.complete(offset)) {
+                completedSinceCommit.incrementAndGet();
+            }
+        }
+
+        List<PartitionOffsets> remove(Collection<TopicPartition> removed) {
+            List<PartitionOffsets> gone = new ArrayList<>(removed.size());
+            for (TopicPartition topicPartition : removed) {
+                PartitionOffsets partition = partitions.remove(topicPartition);
+                if (partition != null) {
+                    gone.add(partition);
+                }
+            }
+            return gone;
+        }
+    }
+}
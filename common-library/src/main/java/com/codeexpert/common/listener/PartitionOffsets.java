@@ -0,0 +1,95 @@
+package com.codeexpert.common.listener;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Offsets of one partition in flight, in delivery order, and the offset up to which every
+ * delivered record has completed.
+ * <p>
+ * A record whose listener threw stays in flight, uncompleted, so the commit point never passes
+ * it: the container's error handler seeks back and delivers it again, which resets the tracking
+ * from there. Only if the container delivers a later record instead, having given up on the
+ * failed one, does the commit point move past it.
+ */
+class PartitionOffsets {
+
+    private final TopicPartition partition;
+    private final ArrayDeque<Long> inFlight = new ArrayDeque<>();
+    private final Set<Long> completedAhead = new HashSet<>();
+    private final Set<Long> failed = new HashSet<>();
+    private long next = -1;
+    private long committed = -1;
+    private boolean revoked;
+
+    PartitionOffsets(TopicPartition partition) {
+        this.partition = partition;
+    }
+
+    TopicPartition partition() {
+        return partition;
+    }
+
+    synchronized void delivered(long offset) {
+        // The error handler seeks back to a failed record and delivers it and its successors again
+        while (!inFlight.isEmpty() && inFlight.peekLast() >= offset) {
+            Long last = inFlight.pollLast();
+            completedAhead.remove(last);
+            failed.remove(last);
+        }
+        if (!failed.isEmpty()) {
+            // Delivered past a failed record, the error handler has given up on it
+            completedAhead.addAll(failed);
+            failed.clear();
+            advance();
+        }
+        inFlight.addLast(offset);
+    }
+
+    /**
+     * Returns {@code false} if the partition has been revoked since the record was delivered.
+     */
+    synchronized boolean complete(long offset) {
+        if (revoked) {
+            return false;
+        }
+        Long head = inFlight.peekFirst();
+        if (head == null || head != offset) {
+            completedAhead.add(offset);
+            return true;
+        }
+        inFlight.pollFirst();
+        next = offset + 1;
+        advance();
+        return true;
+    }
+
+    synchronized void discard(long offset) {
+        completedAhead.remove(offset);
+        failed.add(offset);
+    }
+
+    /**
+     * Returns the offset to commit, or -1 if nothing completed since the last commit.
+     */
+    synchronized long uncommitted() {
+        return next > committed ? next : -1;
+    }
+
+    synchronized void committed(long offset) {
+        committed = Math.max(committed, offset);
+    }
+
+    synchronized void revoke() {
+        revoked = true;
+    }
+
+    private void advance() {
+        while (!inFlight.isEmpty() && completedAhead.remove(inFlight.peekFirst())) {
+            next = inFlight.pollFirst() + 1;
+        }
+    }
+}
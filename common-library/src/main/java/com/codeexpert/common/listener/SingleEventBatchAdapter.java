@@ -0,0 +1,32 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+
+/**
+ * Lets an existing {@link DomainEventListener} run in {@link ExecutionMode#BATCH} unchanged. Each
+ * event is delivered on its own, and a failing event is logged without affecting the rest of the
+ * batch, as in {@link ExecutionMode#SERIAL}.
+ */
+@Log4j2
+public class SingleEventBatchAdapter implements BatchDomainEventListener {
+
+    private final DomainEventListener delegate;
+
+    public SingleEventBatchAdapter(DomainEventListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            try {
+                delegate.onEvent(event);
+            } catch (Exception e) {
+                log.error("Error processing {} in batch: {}", event.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+}
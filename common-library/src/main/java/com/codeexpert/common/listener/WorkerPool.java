@@ -0,0 +1,68 @@
+package com.codeexpert.common.listener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed pool of worker threads owned by a registrar for {@link ExecutionMode#KEY_ORDERED} work.
+ * <p>
+ * Unlike an {@link ExecutorService} it can be started again after it has been stopped, as its
+ * registrar can be; each start creates a fresh set of threads. Tasks submitted while it is
+ * stopped are rejected.
+ */
+final class WorkerPool implements Executor {
+
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final int threads;
+    private final ThreadFactory threadFactory;
+    private volatile ExecutorService delegate;
+
+    WorkerPool(int threads, ThreadFactory threadFactory) {
+        this.threads = threads;
+        this.threadFactory = threadFactory;
+        start();
+    }
+
+    synchronized void start() {
+        if (delegate == null) {
+            delegate = Executors.newFixedThreadPool(threads, threadFactory);
+        }
+    }
+
+    /**
+     * Lets queued tasks finish for up to ten seconds, then interrupts the ones still running.
+     */
+    void stop() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = delegate;
+            delegate = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        ExecutorService executor = delegate;
+        if (executor == null) {
+            throw new RejectedExecutionException("Worker pool is stopped");
+        }
+        executor.execute(task);
+    }
+}
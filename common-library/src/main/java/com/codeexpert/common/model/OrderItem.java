@@ -1,14 +1,28 @@
 package com.codeexpert.common.model;
 
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class OrderItem {
+    @NotBlank
     private String productId;
+
+    @Positive
     private int quantity;
+
+    @NotNull
+    @DecimalMin("0.00")
     private BigDecimal price;
 }
@@ -0,0 +1,14 @@
+package com.codeexpert.common.outbox;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Publishes the service's events through the outbox. The relay is tuned with the
+ * {@code outbox.relay.*} properties read by {@link OutboxConfiguration}, whose defaults suit all
+ * services.
+ */
+@AutoConfiguration
+@Import(OutboxConfiguration.class)
+public class OutboxAutoConfiguration {
+}
@@ -0,0 +1,39 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.publisher.KafkaMessagePublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Imported by {@link OutboxAutoConfiguration} to publish events through the transactional outbox:
+ * registers the outbox table, the outbox-backed {@link com.codeexpert.common.publisher.MessagePublisher}
+ * and the relay. Needs a {@code JdbcTemplate} and a {@code KafkaTemplate<String, Object>} whose value
+ * serializer passes {@code byte[]} through, such as
+ * {@link com.codeexpert.common.listener.EventKafkaSerializer}.
+ */
+@Configuration
+@Import({OutboxStore.class, OutboxMessagePublisher.class})
+public class OutboxConfiguration {
+
+    /**
+     * Sends for the relay only; not a candidate for injection, so that the service's own publishes
+     * keep going to the outbox.
+     */
+    @Bean(autowireCandidate = false)
+    public KafkaMessagePublisher outboxSender() {
+        return new KafkaMessagePublisher();
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(
+            OutboxStore outboxStore,
+            @Value("${outbox.relay.batch-size:500}") int batchSize,
+            @Value("${outbox.relay.poll-interval-ms:100}") long pollIntervalMillis,
+            @Value("${outbox.relay.send-timeout-ms:30000}") long sendTimeoutMillis,
+            @Value("${outbox.relay.rescan-interval-ms:10000}") long rescanIntervalMillis) {
+        return new OutboxRelay(outboxStore, outboxSender(), batchSize, pollIntervalMillis, sendTimeoutMillis,
+                rescanIntervalMillis);
+    }
+}
@@ -0,0 +1,7 @@
+package com.codeexpert.common.outbox;
+
+/**
+ * One event waiting in the outbox, already encoded as the record value it will be sent with.
+ */
+public record OutboxMessage(long id, String topic, String key, String eventType, byte[] payload) {
+}
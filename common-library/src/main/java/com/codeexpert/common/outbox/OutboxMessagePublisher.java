@@ -0,0 +1,75 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.listener.EventSerializer;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.MessagePublisher;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link MessagePublisher} that writes events to the outbox instead of sending them.
+ * <p>
+ * The insert joins the caller's transaction, if there is one; the {@link OutboxRelay} sends the
+ * event once it commits. Only a caller that writes its state change in that same transaction, as
+ * {@link com.codeexpert.common.idempotency.IdempotentCommandHandler} does with the processed-command
+ * record, gets an event published if and only if the change commits. Without a transaction the insert
+ * commits on its own. The futures complete once the event is in the outbox, not when it reaches the
+ * broker.
+ */
+@Log4j2
+@Component
+public class OutboxMessagePublisher implements MessagePublisher {
+
+    private final OutboxStore outboxStore;
+    private final EventSerializer defaultSerializer = new JsonEventSerializer();
+    private final Map<String, EventSerializer> serializers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboxMessagePublisher(OutboxStore outboxStore) {
+        this.outboxStore = outboxStore;
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(String topic, String key, T message) {
+        log.debug("→ Writing to outbox for topic: {}, key: {}", topic, key);
+        outboxStore.append(List.of(toOutboxMessage(topic, key, message)));
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAll(
+            String topic, Collection<? extends T> messages, Function<? super T, String> keyMapper) {
+        try {
+            List<OutboxMessage> batch = new ArrayList<>(messages.size());
+            for (T message : messages) {
+                batch.add(toOutboxMessage(topic, keyMapper.apply(message), message));
+            }
+            outboxStore.append(batch);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Encodes events for the topic with the given serializer instead of JSON. Consumers of the
+     * topic must register with the same serializer.
+     */
+    public void useSerializer(String topic, EventSerializer serializer) {
+        serializers.put(topic, serializer);
+    }
+
+    private OutboxMessage toOutboxMessage(String topic, String key, DomainEvent message) {
+        byte[] payload = serializers.getOrDefault(topic, defaultSerializer).toBytes(message);
+        return new OutboxMessage(0, topic, key, message.getClass().getSimpleName(), payload);
+    }
+}
@@ -0,0 +1,172 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.publisher.KafkaMessagePublisher;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends outbox messages to Kafka and deletes them once the broker has acknowledged them.
+ * <p>
+ * Messages go through a {@link KafkaMessagePublisher}, so relayed sends count against its in-flight
+ * limit per topic and are timed like any other publish. Every poll drains the outbox page by page in
+ * id order. All sends of a page are in flight at once; the relay then waits for their
+ * acknowledgements and deletes the acknowledged prefix of the page in one statement. A failed send
+ * ends the poll and it and everything after it are retried on the next one, so delivery is at least
+ * once and per-key order is kept apart from those retries.
+ * <p>
+ * A poll resumes after the last id relayed. Ids are assigned at insert but become visible at commit,
+ * so a slow transaction can commit an id below ones already sent; every
+ * {@code outbox.relay.rescan-interval-ms} a poll starts from the lowest id instead to pick such
+ * messages up. Run one relay per database.
+ */
+@Log4j2
+public class OutboxRelay implements SmartLifecycle {
+
+    private final OutboxStore outboxStore;
+    private final KafkaMessagePublisher sender;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long sendTimeoutMillis;
+    private final long rescanIntervalNanos;
+    private long relayedUpTo;
+    private long nextRescan = System.nanoTime();
+    private ScheduledExecutorService scheduler;
+
+    public OutboxRelay(
+            OutboxStore outboxStore,
+            KafkaMessagePublisher sender,
+            int batchSize,
+            long pollIntervalMillis,
+            long sendTimeoutMillis,
+            long rescanIntervalMillis) {
+        this.outboxStore = outboxStore;
+        this.sender = sender;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.rescanIntervalNanos = TimeUnit.MILLISECONDS.toNanos(rescanIntervalMillis);
+    }
+
+    /**
+     * Relays everything in the outbox after the last id relayed, or everything if a rescan is due,
+     * and returns the number of messages sent.
+     */
+    public synchronized int relayPending() {
+        long afterId = relayedUpTo;
+        long now = System.nanoTime();
+        if (now - nextRescan >= 0) {
+            afterId = 0;
+            nextRescan = now + rescanIntervalNanos;
+        }
+
+        int relayed = 0;
+        while (true) {
+            List<OutboxMessage> page = outboxStore.fetchAfter(afterId, batchSize);
+            if (page.isEmpty()) {
+                return relayed;
+            }
+            List<Long> sent = send(page);
+            outboxStore.delete(sent);
+            relayed += sent.size();
+            if (sent.size() < page.size()) {
+                // Resume at the first message not acknowledged; everything before it is deleted
+                relayedUpTo = sent.isEmpty() ? afterId : sent.get(sent.size() - 1);
+                return relayed;
+            }
+            afterId = page.get(page.size() - 1).id();
+            relayedUpTo = Math.max(relayedUpTo, afterId);
+            if (page.size() < batchSize) {
+                return relayed;
+            }
+        }
+    }
+
+    /**
+     * Sends the page and returns the ids of its longest acknowledged prefix.
+     */
+    private List<Long> send(List<OutboxMessage> page) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(page.size());
+        for (OutboxMessage message : page) {
+            CompletableFuture<Void> future =
+                    sender.publishEncoded(message.topic(), message.key(), message.eventType(), message.payload());
+            futures.add(future);
+            if (future.isCompletedExceptionally()) {
+                break;
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Outbox relay send failed, retrying on next poll: {}", e.getMessage());
+        }
+
+        List<Long> sent = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<?> future = futures.get(i);
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                break;
+            }
+            sent.add(page.get(i).id());
+        }
+        return sent;
+    }
+
+    private void poll() {
+        try {
+            int relayed = relayPending();
+            if (relayed > 0) {
+                log.debug("Relayed {} outbox messages", relayed);
+            }
+        } catch (Exception e) {
+            log.error("Outbox relay poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(sendTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+}
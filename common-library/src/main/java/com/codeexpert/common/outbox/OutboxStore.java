@@ -0,0 +1,80 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.jdbc.BinaryColumnType;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC access to the {@code OUTBOX} table.
+ * <p>
+ * Rows are only ever appended, read in id order and deleted once relayed, so reads page by key
+ * ({@code id > ?}) instead of by offset, and deletes remove a whole page in one statement.
+ */
+@Component
+public class OutboxStore {
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS OUTBOX ("
+            + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+            + "topic VARCHAR(255) NOT NULL, "
+            + "message_key VARCHAR(255), "
+            + "event_type VARCHAR(255) NOT NULL, "
+            + "payload %s NOT NULL)";
+    private static final String INSERT_SQL =
+            "INSERT INTO OUTBOX (topic, message_key, event_type, payload) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_PAGE_SQL =
+            "SELECT id, topic, message_key, event_type, payload FROM OUTBOX WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OutboxStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_SQL.formatted(BinaryColumnType.of(jdbcTemplate)));
+    }
+
+    /**
+     * Appends the messages in the caller's transaction, if there is one.
+     */
+    public void append(List<OutboxMessage> messages) {
+        if (messages.size() == 1) {
+            OutboxMessage message = messages.get(0);
+            jdbcTemplate.update(INSERT_SQL, message.topic(), message.key(), message.eventType(), message.payload());
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setString(1, message.topic());
+            ps.setString(2, message.key());
+            ps.setString(3, message.eventType());
+            ps.setBytes(4, message.payload());
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} messages with an id greater than {@code afterId}, oldest first.
+     */
+    public List<OutboxMessage> fetchAfter(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_PAGE_SQL, (rs, rowNum) -> new OutboxMessage(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getBytes(5)),
+                afterId, limit);
+    }
+
+    /**
+     * Deletes the given messages in a single statement.
+     */
+    public int delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM OUTBOX WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+}
@@ -1,21 +1,191 @@
 package com.codeexpert.common.publisher;
 
 import com.codeexpert.common.event.DomainEvent; // Changed import
+import com.codeexpert.common.listener.EventSerializer;
+import com.codeexpert.common.listener.EventTypeHeader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Publishes events through the {@link KafkaTemplate}.
+ * <p>
+ * Sends are pipelined: {@link #publishAsync} returns as soon as the record is handed to the
+ * producer and its future completes on the broker acknowledgement. At most
+ * {@code messaging.publisher.max-in-flight-per-topic} sends per topic may be unacknowledged; further
+ * publishers block until one completes, so a slow topic pushes back on its callers instead of
+ * filling the producer buffer. A publisher still blocked after
+ * {@code messaging.publisher.in-flight-timeout-ms} gets a future failed with a
+ * {@link TimeoutException} and nothing is sent. The time from send to acknowledgement is recorded per topic and
+ * outcome as {@code messaging.publish.ack}.
+ */
 @Log4j2
 @Service
 public class KafkaMessagePublisher implements MessagePublisher { // Changed class name and implements MessagePublisher
 
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${messaging.publisher.max-in-flight-per-topic:1024}")
+    private int maxInFlightPerTopic = 1024;
+
+    @Value("${messaging.publisher.in-flight-timeout-ms:30000}")
+    private long inFlightTimeoutMillis = 30000;
+
+    private final Map<String, EventSerializer> serializers = new ConcurrentHashMap<>();
+    private final Map<String, TopicSends> topicSends = new ConcurrentHashMap<>();
+
+    public KafkaMessagePublisher() {
+    }
+
+    /**
+     * For use outside a Spring context, without metrics and with the default limits.
+     */
+    public KafkaMessagePublisher(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Fire-and-forget publish; a failed send is logged once the broker reports it.
+     */
     @Override
     public <T extends DomainEvent> void publish(String topic, String key, T message) { // Changed T extends BaseCommand to T extends DomainEvent, and command to message
+        publishAsync(topic, key, message);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAsync(String topic, String key, T message) {
         log.info("→ Publishing to Kafka topic: {}, key: {}", topic, key);
-        kafkaTemplate.send(topic, key, message);
+        EventSerializer serializer = serializers.get(topic);
+        return send(topic, key, message.getClass().getSimpleName(),
+                () -> serializer != null ? serializer.toBytes(message) : message);
+    }
+
+    /**
+     * Sends a value encoded beforehand, such as an outbox message, under the same in-flight limit
+     * and acknowledgement timers as {@link #publishAsync}. The template's value serializer must
+     * pass {@code byte[]} through.
+     */
+    public CompletableFuture<Void> publishEncoded(String topic, String key, String eventType, byte[] payload) {
+        return send(topic, key, eventType, () -> payload);
+    }
+
+    private CompletableFuture<Void> send(String topic, String key, String eventType, Supplier<Object> value) {
+        TopicSends sends = topicSends.computeIfAbsent(topic, TopicSends::new);
+        try {
+            if (!sends.inFlight.tryAcquire(inFlightTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.error("Failed to publish {} to topic {}, key {}: {} sends unacknowledged for {} ms",
+                        eventType, topic, key, maxInFlightPerTopic, inFlightTimeoutMillis);
+                return CompletableFuture.failedFuture(new TimeoutException("Topic " + topic + " still has "
+                        + maxInFlightPerTopic + " unacknowledged sends after " + inFlightTimeoutMillis + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return kafkaTemplate.send(new ProducerRecord<>(topic, null, key, value.get(),
+                            eventTypeHeaders(eventType)))
+                    .whenComplete((result, error) -> {
+                        sends.completed(start, error);
+                        if (error != null) {
+                            log.error("Failed to publish {} to topic {}, key {}: {}",
+                                    eventType, topic, key, error.getMessage());
+                        }
+                    })
+                    .thenApply(result -> null);
+        } catch (RuntimeException e) {
+            sends.completed(start, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Encodes events published to the topic with the given serializer instead of the template's
+     * value serializer, which must pass {@code byte[]} values through as
+     * {@link com.codeexpert.common.listener.EventKafkaSerializer} does. Consumers of the topic must
+     * register with the same serializer.
+     */
+    public void useSerializer(String topic, EventSerializer serializer) {
+        serializers.put(topic, serializer);
+    }
+
+    /**
+     * Lets consumers route or skip the record without deserializing its value. Types that are not
+     * registered get no header and are decided after decoding.
+     */
+    private static List<Header> eventTypeHeaders(String eventType) {
+        Header header = EventTypeHeader.forType(eventType);
+        return header != null ? List.of(header) : List.of();
+    }
+
+    /**
+     * In-flight limit and acknowledgement timers of one topic.
+     */
+    private final class TopicSends {
+
+        private final Semaphore inFlight = new Semaphore(maxInFlightPerTopic);
+        private final Timer acked;
+        private final Timer failed;
+
+        private TopicSends(String topic) {
+            if (meterRegistry != null) {
+                acked = ackTimer(topic, "success");
+                failed = ackTimer(topic, "failure");
+                Gauge.builder("messaging.publish.in-flight", inFlight,
+                                semaphore -> maxInFlightPerTopic - semaphore.availablePermits())
+                        .description("Sends awaiting a broker acknowledgement")
+                        .tag("topic", topic)
+                        .register(meterRegistry);
+            } else {
+                acked = null;
+                failed = null;
+            }
+        }
+
+        private void completed(long start, Throwable error) {
+            inFlight.release();
+            Timer timer = error == null ? acked : failed;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer ackTimer(String topic, String outcome) {
+            return Timer.builder("messaging.publish.ack")
+                    .description("Time from send to broker acknowledgement")
+                    .tag("topic", topic)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry);
+        }
     }
 }
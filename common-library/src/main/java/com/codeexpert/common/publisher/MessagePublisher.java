@@ -2,6 +2,40 @@ package com.codeexpert.common.publisher;
 
 import com.codeexpert.common.event.DomainEvent; // Changed import
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 public interface MessagePublisher { // Changed interface name
     <T extends DomainEvent> void publish(String topic, String key, T message); // Changed T extends BaseCommand to T extends DomainEvent, and command to message
+
+    /**
+     * Publishes the message and returns a future that completes once the transport has accepted it,
+     * or completes exceptionally if it could not be delivered.
+     * <p>
+     * The default publishes synchronously; transports with their own acknowledgements override it.
+     */
+    default <T extends DomainEvent> CompletableFuture<Void> publishAsync(String topic, String key, T message) {
+        try {
+            publish(topic, key, message);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes every message to the topic, keyed by {@code keyMapper}, without waiting for one
+     * send to be acknowledged before the next. The returned future completes when all have been
+     * accepted and fails if any of them failed.
+     */
+    default <T extends DomainEvent> CompletableFuture<Void> publishAll(
+            String topic, Collection<? extends T> messages, Function<? super T, String> keyMapper) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+        int i = 0;
+        for (T message : messages) {
+            futures[i++] = publishAsync(topic, keyMapper.apply(message), message);
+        }
+        return CompletableFuture.allOf(futures);
+    }
 }
@@ -0,0 +1,66 @@
+package com.codeexpert.common.event;
+
+import com.codeexpert.common.command.BaseCommand;
+import com.codeexpert.common.command.CreateShipmentCommand;
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.command.ReleaseInventoryCommand;
+import com.codeexpert.common.command.ReserveInventoryCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DomainEventTypesTest {
+
+    @Test
+    void indexesEveryConcreteCommandAndEventByName() {
+        List<Class<? extends DomainEvent>> types = new ArrayList<>();
+        for (int id = 0; id < DomainEventTypes.count(); id++) {
+            types.add(DomainEventTypes.type(id));
+        }
+
+        assertThat(types).containsExactly(
+                CreateShipmentCommand.class,
+                InventoryReleasedEvent.class,
+                InventoryReservedEvent.class,
+                PaymentProcessedEvent.class,
+                PaymentRefundedEvent.class,
+                ProcessPaymentCommand.class,
+                RefundPaymentCommand.class,
+                ReleaseInventoryCommand.class,
+                ReserveInventoryCommand.class,
+                ShipmentCreatedEvent.class);
+    }
+
+    @Test
+    void resolvesEachTypeFromItsClassAndItsName() {
+        for (int id = 0; id < DomainEventTypes.count(); id++) {
+            Class<? extends DomainEvent> type = DomainEventTypes.type(id);
+            assertThat(DomainEventTypes.name(id)).isEqualTo(type.getSimpleName());
+            assertThat(DomainEventTypes.idOf(type)).isEqualTo(id);
+            assertThat(DomainEventTypes.idOfName(type.getSimpleName())).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void resolvesEachTypeFromItsWireId() {
+        for (int id = 0; id < DomainEventTypes.count(); id++) {
+            assertThat(DomainEventTypes.wireId(id)).isEqualTo(DomainEventTypes.name(id).hashCode());
+            assertThat(DomainEventTypes.idOfWireId(DomainEventTypes.wireId(id))).isEqualTo(id);
+        }
+        assertThat(DomainEventTypes.idOfWireId("OrderCreatedEvent".hashCode())).isEqualTo(-1);
+    }
+
+    @Test
+    void leavesOutTheBaseClassesAndUnknownTypes() {
+        assertThat(DomainEventTypes.idOf(BaseCommand.class)).isEqualTo(-1);
+        assertThat(DomainEventTypes.idOf(BaseEvent.class)).isEqualTo(-1);
+        assertThat(DomainEventTypes.idOfName("BaseCommand")).isEqualTo(-1);
+        assertThat(DomainEventTypes.idOfName("BaseEvent")).isEqualTo(-1);
+        assertThat(DomainEventTypes.idOf(String.class)).isEqualTo(-1);
+        assertThat(DomainEventTypes.idOfName("OrderCreatedEvent")).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.codeexpert.common.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 10_000;
+
+    @Test
+    void neverMissesAValueAdded() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        IntStream.range(0, 2 * ENTRIES).forEach(i -> filter.add("order-" + i + "/ProcessPaymentCommand"));
+
+        assertThat(IntStream.range(0, 2 * ENTRIES))
+                .allMatch(i -> filter.mightContain("order-" + i + "/ProcessPaymentCommand"));
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateItWasSizedFor() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        IntStream.range(0, ENTRIES).forEach(i -> filter.add("order-" + i));
+
+        assertThat(falsePositiveRate(filter)).isLessThan(0.015);
+    }
+
+    @Test
+    void raisesTheFalsePositiveRateWhenOverfilled() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        IntStream.range(0, 4 * ENTRIES).forEach(i -> filter.add("order-" + i));
+
+        assertThat(falsePositiveRate(filter)).isGreaterThan(0.1);
+    }
+
+    @Test
+    void keepsEveryValueAddedConcurrently() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        List<CompletableFuture<Void>> adders = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int first = thread * ENTRIES;
+            adders.add(CompletableFuture.runAsync(() ->
+                    IntStream.range(first, first + ENTRIES).forEach(i -> filter.add("order-" + i))));
+        }
+        CompletableFuture.allOf(adders.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(IntStream.range(0, 4 * ENTRIES)).allMatch(i -> filter.mightContain("order-" + i));
+    }
+
+    /**
+     * Share of values never added that the filter still reports.
+     */
+    static double falsePositiveRate(BloomFilter filter) {
+        long hits = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unseen-" + i)).count();
+        return hits / 100_000.0;
+    }
+}
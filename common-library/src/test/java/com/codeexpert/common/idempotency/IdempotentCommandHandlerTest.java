@@ -0,0 +1,189 @@
+package com.codeexpert.common.idempotency;
+
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.MessagePublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IdempotentCommandHandlerTest {
+
+    private static final String TOPIC = "payment-events";
+    private static final Duration RETENTION = Duration.ofHours(3);
+
+    private final JdbcDataSource dataSource = dataSource();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ProcessedCommandStore store = new ProcessedCommandStore(jdbcTemplate);
+    private final MessagePublisher messagePublisher = mock(MessagePublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void createTable() {
+        store.createTableIfMissing();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void repliesToARedeliveryWithTheResultRecordedTheFirstTime() {
+        IdempotentCommandHandler handler = loadedHandler();
+
+        handler.handleOnce(command("order-1"), TOPIC, this::pay);
+        handler.handleOnce(command("order-1"), TOPIC, this::pay);
+
+        assertThat(calls).hasValue(1);
+        DomainEvent[] replies = published(2);
+        assertThat(replies[1]).isInstanceOf(PaymentProcessedEvent.class)
+                .usingRecursiveComparison().isEqualTo(replies[0]);
+        assertThat(meterRegistry.get("messaging.consume.duplicates").tag("command_type", "ProcessPaymentCommand")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void repliesWithTheRecordedResultAfterARestart() {
+        loadedHandler().handleOnce(command("order-1"), TOPIC, this::pay);
+
+        loadedHandler().handleOnce(command("order-1"), TOPIC, this::pay);
+
+        assertThat(calls).hasValue(1);
+        DomainEvent[] replies = published(2);
+        assertThat(replies[1]).usingRecursiveComparison().isEqualTo(replies[0]);
+    }
+
+    @Test
+    void looksUpTheTableUntilTheFilterIsLoaded() {
+        loadedHandler().handleOnce(command("order-1"), TOPIC, this::pay);
+
+        handler().handleOnce(command("order-1"), TOPIC, this::pay);
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void replaysTheResultOfAConcurrentDeliveryThatRecordedFirst() {
+        IdempotentCommandHandler handler = loadedHandler();
+        ProcessPaymentCommand command = command("order-1");
+
+        handler.handleOnce(command, TOPIC, racing -> {
+            loadedHandler().handleOnce(command, TOPIC, this::pay);
+            return PaymentProcessedEvent.builder().orderId("order-1").transactionId("loser").build();
+        });
+
+        DomainEvent[] replies = published(2);
+        assertThat(replies[1]).usingRecursiveComparison().isEqualTo(replies[0]);
+        assertThat(((PaymentProcessedEvent) replies[1]).getTransactionId()).isEqualTo("tx-1");
+    }
+
+    @Test
+    void recordsNothingWhenTheHandlerFails() {
+        IdempotentCommandHandler handler = loadedHandler();
+
+        assertThatThrownBy(() -> handler.handleOnce(command("order-1"), TOPIC, failing -> {
+            throw new IllegalStateException("card service down");
+        })).isInstanceOf(IllegalStateException.class);
+        handler.handleOnce(command("order-1"), TOPIC, this::pay);
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void recordsNothingWhenTheResultCannotBePublished() {
+        IdempotentCommandHandler handler = loadedHandler();
+        doThrow(new IllegalStateException("outbox full")).when(messagePublisher).publish(eq(TOPIC), any(), any());
+
+        assertThatThrownBy(() -> handler.handleOnce(command("order-1"), TOPIC, this::pay))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.find("order-1", "ProcessPaymentCommand")).isEmpty();
+    }
+
+    @Test
+    void forgetsCommandsProcessedBeforeTheRetentionPeriod() {
+        store.insert(record("order-1"), Instant.now().minus(RETENTION).minus(Duration.ofMinutes(1)));
+        store.insert(record("order-2"), Instant.now().minus(Duration.ofMinutes(1)));
+        IdempotentCommandHandler handler = loadedHandler();
+
+        handler.expire();
+        handler.handleOnce(command("order-1"), TOPIC, this::pay);
+        handler.handleOnce(command("order-2"), TOPIC, this::pay);
+
+        assertThat(calls).as("only order-1 handled again").hasValue(1);
+        assertThat(store.find("order-1", "ProcessPaymentCommand")).isPresent();
+    }
+
+    private IdempotentCommandHandler loadedHandler() {
+        IdempotentCommandHandler handler = handler();
+        handler.loadFilter();
+        return handler;
+    }
+
+    private IdempotentCommandHandler handler() {
+        IdempotentCommandHandler handler = new IdempotentCommandHandler(store, messagePublisher,
+                new DataSourceTransactionManager(dataSource), 100, 1000, 0.01, RETENTION.toMillis());
+        handler.setMeterRegistry(meterRegistry);
+        return handler;
+    }
+
+    private PaymentProcessedEvent pay(ProcessPaymentCommand command) {
+        calls.incrementAndGet();
+        return PaymentProcessedEvent.builder()
+                .orderId(command.getOrderId())
+                .correlationId(command.getCorrelationId())
+                .transactionId("tx-" + calls.get())
+                .status("SUCCESS")
+                .build();
+    }
+
+    private DomainEvent[] published(int count) {
+        ArgumentCaptor<DomainEvent> events = ArgumentCaptor.forClass(DomainEvent.class);
+        verify(messagePublisher, times(count)).publish(eq(TOPIC), eq("order-1"), events.capture());
+        return events.getAllValues().toArray(DomainEvent[]::new);
+    }
+
+    private static ProcessPaymentCommand command(String orderId) {
+        return ProcessPaymentCommand.builder()
+                .orderId(orderId)
+                .correlationId(orderId)
+                .amount(new BigDecimal("10.00"))
+                .build();
+    }
+
+    private static ProcessedCommand record(String orderId) {
+        PaymentProcessedEvent result = PaymentProcessedEvent.builder().orderId(orderId).transactionId("tx-0").build();
+        return new ProcessedCommand(orderId, "ProcessPaymentCommand", TOPIC, orderId, "PaymentProcessedEvent",
+                new JsonEventSerializer().toBytes(result));
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
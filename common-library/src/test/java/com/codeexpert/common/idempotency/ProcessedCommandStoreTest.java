@@ -0,0 +1,95 @@
+package com.codeexpert.common.idempotency;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessedCommandStoreTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource());
+    private final ProcessedCommandStore store = new ProcessedCommandStore(jdbcTemplate);
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void createTable() {
+        store.createTableIfMissing();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void findsARecordedCommandWithItsResult() {
+        store.insert(command("order-1"), now);
+
+        assertThat(store.find("order-1", "ProcessPaymentCommand")).get()
+                .usingRecursiveComparison().isEqualTo(command("order-1"));
+        assertThat(store.find("order-1", "RefundPaymentCommand")).isEmpty();
+    }
+
+    @Test
+    void rejectsACommandRecordedBefore() {
+        store.insert(command("order-1"), now);
+
+        assertThatThrownBy(() -> store.insert(command("order-1"), now)).isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void streamsOnlyTheKeysProcessedSinceTheGivenTime() {
+        store.insert(command("order-1"), now.minus(Duration.ofHours(2)));
+        store.insert(command("order-2"), now.minus(Duration.ofMinutes(30)));
+        List<String> keys = new ArrayList<>();
+
+        store.forEachKeySince(now.minus(Duration.ofHours(1)), (orderId, commandType, processedAt) ->
+                keys.add(orderId + '/' + commandType + '@' + processedAt));
+
+        assertThat(keys).containsExactly("order-2/ProcessPaymentCommand@" + now.minus(Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void purgesOnlyTheCommandsProcessedBeforeTheGivenTime() {
+        store.insert(command("order-1"), now.minus(Duration.ofHours(2)));
+        store.insert(command("order-2"), now);
+
+        assertThat(store.deleteProcessedBefore(now.minus(Duration.ofHours(1)))).isEqualTo(1);
+
+        assertThat(store.find("order-1", "ProcessPaymentCommand")).isEmpty();
+        assertThat(store.find("order-2", "ProcessPaymentCommand")).isPresent();
+    }
+
+    @Test
+    void createsTheTableOnlyOnce() {
+        store.insert(command("order-1"), now);
+
+        store.createTableIfMissing();
+
+        assertThat(store.find("order-1", "ProcessPaymentCommand")).isPresent();
+    }
+
+    private static ProcessedCommand command(String orderId) {
+        return new ProcessedCommand(orderId, "ProcessPaymentCommand", "payment-events", orderId,
+                "PaymentProcessedEvent", ("{\"orderId\":\"" + orderId + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
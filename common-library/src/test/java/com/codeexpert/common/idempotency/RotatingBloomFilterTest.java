@@ -0,0 +1,51 @@
+package com.codeexpert.common.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+    @Test
+    void remembersAValueUntilItIsRotatedOutOfEveryGeneration() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(3, 1000, 0.01);
+        filter.add("order-1");
+
+        filter.rotate();
+        filter.rotate();
+        assertThat(filter.mightContain("order-1")).isTrue();
+
+        filter.rotate();
+        assertThat(filter.mightContain("order-1")).isFalse();
+    }
+
+    @Test
+    void addsAValueToTheGenerationOfItsAge() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(3, 1000, 0.01);
+        filter.add("order-1", 1);
+        filter.add("order-2", 5);
+
+        filter.rotate();
+        assertThat(filter.mightContain("order-1")).isTrue();
+        assertThat(filter.mightContain("order-2")).as("older than the oldest generation").isFalse();
+
+        filter.rotate();
+        assertThat(filter.mightContain("order-1")).isFalse();
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateAcrossRotations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(4, 5000, 0.01);
+
+        for (int generation = 0; generation < 20; generation++) {
+            int first = generation * 5000;
+            IntStream.range(first, first + 5000).forEach(i -> filter.add("order-" + i));
+            filter.rotate();
+        }
+
+        long hits = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unseen-" + i)).count();
+        assertThat(hits / 100_000.0).isLessThan(0.015);
+    }
+}
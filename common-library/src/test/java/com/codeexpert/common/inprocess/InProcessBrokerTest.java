@@ -0,0 +1,117 @@
+package com.codeexpert.common.inprocess;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class InProcessBrokerTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final InProcessBroker broker = new InProcessBroker(4, 4);
+
+    @Test
+    void deliversEveryMessageToEveryGroupInOrderPerKey() {
+        Map<String, List<Integer>> first = new ConcurrentHashMap<>();
+        Map<String, List<Integer>> second = new ConcurrentHashMap<>();
+        broker.subscribe(TOPIC, "order-service", 16, byKey(first)).start();
+        broker.subscribe(TOPIC, "audit-service", 16, byKey(second)).start();
+
+        for (int i = 0; i < 1000; i++) {
+            broker.send(TOPIC, "order-" + i % 10, "PaymentProcessedEvent", i);
+        }
+
+        for (Map<String, List<Integer>> received : List.of(first, second)) {
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(received.values().stream()
+                    .mapToInt(List::size).sum()).isEqualTo(1000));
+            assertThat(received).hasSize(10);
+            received.values().forEach(sequence -> assertThat(sequence).isSorted());
+        }
+    }
+
+    @Test
+    void queuesMessagesUntilTheSubscriptionStarts() throws Exception {
+        List<InProcessMessage> received = new CopyOnWriteArrayList<>();
+        InProcessBroker.Subscription subscription =
+                broker.subscribe(TOPIC, "order-service", 16, received::addAll);
+
+        broker.send(TOPIC, "order-1", "PaymentProcessedEvent", "payload");
+        Thread.sleep(100);
+        assertThat(received).isEmpty();
+
+        subscription.start();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).singleElement()
+                .isEqualTo(new InProcessMessage(TOPIC, "order-1", "PaymentProcessedEvent", "payload")));
+    }
+
+    @Test
+    void dropsMessagesSentBeforeAnyGroupSubscribed() throws Exception {
+        broker.send(TOPIC, "order-1", "PaymentProcessedEvent", "payload");
+        List<InProcessMessage> received = new CopyOnWriteArrayList<>();
+        broker.subscribe(TOPIC, "order-service", 16, received::addAll).start();
+
+        Thread.sleep(100);
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void holdsBackMessagesWhileStoppedAndDeliversThemOnRestart() throws Exception {
+        List<InProcessMessage> received = new CopyOnWriteArrayList<>();
+        InProcessBroker.Subscription subscription = broker.subscribe(TOPIC, "order-service", 16, received::addAll);
+        subscription.start();
+        subscription.stop();
+
+        broker.send(TOPIC, "order-1", "PaymentProcessedEvent", "payload");
+        Thread.sleep(100);
+        assertThat(received).isEmpty();
+
+        subscription.start();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(1));
+    }
+
+    @Test
+    void handsOverAtMostTheMaximumBatchSizeAtATime() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        InProcessBroker.Subscription subscription =
+                broker.subscribe(TOPIC, "order-service", 3, batch -> batchSizes.add(batch.size()));
+        for (int i = 0; i < 10; i++) {
+            broker.send(TOPIC, "order-1", "PaymentProcessedEvent", i);
+        }
+
+        subscription.start();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10));
+        assertThat(batchSizes).containsExactly(3, 3, 3, 1);
+    }
+
+    @Test
+    void keepsDeliveringAfterAConsumerThrows() {
+        List<Object> received = new CopyOnWriteArrayList<>();
+        broker.subscribe(TOPIC, "order-service", 1, batch -> {
+            if (batch.get(0).payload().equals(0)) {
+                throw new IllegalStateException("listener failed");
+            }
+            received.add(batch.get(0).payload());
+        }).start();
+
+        broker.send(TOPIC, "order-1", "PaymentProcessedEvent", 0);
+        broker.send(TOPIC, "order-1", "PaymentProcessedEvent", 1);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).containsExactly(1));
+    }
+
+    private static Consumer<List<InProcessMessage>> byKey(Map<String, List<Integer>> received) {
+        return batch -> batch.forEach(message -> received
+                .computeIfAbsent(message.key(), key -> new CopyOnWriteArrayList<>())
+                .add((Integer) message.payload()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.codeexpert.common.jdbc;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryColumnTypeTest {
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+            "PostgreSQL, BYTEA",
+            "H2, VARBINARY",
+            "MySQL, LONGBLOB",
+            "Microsoft SQL Server, VARBINARY(MAX)",
+            "Oracle, BLOB",
+            "null, BLOB"})
+    void picksTheBinaryTypeOfTheDatabase(String product, String type) {
+        assertThat(BinaryColumnType.forProduct(product)).isEqualTo(type);
+    }
+}
@@ -0,0 +1,164 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.command.BaseCommand;
+import com.codeexpert.common.command.CreateShipmentCommand;
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.command.ReleaseInventoryCommand;
+import com.codeexpert.common.command.ReserveInventoryCommand;
+import com.codeexpert.common.event.BaseEvent;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.InventoryReleasedEvent;
+import com.codeexpert.common.event.InventoryReservedEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.codeexpert.common.event.ShipmentCreatedEvent;
+import com.codeexpert.common.model.OrderItem;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryEventSerializerTest {
+
+    private final BinaryEventSerializer serializer = new BinaryEventSerializer();
+
+    @ParameterizedTest
+    @MethodSource("populated")
+    void roundTripsEveryField(DomainEvent event) {
+        assertThat(serializer.fromBytes(serializer.toBytes(event))).isInstanceOf(event.getClass())
+                .usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @MethodSource("empty")
+    void roundTripsNullFields(DomainEvent event) {
+        assertThat(serializer.fromBytes(serializer.toBytes(event))).isInstanceOf(event.getClass())
+                .usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @MethodSource("populated")
+    void roundTripsThroughBase64(DomainEvent event) {
+        assertThat(serializer.fromString(serializer.toString(event)))
+                .usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @ParameterizedTest
+    @MethodSource("populated")
+    void rejectsEveryTruncationOfAnEvent(DomainEvent event) {
+        byte[] bytes = serializer.toBytes(event);
+
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThatThrownBy(() -> serializer.fromBytes(truncated)).as("first %d bytes", length)
+                    .isInstanceOf(SerializationException.class);
+        }
+    }
+
+    @Test
+    void rejectsAStringLongerThanTheBytesLeft() {
+        // Type 3 (RefundPaymentCommand) whose order id claims 100 bytes
+        assertThatThrownBy(() -> serializer.fromBytes(new byte[]{3, 101, 'a', 'b'}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Truncated binary event at offset 2");
+    }
+
+    @Test
+    void rejectsAnItemListLongerThanTheBytesLeft() {
+        // Type 1 (CreateShipmentCommand) with four null header fields and 100 items
+        assertThatThrownBy(() -> serializer.fromBytes(new byte[]{1, 0, 0, 0, 0, 101, 0}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Truncated binary event at offset 6");
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] bytes = serializer.toBytes(new PaymentRefundedEvent());
+
+        assertThatThrownBy(() -> serializer.fromBytes(Arrays.copyOf(bytes, bytes.length + 2)))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("2 trailing bytes after PaymentRefundedEvent");
+    }
+
+    @Test
+    void rejectsAnUnknownTypeId() {
+        assertThatThrownBy(() -> serializer.fromBytes(new byte[]{42}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Unknown binary type id 42");
+    }
+
+    @Test
+    void keepsTheScaleAndSignOfDecimals() {
+        ProcessPaymentCommand command = new ProcessPaymentCommand();
+        command.setAmount(new BigDecimal("-1234567890123456789.000"));
+
+        ProcessPaymentCommand decoded = (ProcessPaymentCommand) serializer.fromBytes(serializer.toBytes(command));
+
+        assertThat(decoded.getAmount()).isEqualTo(command.getAmount()).hasScaleOf(3);
+        command.setAmount(new BigDecimal("5E+3"));
+        assertThat(((ProcessPaymentCommand) serializer.fromBytes(serializer.toBytes(command))).getAmount())
+                .isEqualTo(command.getAmount());
+    }
+
+    static Stream<DomainEvent> populated() {
+        return Stream.of(
+                command(CreateShipmentCommand::new, c -> c.setItems(items())),
+                command(ProcessPaymentCommand::new, c -> {
+                    c.setCustomerId("customer-1");
+                    c.setAmount(new BigDecimal("99.95"));
+                }),
+                command(RefundPaymentCommand::new, c -> c.setPaymentTransactionId("tx-1")),
+                command(ReleaseInventoryCommand::new, c -> c.setReservationId("res-1")),
+                command(ReserveInventoryCommand::new, c -> c.setItems(items())),
+                event(InventoryReservedEvent::new, e -> e.setReservationId("res-1")),
+                event(ShipmentCreatedEvent::new, e -> e.setShipmentId("ship-1")),
+                event(InventoryReleasedEvent::new, e -> e.setReservationId("res-1")),
+                event(PaymentProcessedEvent::new, e -> e.setTransactionId("tx-1")),
+                event(PaymentRefundedEvent::new, e -> e.setTransactionId("tx-1")));
+    }
+
+    static Stream<DomainEvent> empty() {
+        Stream<Supplier<DomainEvent>> types = Stream.of(CreateShipmentCommand::new, ProcessPaymentCommand::new,
+                RefundPaymentCommand::new, ReleaseInventoryCommand::new, ReserveInventoryCommand::new,
+                InventoryReservedEvent::new, ShipmentCreatedEvent::new, InventoryReleasedEvent::new,
+                PaymentProcessedEvent::new, PaymentRefundedEvent::new);
+        return types.map(Supplier::get);
+    }
+
+    private static <T extends BaseCommand> T command(Supplier<T> type, Consumer<T> fields) {
+        T command = type.get();
+        command.setOrderId("order-1");
+        command.setCorrelationId("corr-é-1");
+        command.setStatus("PENDING");
+        command.setErrorMessage("none");
+        fields.accept(command);
+        return command;
+    }
+
+    private static <T extends BaseEvent> T event(Supplier<T> type, Consumer<T> fields) {
+        T event = type.get();
+        event.setOrderId("order-1");
+        event.setCorrelationId("corr-é-1");
+        event.setStatus("FAILED");
+        event.setErrorMessage("card declined");
+        fields.accept(event);
+        return event;
+    }
+
+    private static List<OrderItem> items() {
+        return List.of(new OrderItem("product-1", 2, new BigDecimal("10.50")),
+                new OrderItem("product-2", -1, null),
+                new OrderItem(null, 0, BigDecimal.ZERO));
+    }
+}
@@ -0,0 +1,136 @@
+package com.codeexpert.common.listener;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyScalerTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final ConcurrentMessageListenerContainer<?, ?> container = mock(ConcurrentMessageListenerContainer.class);
+
+    @Test
+    void growsInProportionToTheDrainTime() {
+        ConcurrencyScaler scaler = scaler(1, 8, 8);
+
+        assertThat(scaler.target(2, 60, 10)).as("6 s to drain").isEqualTo(3);
+        assertThat(scaler.target(2, 200, 10)).as("20 s to drain").isEqualTo(8);
+    }
+
+    @Test
+    void growsByAtLeastOneWhileTheBacklogIsTooLong() {
+        ConcurrencyScaler scaler = scaler(1, 8, 8);
+
+        assertThat(scaler.target(4, 51, 10)).isEqualTo(5);
+    }
+
+    @Test
+    void growsToTheLimitWhileNothingIsConsumed() {
+        ConcurrencyScaler scaler = scaler(1, 8, 8);
+
+        assertThat(scaler.target(1, 10, 0)).isEqualTo(8);
+    }
+
+    @Test
+    void growsNoFurtherThanTheMaximumOrThePartitionCount() {
+        assertThat(scaler(1, 4, 8).target(2, 1000, 10)).isEqualTo(4);
+        assertThat(scaler(1, 8, 3).target(2, 1000, 10)).isEqualTo(3);
+        assertThat(scaler(1, 8, 3).target(3, 1000, 10)).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotGrowWhileThePartitionCountIsUnknown() {
+        ConcurrencyScaler scaler = new ConcurrencyScaler(TOPIC, container, options(1, 8), () -> {
+            throw new IllegalStateException("no broker");
+        }, null);
+
+        assertThat(scaler.target(2, 1000, 10)).isEqualTo(2);
+    }
+
+    @Test
+    void shrinksByOneOnlyAfterSixQuietChecksInARow() {
+        ConcurrencyScaler scaler = scaler(1, 8, 8);
+
+        for (int check = 1; check < 6; check++) {
+            assertThat(scaler.target(3, 0, 10)).as("quiet check %d", check).isEqualTo(3);
+        }
+        assertThat(scaler.target(3, 0, 10)).isEqualTo(2);
+        assertThat(scaler.target(2, 0, 10)).as("counted again from the resize").isEqualTo(2);
+    }
+
+    @Test
+    void startsCountingQuietChecksAgainAfterABusierOne() {
+        ConcurrencyScaler scaler = scaler(1, 8, 8);
+        for (int check = 0; check < 5; check++) {
+            scaler.target(3, 0, 10);
+        }
+
+        assertThat(scaler.target(3, 20, 10)).as("2 s to drain").isEqualTo(3);
+        for (int check = 0; check < 5; check++) {
+            assertThat(scaler.target(3, 0, 10)).isEqualTo(3);
+        }
+        assertThat(scaler.target(3, 0, 10)).isEqualTo(2);
+    }
+
+    @Test
+    void neverShrinksBelowTheMinimum() {
+        ConcurrencyScaler scaler = scaler(2, 8, 8);
+
+        for (int check = 0; check < 12; check++) {
+            assertThat(scaler.target(2, 0, 10)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void resizesARunningContainerFromItsFetchMetricsThenCoolsDown() {
+        ConcurrencyScaler scaler = scaler(1, 8, 4);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getConcurrency()).thenReturn(1);
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        metrics.put(metricName("records-lag", Map.of("topic", TOPIC, "partition", "0")), metric(600));
+        metrics.put(metricName("records-lag", Map.of("topic", TOPIC, "partition", "1")), metric(400));
+        metrics.put(metricName("records-consumed-rate", Map.of("topic", TOPIC)), metric(10));
+        when(container.metrics()).thenAnswer(invocation -> Map.of("consumer-0", metrics));
+
+        scaler.check();
+        for (int check = 0; check < 3; check++) {
+            scaler.check();
+        }
+
+        InOrder resize = inOrder(container);
+        resize.verify(container).stop();
+        resize.verify(container).setConcurrency(4);
+        resize.verify(container).start();
+        verify(container).stop();
+    }
+
+    private ConcurrencyScaler scaler(int min, int max, int partitions) {
+        return new ConcurrencyScaler(TOPIC, container, options(min, max), () -> partitions, null);
+    }
+
+    private static ListenerOptions options(int min, int max) {
+        return ListenerOptions.builder().minConcurrency(min).maxConcurrency(max).build();
+    }
+
+    private static MetricName metricName(String name, Map<String, String> tags) {
+        return new MetricName(name, "consumer-fetch-manager-metrics", "", tags);
+    }
+
+    private static Metric metric(double value) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
@@ -0,0 +1,55 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.event.DomainEventTypes;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTypeHeaderTest {
+
+    private static final int PAYMENT_PROCESSED = DomainEventTypes.idOf(PaymentProcessedEvent.class);
+
+    @Test
+    void namesTheTypeByItsWireIdInFourBytes() {
+        Headers headers = new RecordHeaders().add(EventTypeHeader.forType("PaymentProcessedEvent"));
+
+        assertThat(headers.lastHeader(EventHeaders.EVENT_TYPE_ID).value())
+                .hasSize(4)
+                .isEqualTo(new byte[]{
+                        (byte) (DomainEventTypes.wireId(PAYMENT_PROCESSED) >>> 24),
+                        (byte) (DomainEventTypes.wireId(PAYMENT_PROCESSED) >>> 16),
+                        (byte) (DomainEventTypes.wireId(PAYMENT_PROCESSED) >>> 8),
+                        (byte) DomainEventTypes.wireId(PAYMENT_PROCESSED)});
+        assertThat(EventTypeHeader.typeOf(headers)).isEqualTo(PAYMENT_PROCESSED);
+    }
+
+    @Test
+    void givesEveryRecordOfATypeTheSameHeader() {
+        assertThat(EventTypeHeader.forType("PaymentProcessedEvent"))
+                .isSameAs(EventTypeHeader.forType("PaymentProcessedEvent"));
+        assertThat(EventTypeHeader.forType("OrderCreatedEvent")).isNull();
+    }
+
+    @Test
+    void readsTheTypeNameOfOlderRecords() {
+        Headers headers = new RecordHeaders().add(EventHeaders.EVENT_TYPE,
+                "PaymentProcessedEvent".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(EventTypeHeader.typeOf(headers)).isEqualTo(PAYMENT_PROCESSED);
+    }
+
+    @Test
+    void namesNoTypeWithoutAHeaderOrForAnIdOfAnotherBuild() {
+        assertThat(EventTypeHeader.typeOf(new RecordHeaders())).isEqualTo(-1);
+        assertThat(EventTypeHeader.typeOf(new RecordHeaders().add(EventHeaders.EVENT_TYPE_ID, new byte[]{0, 0, 0, 1})))
+                .isEqualTo(-1);
+        assertThat(EventTypeHeader.typeOf(new RecordHeaders().add(EventHeaders.EVENT_TYPE_ID, new byte[]{1})))
+                .isEqualTo(-1);
+    }
+}
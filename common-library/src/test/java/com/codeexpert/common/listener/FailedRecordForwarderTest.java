@@ -0,0 +1,148 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FailedRecordForwarderTest {
+
+    private static final String TOPIC = "payment-events";
+    private static final ListenerOptions OPTIONS = ListenerOptions.builder()
+            .retryDelays(List.of(Duration.ofSeconds(1), Duration.ofSeconds(10)))
+            .deadLetter(true)
+            .build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private FailedRecordForwarder forwarder;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        forwarder = new FailedRecordForwarder(TOPIC, OPTIONS, kafkaTemplate, meterRegistry);
+    }
+
+    @Test
+    void movesAFailedRecordToTheFirstTierDueAfterItsDelay() {
+        ConsumerRecord<String, byte[]> record = record(TOPIC);
+        record.headers().add(header(EventHeaders.EVENT_TYPE, "PaymentProcessedEvent"));
+        long before = System.currentTimeMillis();
+
+        forwarder.forward(record, "PaymentProcessedEvent", new IllegalStateException("down"), true);
+
+        ProducerRecord<String, byte[]> sent = sent();
+        assertThat(sent.topic()).isEqualTo("payment-events-retry-1");
+        assertThat(sent.key()).isEqualTo("order-1");
+        assertThat(sent.value()).isEqualTo(record.value());
+        assertThat(value(sent.headers(), EventHeaders.EVENT_TYPE)).isEqualTo("PaymentProcessedEvent");
+        assertThat(value(sent.headers(), EventHeaders.ORIGINAL_TOPIC)).isEqualTo(TOPIC);
+        assertThat(value(sent.headers(), EventHeaders.RETRY_ATTEMPT)).isEqualTo("1");
+        assertThat(Long.parseLong(value(sent.headers(), EventHeaders.RETRY_DUE_AT)))
+                .isBetween(before + 1000, System.currentTimeMillis() + 1000);
+        assertThat(meterRegistry.get("messaging.consume.retried").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void movesARetriedRecordToTheNextTierWithItsHeadersReplaced() {
+        ConsumerRecord<String, byte[]> record = record("payment-events-retry-1");
+        record.headers().add(header(EventHeaders.ORIGINAL_TOPIC, TOPIC));
+        record.headers().add(header(EventHeaders.RETRY_ATTEMPT, "1"));
+        record.headers().add(header(EventHeaders.RETRY_DUE_AT, "0"));
+
+        forwarder.forward(record, "PaymentProcessedEvent", new IllegalStateException("down"), true);
+
+        ProducerRecord<String, byte[]> sent = sent();
+        assertThat(sent.topic()).isEqualTo("payment-events-retry-2");
+        assertThat(sent.headers().headers(EventHeaders.RETRY_ATTEMPT)).singleElement()
+                .extracting(h -> new String(h.value(), StandardCharsets.UTF_8)).isEqualTo("2");
+        assertThat(sent.headers().headers(EventHeaders.ORIGINAL_TOPIC)).hasSize(1);
+        assertThat(sent.headers().headers(EventHeaders.RETRY_DUE_AT)).hasSize(1);
+    }
+
+    @Test
+    void deadLettersARecordThatFailedEveryTier() {
+        ConsumerRecord<String, byte[]> record = record("payment-events-retry-2");
+        record.headers().add(header(EventHeaders.RETRY_ATTEMPT, "2"));
+
+        forwarder.forward(record, "PaymentProcessedEvent", new IllegalStateException("down"), true);
+
+        ProducerRecord<String, byte[]> sent = sent();
+        assertThat(sent.topic()).isEqualTo("payment-events-dlt");
+        assertThat(value(sent.headers(), EventHeaders.RETRY_ATTEMPT)).isEqualTo("2");
+        assertThat(value(sent.headers(), EventHeaders.EXCEPTION))
+                .isEqualTo("java.lang.IllegalStateException: down");
+        assertThat(sent.headers().lastHeader(EventHeaders.RETRY_DUE_AT)).isNull();
+        assertThat(meterRegistry.get("messaging.consume.dead-lettered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void deadLettersAnUndecodableRecordWithoutRetrying() {
+        forwarder.forward(record(TOPIC), "unknown", new IllegalArgumentException("garbage"), false);
+
+        assertThat(sent().topic()).isEqualTo("payment-events-dlt");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throwsWhenTheRecordCannotBeForwarded() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")));
+
+        assertThatThrownBy(() -> forwarder.forward(record(TOPIC), "PaymentProcessedEvent",
+                new IllegalStateException("down"), true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Could not forward record to payment-events-retry-1");
+        assertThat(meterRegistry.find("messaging.consume.retried").counter()).isNull();
+    }
+
+    @Test
+    void onlyLogsWithoutAProducer() {
+        FailedRecordForwarder logging = new FailedRecordForwarder(TOPIC, OPTIONS, null, meterRegistry);
+
+        logging.forward(record(TOPIC), "PaymentProcessedEvent", new IllegalStateException("down"), true);
+
+        assertThat(logging.tiers()).isZero();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, byte[]> sent() {
+        ArgumentCaptor<ProducerRecord<String, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        return sent.getValue();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 7, "order-1", "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RecordHeader header(String key, String value) {
+        return new RecordHeader(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String value(Headers headers, String key) {
+        return new String(headers.lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+}
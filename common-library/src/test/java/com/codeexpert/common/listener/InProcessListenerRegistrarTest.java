@@ -0,0 +1,146 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.codeexpert.common.inprocess.InProcessBroker;
+import com.codeexpert.common.inprocess.InProcessMessagePublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class InProcessListenerRegistrarTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final InProcessBroker broker = new InProcessBroker(4, 4);
+    private final InProcessListenerRegistrar registrar = new InProcessListenerRegistrar(broker);
+
+    @AfterEach
+    void tearDown() {
+        registrar.stop();
+    }
+
+    @Test
+    void routesEventsByTypeAndDropsThoseNobodyListensFor() {
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", received::add, PaymentProcessedEvent.class);
+        registrar.start();
+
+        InProcessMessagePublisher publisher = new InProcessMessagePublisher(broker, true);
+        publisher.publish(TOPIC, "order-1", PaymentRefundedEvent.builder().orderId("order-1").build());
+        publisher.publish(TOPIC, "order-1", payment("order-1"));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).singleElement()
+                .isInstanceOf(PaymentProcessedEvent.class));
+    }
+
+    @Test
+    void deliversToListenersRegisteredBeforeStartOnceStarted() throws Exception {
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", received::add);
+
+        new InProcessMessagePublisher(broker, true).publish(TOPIC, "order-1", payment("order-1"));
+        Thread.sleep(100);
+        assertThat(received).isEmpty();
+
+        registrar.start();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(1));
+    }
+
+    @Test
+    void givesEveryGroupAnInstanceOfItsOwnWhenSerializing() {
+        List<DomainEvent> first = new CopyOnWriteArrayList<>();
+        List<DomainEvent> second = new CopyOnWriteArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", first::add);
+        registrar.registerListener(TOPIC, "audit-service", second::add);
+        registrar.start();
+        PaymentProcessedEvent published = payment("order-1");
+
+        new InProcessMessagePublisher(broker, true).publish(TOPIC, "order-1", published);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.size() == 1 && second.size() == 1);
+        assertThat(first.get(0)).isEqualTo(published).isNotSameAs(published).isNotSameAs(second.get(0));
+        assertThat(second.get(0)).isEqualTo(published);
+    }
+
+    @Test
+    void handsEveryGroupThePublishedInstanceWithoutSerializing() {
+        List<DomainEvent> first = new CopyOnWriteArrayList<>();
+        List<DomainEvent> second = new CopyOnWriteArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", first::add);
+        registrar.registerListener(TOPIC, "audit-service", second::add);
+        registrar.start();
+        PaymentProcessedEvent published = payment("order-1");
+
+        new InProcessMessagePublisher(broker, false).publish(TOPIC, "order-1", published);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.size() == 1 && second.size() == 1);
+        assertThat(first.get(0)).isSameAs(published);
+        assertThat(second.get(0)).isSameAs(published);
+    }
+
+    @Test
+    void handsBatchListenersAtMostTheMaximumBatchSize() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        registrar.registerBatchListener(TOPIC, "order-service", events -> batchSizes.add(events.size()),
+                ListenerOptions.builder().executionMode(ExecutionMode.BATCH).maxBatchSize(3).build());
+        InProcessMessagePublisher publisher = new InProcessMessagePublisher(broker, true);
+        for (int i = 0; i < 10; i++) {
+            publisher.publish(TOPIC, "order-1", payment("order-1"));
+        }
+
+        registrar.start();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10));
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(3));
+    }
+
+    @Test
+    void rejectsASecondExecutionModeForTheSameGroupAndTopic() {
+        registrar.registerListener(TOPIC, "order-service", event -> { }, PaymentProcessedEvent.class);
+
+        assertThatThrownBy(() -> registrar.registerListener(TOPIC, "order-service", event -> { },
+                ListenerOptions.builder().executionMode(ExecutionMode.KEY_ORDERED).build(),
+                PaymentRefundedEvent.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("SERIAL");
+        assertThatThrownBy(() -> registrar.registerBatchListener(TOPIC, "order-service", events -> { }))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void keepsDeliveringAfterAListenerFails() {
+        List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", event -> {
+            if ("order-1".equals(((PaymentProcessedEvent) event).getOrderId())) {
+                throw new IllegalStateException("listener failed");
+            }
+            received.add(event);
+        });
+        registrar.start();
+
+        InProcessMessagePublisher publisher = new InProcessMessagePublisher(broker, true);
+        publisher.publish(TOPIC, "order-1", payment("order-1"));
+        publisher.publish(TOPIC, "order-1", payment("order-2"));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).singleElement()
+                .isEqualTo(payment("order-2")));
+    }
+
+    private static PaymentProcessedEvent payment(String orderId) {
+        return PaymentProcessedEvent.builder()
+                .orderId(orderId)
+                .transactionId("tx-" + orderId)
+                .status("SUCCESS")
+                .build();
+    }
+}
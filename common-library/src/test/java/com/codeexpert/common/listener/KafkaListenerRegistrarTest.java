@@ -0,0 +1,298 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.constant.KafkaTopics;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchConsumerAwareMessageListener;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class KafkaListenerRegistrarTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final Map<String, ConcurrentMessageListenerContainer<String, Object>> containers = new HashMap<>();
+    private final JsonEventSerializer serializer = new JsonEventSerializer();
+    private final List<ProducerRecord<String, byte[]>> forwarded = new CopyOnWriteArrayList<>();
+    private volatile boolean forwardsFail;
+    private KafkaListenerRegistrar registrar;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                mock(ConcurrentKafkaListenerContainerFactory.class);
+        when(factory.createContainer(anyString())).thenAnswer(invocation -> {
+            String topic = invocation.getArgument(0);
+            ConcurrentMessageListenerContainer<String, Object> container = mock(ConcurrentMessageListenerContainer.class);
+            when(container.getContainerProperties()).thenReturn(new ContainerProperties(topic));
+            containers.put(topic, container);
+            return container;
+        });
+        registrar = new KafkaListenerRegistrar(factory, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrar.stop();
+    }
+
+    @Test
+    void keyOrderedListenerHandlesRecordsAgainAfterStopAndStart() throws Exception {
+        CountDownLatch beforeStop = new CountDownLatch(1);
+        CountDownLatch afterRestart = new CountDownLatch(2);
+        registrar.registerListener(TOPIC, "order-service", event -> {
+            beforeStop.countDown();
+            afterRestart.countDown();
+        }, ListenerOptions.builder().executionMode(ExecutionMode.KEY_ORDERED).build());
+
+        registrar.start();
+        deliver(record(0));
+        assertThat(beforeStop.await(5, TimeUnit.SECONDS)).isTrue();
+
+        registrar.stop();
+        registrar.start();
+        deliver(record(1));
+
+        assertThat(afterRestart.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(containers.get(TOPIC), times(2)).start();
+        verify(containers.get(TOPIC)).stop();
+    }
+
+    @Test
+    void batchModeHandsEachRecordOfAPollToTheListenerOfItsType() {
+        List<String> payments = new ArrayList<>();
+        List<String> refunds = new ArrayList<>();
+        ListenerOptions batch = ListenerOptions.builder().executionMode(ExecutionMode.BATCH).build();
+        registrar.registerListener(TOPIC, "order-service",
+                event -> payments.add(((PaymentProcessedEvent) event).getTransactionId()), batch,
+                PaymentProcessedEvent.class);
+        registrar.registerListener(TOPIC, "order-service",
+                event -> refunds.add(((PaymentRefundedEvent) event).getTransactionId()), batch,
+                PaymentRefundedEvent.class);
+
+        batchListener().onMessage(List.of(
+                record(0, PaymentProcessedEvent.builder().orderId("a").transactionId("tx-a").build()),
+                record(1, PaymentRefundedEvent.builder().orderId("b").transactionId("tx-b").build()),
+                record(2, PaymentProcessedEvent.builder().orderId("c").transactionId("tx-c").build())));
+
+        assertThat(payments).containsExactly("tx-a", "tx-c");
+        assertThat(refunds).containsExactly("tx-b");
+    }
+
+    @Test
+    void skipsARecordWhoseTypeIdNobodyListensForWithoutDecodingIt() {
+        forwardFailedRecords();
+        List<DomainEvent> handled = new ArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", handled::add, PaymentProcessedEvent.class);
+        ConsumerRecord<String, byte[]> refund = new ConsumerRecord<>(TOPIC, 0, 0, "order-1", new byte[]{1, 2, 3});
+        refund.headers().add(EventTypeHeader.forType("PaymentRefundedEvent"));
+        ConsumerRecord<String, byte[]> payment = record(1);
+        payment.headers().add(EventTypeHeader.forType("PaymentProcessedEvent"));
+
+        messageListener().onMessage(refund);
+        messageListener().onMessage(payment);
+
+        assertThat(handled).singleElement().isInstanceOf(PaymentProcessedEvent.class);
+        assertThat(forwarded).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchListenerGetsThePollInOneCallAndItsOffsetsAreCommittedOnce() {
+        List<List<DomainEvent>> batches = new ArrayList<>();
+        registrar.registerBatchListener(TOPIC, "order-service", batches::add,
+                ListenerOptions.builder().executionMode(ExecutionMode.BATCH).commitBatchSize(3).build());
+        Consumer<String, byte[]> consumer = mock(Consumer.class);
+
+        ((BatchConsumerAwareMessageListener<String, byte[]>) containers.get(TOPIC).getContainerProperties()
+                .getMessageListener()).onMessage(List.of(record(0), record(1), record(2)), consumer);
+
+        assertThat(batches).singleElement().asList().hasSize(3);
+        verify(consumer).commitSync(Map.of(new TopicPartition(TOPIC, 0), new OffsetAndMetadata(3)));
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    void failedRecordGoesToTheFirstRetryTierWhichHandlesItOnceDue() {
+        forwardFailedRecords();
+        List<String> handled = new ArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", event -> {
+            handled.add(((PaymentProcessedEvent) event).getTransactionId());
+            if (handled.size() == 1) {
+                throw new IllegalStateException("handler down");
+            }
+        }, ListenerOptions.builder().retryDelays(List.of(Duration.ofSeconds(1), Duration.ofSeconds(10))).build());
+        assertThat(containers).containsOnlyKeys(TOPIC, "payment-events-retry-1", "payment-events-retry-2");
+
+        ConsumerRecord<String, byte[]> failed = record(0);
+        messageListener().onMessage(failed);
+        assertThat(forwarded).singleElement().extracting(ProducerRecord::topic).isEqualTo("payment-events-retry-1");
+
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        retryTier(1).onMessage(retried(failed, System.currentTimeMillis() - 1), acknowledgment);
+
+        assertThat(handled).hasSize(2);
+        verify(acknowledgment).acknowledge();
+        assertThat(forwarded).hasSize(1);
+    }
+
+    @Test
+    void retryTierPausesForARecordNotYetDueInsteadOfHandlingIt() {
+        forwardFailedRecords();
+        List<DomainEvent> handled = new ArrayList<>();
+        registrar.registerListener(TOPIC, "order-service", handled::add,
+                ListenerOptions.builder().retryDelays(List.of(Duration.ofMinutes(1))).build());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        retryTier(1).onMessage(retried(record(0), System.currentTimeMillis() + 60_000), acknowledgment);
+
+        assertThat(handled).isEmpty();
+        verify(acknowledgment).nack(argThat(sleep -> sleep.compareTo(Duration.ofSeconds(50)) > 0
+                && sleep.compareTo(Duration.ofMinutes(1)) <= 0));
+        verifyNoMoreInteractions(acknowledgment);
+        assertThat(containers.get("payment-events-retry-1").getContainerProperties().getAckMode())
+                .isEqualTo(ContainerProperties.AckMode.MANUAL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keyOrderedRecordThatCannotBeForwardedHoldsBackTheCommittedOffset() {
+        forwardFailedRecords();
+        forwardsFail = true;
+        registrar.registerListener(TOPIC, "order-service", event -> {
+            if (((PaymentProcessedEvent) event).getOrderId().equals("failing")) {
+                throw new IllegalStateException("handler down");
+            }
+        }, ListenerOptions.builder()
+                .executionMode(ExecutionMode.KEY_ORDERED)
+                .executor(new ExecutorServiceAdapter(new SyncTaskExecutor()))
+                .retryDelays(List.of(Duration.ofSeconds(1)))
+                .commitBatchSize(1)
+                .build());
+        AcknowledgingConsumerAwareMessageListener<String, byte[]> listener =
+                (AcknowledgingConsumerAwareMessageListener<String, byte[]>) listener(TOPIC);
+        Consumer<String, byte[]> consumer = mock(Consumer.class);
+        ConsumerRecord<String, byte[]> failing =
+                record(0, PaymentProcessedEvent.builder().orderId("failing").build());
+
+        listener.onMessage(failing, mock(Acknowledgment.class), consumer);
+        listener.onMessage(record(1), mock(Acknowledgment.class), consumer);
+        verify(consumer, never()).commitSync(anyMap());
+
+        // Delivered again, e.g. after a rebalance, once the retry topic takes records
+        forwardsFail = false;
+        listener.onMessage(failing, mock(Acknowledgment.class), consumer);
+        listener.onMessage(record(1), mock(Acknowledgment.class), consumer);
+        verify(consumer).commitSync(Map.of(new TopicPartition(TOPIC, 0), new OffsetAndMetadata(2)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forwardFailedRecords() {
+        ProducerFactory<String, byte[]> producerFactory = mock(ProducerFactory.class);
+        Producer<String, byte[]> producer = mock(Producer.class);
+        when(producerFactory.copyWithConfigurationOverride(anyMap())).thenReturn(producerFactory);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        when(producer.send(any(), any())).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            Callback callback = invocation.getArgument(1);
+            if (forwardsFail) {
+                callback.onCompletion(null, new KafkaException("broker down"));
+            } else {
+                forwarded.add(record);
+                callback.onCompletion(new RecordMetadata(new TopicPartition(record.topic(), 0), 0, 0, 0, 0, 0), null);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        registrar.setProducerFactory(producerFactory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageListener<String, byte[]> messageListener() {
+        return (MessageListener<String, byte[]>) listener(TOPIC);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AcknowledgingMessageListener<String, byte[]> retryTier(int tier) {
+        return (AcknowledgingMessageListener<String, byte[]>) listener(KafkaTopics.retryTopic(TOPIC, tier));
+    }
+
+    private Object listener(String topic) {
+        return containers.get(topic).getContainerProperties().getMessageListener();
+    }
+
+    private static ConsumerRecord<String, byte[]> retried(ConsumerRecord<String, byte[]> record, long dueAt) {
+        ConsumerRecord<String, byte[]> retried =
+                new ConsumerRecord<>(KafkaTopics.retryTopic(TOPIC, 1), 0, 0, record.key(), record.value());
+        retried.headers().add(EventHeaders.RETRY_ATTEMPT, "1".getBytes(StandardCharsets.UTF_8));
+        retried.headers().add(EventHeaders.RETRY_DUE_AT, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        return retried;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchMessageListener<String, byte[]> batchListener() {
+        return (BatchMessageListener<String, byte[]>) containers.get(TOPIC).getContainerProperties()
+                .getMessageListener();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(ConsumerRecord<String, byte[]> record) {
+        ((AcknowledgingMessageListener<String, byte[]>) containers.get(TOPIC).getContainerProperties()
+                .getMessageListener()).onMessage(record, () -> { });
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset) {
+        return record(offset, PaymentProcessedEvent.builder().orderId("order-1").build());
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, DomainEvent event) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, "order-1", serializer.toBytes(event));
+    }
+}
@@ -0,0 +1,88 @@
+package com.codeexpert.common.listener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(pool);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void runsTasksOfAKeyInSubmissionOrder() {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 200; i++) {
+            int task = i;
+            last = executor.submit("a", () -> seen.add(task));
+        }
+
+        last.join();
+
+        assertThat(seen).containsExactlyElementsOf(IntStream.range(0, 200).boxed().toList());
+    }
+
+    @Test
+    void runsTasksOfDifferentKeysInParallel() throws Exception {
+        CountDownLatch bStarted = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+
+        CompletableFuture<Void> a = executor.submit("a", () -> overlapped.set(await(bStarted)));
+        CompletableFuture<Void> b = executor.submit("b", bStarted::countDown);
+
+        CompletableFuture.allOf(a, b).get(5, TimeUnit.SECONDS);
+        assertThat(overlapped).isTrue();
+    }
+
+    @Test
+    void failedTaskDoesNotStopTheTasksQueuedBehindIt() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Void> failed = executor.submit("a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.submit("a", () -> ran.set(true)).get(5, TimeUnit.SECONDS);
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(ran).isTrue();
+    }
+
+    @Test
+    void forgetsKeysOnceTheirTasksHaveRun() throws Exception {
+        executor.submit("a", () -> { }).get(5, TimeUnit.SECONDS);
+        executor.submit(null, () -> { }).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.activeKeys() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.activeKeys()).isZero();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.codeexpert.common.listener;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeyOrderedMessageListenerTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final JsonEventSerializer serializer = new JsonEventSerializer();
+    private final FailedRecordForwarder forwarder =
+            new FailedRecordForwarder(TOPIC, ListenerOptions.builder().build(), null, null);
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void handlesRecordsOfAKeyInOffsetOrderAndAcknowledgesEach() throws Exception {
+        Map<String, List<Long>> handled = new ConcurrentHashMap<>();
+        KeyOrderedMessageListener listener = listener(event -> {
+            PaymentProcessedEvent payment = (PaymentProcessedEvent) event;
+            handled.computeIfAbsent(payment.getOrderId(), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Long.parseLong(payment.getTransactionId()));
+        }, 8);
+        CountDownLatch acknowledged = new CountDownLatch(100);
+
+        for (long offset = 0; offset < 100; offset++) {
+            listener.onMessage(record(offset, "order-" + offset % 3), acknowledged::countDown);
+        }
+
+        assertThat(acknowledged.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).hasSize(3);
+        handled.values().forEach(offsets -> assertThat(offsets).isSorted());
+    }
+
+    @Test
+    void handlesDifferentKeysInParallel() throws Exception {
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        KeyOrderedMessageListener listener = listener(event -> {
+            if (((PaymentProcessedEvent) event).getOrderId().equals("first")) {
+                overlapped.set(await(secondStarted));
+            } else {
+                secondStarted.countDown();
+            }
+        }, 8);
+        CountDownLatch acknowledged = new CountDownLatch(2);
+
+        listener.onMessage(record(0, "first"), acknowledged::countDown);
+        listener.onMessage(record(1, "second"), acknowledged::countDown);
+
+        assertThat(acknowledged.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(overlapped).isTrue();
+    }
+
+    @Test
+    void acknowledgesFilteredRecordsWithoutHandlingThem() {
+        AtomicInteger handled = new AtomicInteger();
+        KeyOrderedMessageListener listener = new KeyOrderedMessageListener(TOPIC, event -> handled.incrementAndGet(),
+                serializer, record -> false, forwarder, new KeyOrderedExecutor(pool), 8);
+        AtomicInteger acknowledged = new AtomicInteger();
+
+        listener.onMessage(record(0, "a"), acknowledged::incrementAndGet);
+
+        assertThat(acknowledged).hasValue(1);
+        assertThat(handled).hasValue(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doesNotAcknowledgeARecordItCouldNotForward() throws Exception {
+        KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")));
+        FailedRecordForwarder failingForwarder = new FailedRecordForwarder(TOPIC,
+                ListenerOptions.builder().retryDelays(List.of(Duration.ofSeconds(1))).build(), kafkaTemplate, null);
+        KeyOrderedMessageListener listener = new KeyOrderedMessageListener(TOPIC, event -> {
+            if (((PaymentProcessedEvent) event).getTransactionId().equals("0")) {
+                throw new IllegalStateException("handler down");
+            }
+        }, serializer, record -> true, failingForwarder, new KeyOrderedExecutor(pool), 8);
+        AtomicInteger failedAcknowledged = new AtomicInteger();
+        CountDownLatch othersAcknowledged = new CountDownLatch(2);
+
+        listener.onMessage(record(0, "a"), failedAcknowledged::incrementAndGet);
+        listener.onMessage(record(1, "b"), othersAcknowledged::countDown);
+        listener.onMessage(record(2, "a"), othersAcknowledged::countDown);
+
+        assertThat(othersAcknowledged.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(kafkaTemplate).send(any(ProducerRecord.class));
+        assertThat(failedAcknowledged).hasValue(0);
+    }
+
+    @Test
+    void interruptWhileWaitingForASlotThrowsWithoutAcknowledging() {
+        CountDownLatch release = new CountDownLatch(1);
+        KeyOrderedMessageListener listener = listener(event -> await(release), 1);
+        AtomicInteger acknowledged = new AtomicInteger();
+        listener.onMessage(record(0, "a"), () -> { });
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> listener.onMessage(record(1, "b"), acknowledged::incrementAndGet))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(InterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+            release.countDown();
+        }
+        assertThat(acknowledged).hasValue(0);
+    }
+
+    private KeyOrderedMessageListener listener(DomainEventListener domainEventListener, int maxInFlight) {
+        return new KeyOrderedMessageListener(TOPIC, domainEventListener, serializer, record -> true, forwarder,
+                new KeyOrderedExecutor(pool), maxInFlight);
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, String key) {
+        DomainEvent event = PaymentProcessedEvent.builder()
+                .orderId(key)
+                .transactionId(String.valueOf(offset))
+                .build();
+        return new ConsumerRecord<>(TOPIC, 0, offset, key, serializer.toBytes(event));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
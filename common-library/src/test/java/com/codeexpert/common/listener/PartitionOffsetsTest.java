@@ -0,0 +1,92 @@
+package com.codeexpert.common.listener;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionOffsetsTest {
+
+    private final PartitionOffsets offsets = new PartitionOffsets(new TopicPartition("payment-events", 0));
+
+    @Test
+    void commitsOnlyTheCompletedPrefixWhenRecordsCompleteOutOfOrder() {
+        delivered(0, 1, 2);
+
+        offsets.complete(2);
+        assertThat(offsets.uncommitted()).isEqualTo(-1);
+        offsets.complete(0);
+        assertThat(offsets.uncommitted()).isEqualTo(1);
+        offsets.complete(1);
+        assertThat(offsets.uncommitted()).isEqualTo(3);
+    }
+
+    @Test
+    void offersNothingAgainOnceCommitted() {
+        delivered(0, 1);
+        offsets.complete(0);
+        offsets.committed(1);
+
+        assertThat(offsets.uncommitted()).isEqualTo(-1);
+        offsets.complete(1);
+        assertThat(offsets.uncommitted()).isEqualTo(2);
+    }
+
+    @Test
+    void discardedRecordHoldsTheCommitPointBelowItUntilItIsDeliveredAgain() {
+        delivered(0, 1, 2);
+        offsets.complete(0);
+        offsets.discard(1);
+        offsets.complete(2);
+        assertThat(offsets.uncommitted()).isEqualTo(1);
+
+        // The error handler seeks back to the failed record
+        delivered(1, 2);
+        assertThat(offsets.uncommitted()).isEqualTo(1);
+        offsets.complete(2);
+        assertThat(offsets.uncommitted()).isEqualTo(1);
+        offsets.complete(1);
+        assertThat(offsets.uncommitted()).isEqualTo(3);
+    }
+
+    @Test
+    void discardedBatchHoldsTheCommitPointAtItsFirstRecord() {
+        delivered(0, 1, 2);
+        offsets.discard(0);
+        offsets.discard(1);
+        offsets.discard(2);
+
+        assertThat(offsets.uncommitted()).isEqualTo(-1);
+    }
+
+    @Test
+    void movesPastADiscardedRecordOnlyOnceTheContainerDeliversALaterOne() {
+        delivered(0, 1);
+        offsets.discard(0);
+        offsets.complete(1);
+        assertThat(offsets.uncommitted()).isEqualTo(-1);
+
+        // The error handler gave up on 0 and the container moved on
+        delivered(2);
+        assertThat(offsets.uncommitted()).isEqualTo(2);
+        offsets.complete(2);
+        assertThat(offsets.uncommitted()).isEqualTo(3);
+    }
+
+    @Test
+    void ignoresCompletionsAfterTheRevoke() {
+        delivered(0, 1);
+        offsets.complete(0);
+
+        offsets.revoke();
+
+        assertThat(offsets.complete(1)).isFalse();
+        assertThat(offsets.uncommitted()).isEqualTo(1);
+    }
+
+    private void delivered(long... deliveredOffsets) {
+        for (long offset : deliveredOffsets) {
+            offsets.delivered(offset);
+        }
+    }
+}
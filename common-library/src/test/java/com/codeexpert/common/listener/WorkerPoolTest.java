@@ -0,0 +1,27 @@
+package com.codeexpert.common.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkerPoolTest {
+
+    @Test
+    void runsTasksAgainAfterARestart() throws Exception {
+        WorkerPool workers = new WorkerPool(2, Executors.defaultThreadFactory());
+        CompletableFuture.runAsync(() -> { }, workers).get(5, TimeUnit.SECONDS);
+
+        workers.stop();
+        assertThatThrownBy(() -> workers.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+
+        workers.start();
+        assertThat(CompletableFuture.supplyAsync(() -> "ran", workers).get(5, TimeUnit.SECONDS)).isEqualTo("ran");
+        workers.stop();
+    }
+}
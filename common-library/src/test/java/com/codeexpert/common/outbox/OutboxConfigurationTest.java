@@ -0,0 +1,105 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.MessagePublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxConfigurationTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final List<ProducerRecord<String, Object>> sent = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AnnotationConfigApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "outbox.relay.poll-interval-ms", 3_600_000)));
+        context.registerBean(JdbcTemplate.class, () -> new JdbcTemplate(dataSource));
+        context.registerBean(KafkaTemplate.class, () -> kafkaTemplate);
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.register(OutboxConfiguration.class);
+        context.refresh();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.getBean(JdbcTemplate.class).execute("SHUTDOWN");
+        context.close();
+    }
+
+    @Test
+    void servicesGetTheOutboxPublisher() {
+        assertThat(context.getBean(MessagePublisher.class)).isInstanceOf(OutboxMessagePublisher.class);
+    }
+
+    @Test
+    void relaysAnEventWrittenInACommittedTransactionThroughTheKafkaPublisher() {
+        transactionTemplate.executeWithoutResult(status ->
+                context.getBean(MessagePublisher.class).publish(TOPIC, "order-1", event("order-1")));
+        assertThat(sent).isEmpty();
+
+        assertThat(context.getBean(OutboxRelay.class).relayPending()).isEqualTo(1);
+
+        assertThat(sent).singleElement().satisfies(record -> {
+            assertThat(record.key()).isEqualTo("order-1");
+            assertThat(new JsonEventSerializer().fromBytes((byte[]) record.value()))
+                    .hasFieldOrPropertyWithValue("orderId", "order-1");
+        });
+        assertThat(meterRegistry.get("messaging.publish.ack").tag("topic", TOPIC).tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void neverRelaysAnEventWrittenInARolledBackTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            context.getBean(MessagePublisher.class).publish(TOPIC, "order-1", event("order-1"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(context.getBean(OutboxRelay.class).relayPending()).isZero();
+        assertThat(sent).isEmpty();
+    }
+
+    private static PaymentProcessedEvent event(String orderId) {
+        return PaymentProcessedEvent.builder().orderId(orderId).build();
+    }
+}
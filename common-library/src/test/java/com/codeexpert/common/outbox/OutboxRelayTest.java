@@ -0,0 +1,142 @@
+package com.codeexpert.common.outbox;
+
+import com.codeexpert.common.event.DomainEventTypes;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.listener.EventTypeHeader;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.publisher.KafkaMessagePublisher;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final String TOPIC = "payment-events";
+    private static final long NEVER = 3_600_000;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource());
+    private final OutboxStore store = new OutboxStore(jdbcTemplate);
+    private final OutboxMessagePublisher publisher = new OutboxMessagePublisher(store);
+    private final List<ProducerRecord<String, Object>> sent = new CopyOnWriteArrayList<>();
+    private final Set<String> failingKeys = new HashSet<>();
+    private KafkaMessagePublisher sender;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        store.createTableIfMissing();
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            if (failingKeys.contains(record.key())) {
+                return CompletableFuture.failedFuture(new KafkaException("broker down"));
+            }
+            sent.add(record);
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+        sender = new KafkaMessagePublisher(kafkaTemplate);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void sendsTheEncodedEventsInIdOrderAndDeletesThem() {
+        publish("a", "b", "c");
+
+        assertThat(relay(2, NEVER).relayPending()).isEqualTo(3);
+
+        assertThat(sent).extracting(ProducerRecord::key).containsExactly("a", "b", "c");
+        ProducerRecord<String, Object> first = sent.get(0);
+        assertThat(first.topic()).isEqualTo(TOPIC);
+        assertThat(EventTypeHeader.typeOf(first.headers()))
+                .isEqualTo(DomainEventTypes.idOf(PaymentProcessedEvent.class));
+        assertThat(new JsonEventSerializer().fromBytes((byte[]) first.value()))
+                .isInstanceOf(PaymentProcessedEvent.class)
+                .hasFieldOrPropertyWithValue("orderId", "a");
+        assertThat(store.fetchAfter(0, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsAFailedSendAndEverythingAfterItForTheNextPoll() {
+        OutboxRelay relay = relay(10, NEVER);
+        publish("a", "b", "c");
+        failingKeys.add("b");
+
+        assertThat(relay.relayPending()).isEqualTo(1);
+        assertThat(store.fetchAfter(0, 10)).extracting(OutboxMessage::key).containsExactly("b", "c");
+
+        failingKeys.clear();
+        assertThat(relay.relayPending()).isEqualTo(2);
+        assertThat(sent).extracting(ProducerRecord::key).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void resumesAfterTheLastMessageRelayed() {
+        OutboxRelay relay = relay(10, NEVER);
+        publish("a", "b");
+        relay.relayPending();
+
+        // Committed late with an id below the ones already relayed
+        insert(1, "late");
+        publish("c");
+
+        assertThat(relay.relayPending()).isEqualTo(1);
+        assertThat(sent).extracting(ProducerRecord::key).containsExactly("a", "b", "c");
+        assertThat(store.fetchAfter(0, 10)).extracting(OutboxMessage::key).containsExactly("late");
+    }
+
+    @Test
+    void picksUpAMessageCommittedBelowTheLastOneRelayedOnARescan() {
+        OutboxRelay relay = relay(10, 0);
+        publish("a", "b");
+        relay.relayPending();
+
+        insert(1, "late");
+
+        assertThat(relay.relayPending()).isEqualTo(1);
+        assertThat(sent).extracting(ProducerRecord::key).containsExactly("a", "b", "late");
+    }
+
+    private OutboxRelay relay(int batchSize, long rescanIntervalMillis) {
+        return new OutboxRelay(store, sender, batchSize, NEVER, 5000, rescanIntervalMillis);
+    }
+
+    private void publish(String... orderIds) {
+        for (String orderId : orderIds) {
+            publisher.publish(TOPIC, orderId, PaymentProcessedEvent.builder().orderId(orderId).build());
+        }
+    }
+
+    private void insert(long id, String orderId) {
+        byte[] payload = new JsonEventSerializer().toBytes(PaymentProcessedEvent.builder().orderId(orderId).build());
+        jdbcTemplate.update("INSERT INTO OUTBOX (id, topic, message_key, event_type, payload) VALUES (?, ?, ?, ?, ?)",
+                id, TOPIC, orderId, "PaymentProcessedEvent", payload);
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
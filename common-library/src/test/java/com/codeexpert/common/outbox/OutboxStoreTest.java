@@ -0,0 +1,98 @@
+package com.codeexpert.common.outbox;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxStoreTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource());
+    private final OutboxStore store = new OutboxStore(jdbcTemplate);
+
+    @BeforeEach
+    void createTable() {
+        store.createTableIfMissing();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void appendsSingleMessagesAndBatchesInIdOrder() {
+        store.append(List.of(message("a")));
+        store.append(List.of(message("b"), message("c")));
+
+        List<OutboxMessage> pending = store.fetchAfter(0, 10);
+
+        assertThat(pending).extracting(OutboxMessage::key).containsExactly("a", "b", "c");
+        assertThat(pending).extracting(OutboxMessage::id).isSorted().doesNotHaveDuplicates();
+        assertThat(pending.get(1).topic()).isEqualTo("payment-events");
+        assertThat(pending.get(1).eventType()).isEqualTo("PaymentProcessedEvent");
+        assertThat(pending.get(1).payload()).isEqualTo(payload("b"));
+    }
+
+    @Test
+    void pagesByIdAfterTheLastOneRead() {
+        store.append(List.of(message("a"), message("b"), message("c"), message("d"), message("e")));
+
+        List<OutboxMessage> first = store.fetchAfter(0, 2);
+        List<OutboxMessage> second = store.fetchAfter(first.get(1).id(), 2);
+        List<OutboxMessage> last = store.fetchAfter(second.get(1).id(), 2);
+
+        assertThat(first).extracting(OutboxMessage::key).containsExactly("a", "b");
+        assertThat(second).extracting(OutboxMessage::key).containsExactly("c", "d");
+        assertThat(last).extracting(OutboxMessage::key).containsExactly("e");
+        assertThat(store.fetchAfter(last.get(0).id(), 2)).isEmpty();
+    }
+
+    @Test
+    void deletesOnlyTheGivenMessages() {
+        store.append(List.of(message("a"), message("b"), message("c")));
+        List<OutboxMessage> pending = store.fetchAfter(0, 10);
+
+        assertThat(store.delete(List.of(pending.get(0).id(), pending.get(2).id()))).isEqualTo(2);
+        assertThat(store.delete(List.of())).isZero();
+
+        assertThat(store.fetchAfter(0, 10)).extracting(OutboxMessage::key).containsExactly("b");
+    }
+
+    @Test
+    void keepsTheRowsOfAnExistingTable() {
+        store.append(List.of(message("a")));
+
+        store.createTableIfMissing();
+
+        assertThat(store.fetchAfter(0, 10)).hasSize(1);
+    }
+
+    @Test
+    void storesThePayloadInTheDatabasesBinaryType() {
+        assertThat(jdbcTemplate.queryForObject("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'OUTBOX' AND COLUMN_NAME = 'PAYLOAD'", String.class))
+                .isEqualTo("BINARY VARYING");
+    }
+
+    private static OutboxMessage message(String key) {
+        return new OutboxMessage(0, "payment-events", key, "PaymentProcessedEvent", payload(key));
+    }
+
+    private static byte[] payload(String key) {
+        return ("{\"orderId\":\"" + key + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
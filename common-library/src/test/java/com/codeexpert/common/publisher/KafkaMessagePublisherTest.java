@@ -0,0 +1,150 @@
+package com.codeexpert.common.publisher;
+
+import com.codeexpert.common.constant.EventHeaders;
+import com.codeexpert.common.event.DomainEventTypes;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.listener.EventTypeHeader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KafkaMessagePublisherTest {
+
+    private static final String TOPIC = "payment-events";
+
+    private final List<ProducerRecord<String, Object>> records = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<SendResult<String, Object>>> sends = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private AnnotationConfigApplicationContext context;
+    private KafkaMessagePublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void holdsBackASendBeyondTheLimitUntilAnEarlierOneIsAcknowledged() throws Exception {
+        start(2, 5000);
+        publisher.publishAsync(TOPIC, "a", event());
+        publisher.publishAsync(TOPIC, "b", event());
+
+        CompletableFuture<Void> third = CompletableFuture.supplyAsync(() -> publisher.publishAsync(TOPIC, "c", event()))
+                .thenCompose(future -> future);
+        verify(kafkaTemplate, after(200).times(2)).send(anyRecord());
+
+        sends.get(0).complete(null);
+        verify(kafkaTemplate, timeout(5000).times(3)).send(anyRecord());
+        sends.get(2).complete(null);
+        third.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failsASendStillHeldBackAfterTheTimeoutWithoutSendingIt() {
+        start(1, 50);
+        publisher.publishAsync(TOPIC, "a", event());
+
+        CompletableFuture<Void> second = publisher.publishAsync(TOPIC, "b", event());
+
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        verify(kafkaTemplate, times(1)).send(anyRecord());
+    }
+
+    @Test
+    void limitsEachTopicOnItsOwn() {
+        start(1, 50);
+        publisher.publishAsync(TOPIC, "a", event());
+
+        assertThat(publisher.publishAsync("inventory-events", "a", event())).isNotCompletedExceptionally();
+        verify(kafkaTemplate, times(2)).send(anyRecord());
+    }
+
+    @Test
+    void sendsAnEncodedValueUnderTheSameLimitAsEvents() {
+        start(1, 50);
+        byte[] payload = {1, 2, 3};
+        publisher.publishEncoded(TOPIC, "a", "PaymentProcessedEvent", payload);
+
+        assertThat(publisher.publishAsync(TOPIC, "b", event())).isCompletedExceptionally();
+        assertThat(records).singleElement().satisfies(record -> {
+            assertThat(record.value()).isSameAs(payload);
+            assertThat(EventTypeHeader.typeOf(record.headers()))
+                    .isEqualTo(DomainEventTypes.idOf(PaymentProcessedEvent.class));
+            assertThat(record.headers().lastHeader(EventHeaders.EVENT_TYPE)).isNull();
+        });
+    }
+
+    @Test
+    void recordsInFlightSendsAndAcknowledgementsByOutcome() {
+        start(8, 5000);
+        publisher.publishAsync(TOPIC, "a", event());
+        publisher.publishAsync(TOPIC, "b", event());
+        assertThat(meterRegistry.get("messaging.publish.in-flight").tag("topic", TOPIC).gauge().value())
+                .isEqualTo(2);
+
+        sends.get(0).complete(null);
+        sends.get(1).completeExceptionally(new KafkaException("broker down"));
+
+        assertThat(meterRegistry.get("messaging.publish.in-flight").gauge().value()).isZero();
+        assertThat(meterRegistry.get("messaging.publish.ack").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("messaging.publish.ack").tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void start(int maxInFlight, long timeoutMillis) {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyRecord())).thenAnswer(invocation -> {
+            records.add(invocation.getArgument(0));
+            CompletableFuture<SendResult<String, Object>> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "messaging.publisher.max-in-flight-per-topic", maxInFlight,
+                "messaging.publisher.in-flight-timeout-ms", timeoutMillis)));
+        context.registerBean(KafkaTemplate.class, () -> kafkaTemplate);
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.register(KafkaMessagePublisher.class);
+        context.refresh();
+        publisher = context.getBean(KafkaMessagePublisher.class);
+    }
+
+    private static ProducerRecord<String, Object> anyRecord() {
+        return any();
+    }
+
+    private static PaymentProcessedEvent event() {
+        return PaymentProcessedEvent.builder().orderId("a").build();
+    }
+}
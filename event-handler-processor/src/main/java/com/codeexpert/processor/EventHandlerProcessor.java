@@ -0,0 +1,205 @@
+package com.codeexpert.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <Listener>Dispatcher} for every class with {@code @EventHandler} methods.
+ * <p>
+ * The dispatcher numbers the listener's event types densely and maps an event's class to its number
+ * once per class through a {@link ClassValue}, so dispatching an event is a cached class lookup and
+ * a {@code switch}. Handler methods are checked at build time: one parameter of a concrete
+ * {@code DomainEvent} type, not private or static, one per type, and one for every type the class
+ * lists in {@code @EventHandlers(consumes = ...)}.
+ */
+@SupportedAnnotationTypes({EventHandlerProcessor.EVENT_HANDLER, EventHandlerProcessor.EVENT_HANDLERS})
+public class EventHandlerProcessor extends AbstractProcessor {
+
+    static final String EVENT_HANDLER = "com.codeexpert.common.listener.EventHandler";
+    static final String EVENT_HANDLERS = "com.codeexpert.common.listener.EventHandlers";
+    private static final String DOMAIN_EVENT = "com.codeexpert.common.event.DomainEvent";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement domainEvent = processingEnv.getElementUtils().getTypeElement(DOMAIN_EVENT);
+        if (annotations.isEmpty() || domainEvent == null) {
+            return false;
+        }
+
+        Map<TypeElement, List<ExecutableElement>> handlersByListener = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    handlersByListener.computeIfAbsent((TypeElement) element.getEnclosingElement(),
+                            listener -> new ArrayList<>()).add((ExecutableElement) element);
+                } else if (element instanceof TypeElement listener) {
+                    handlersByListener.computeIfAbsent(listener, l -> new ArrayList<>());
+                }
+            }
+        }
+
+        handlersByListener.forEach((listener, methods) -> {
+            Map<TypeElement, ExecutableElement> handlers = validate(listener, methods, domainEvent);
+            if (handlers != null) {
+                write(listener, handlers);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Returns the handlers by event type, or {@code null} after reporting errors.
+     */
+    private Map<TypeElement, ExecutableElement> validate(
+            TypeElement listener, List<ExecutableElement> methods, TypeElement domainEvent) {
+        Messager messager = processingEnv.getMessager();
+        Types types = processingEnv.getTypeUtils();
+        boolean valid = true;
+
+        Map<TypeElement, ExecutableElement> handlers = new LinkedHashMap<>();
+        for (ExecutableElement method : methods) {
+            if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "@EventHandler methods must be non-private instance methods", method);
+                valid = false;
+                continue;
+            }
+            if (method.getParameters().size() != 1
+                    || !(method.getParameters().get(0).asType() instanceof DeclaredType parameter)
+                    || !types.isAssignable(parameter, domainEvent.asType())) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "@EventHandler methods must take a single DomainEvent subtype", method);
+                valid = false;
+                continue;
+            }
+            TypeElement eventType = (TypeElement) parameter.asElement();
+            if (eventType.getKind() != ElementKind.CLASS || eventType.getModifiers().contains(Modifier.ABSTRACT)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@EventHandler methods are matched on the exact "
+                        + "class of the event and must take a concrete class, not " + eventType.getSimpleName(),
+                        method);
+                valid = false;
+                continue;
+            }
+            ExecutableElement existing = handlers.putIfAbsent(eventType, method);
+            if (existing != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, eventType.getSimpleName() + " is already handled by "
+                        + existing.getSimpleName(), method);
+                valid = false;
+            }
+        }
+
+        for (TypeMirror consumed : consumedTypes(listener)) {
+            TypeElement eventType = (TypeElement) types.asElement(consumed);
+            if (!handlers.containsKey(eventType)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, listener.getSimpleName() + " consumes "
+                        + eventType.getSimpleName() + " but has no @EventHandler for it", listener);
+                valid = false;
+            }
+        }
+        return valid ? handlers : null;
+    }
+
+    private List<TypeMirror> consumedTypes(TypeElement listener) {
+        List<TypeMirror> consumed = new ArrayList<>();
+        for (AnnotationMirror annotation : listener.getAnnotationMirrors()) {
+            if (!((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(EVENT_HANDLERS)) {
+                continue;
+            }
+            annotation.getElementValues().forEach((name, value) -> {
+                if (name.getSimpleName().contentEquals("consumes")) {
+                    for (Object type : (List<?>) value.getValue()) {
+                        consumed.add((TypeMirror) ((AnnotationValue) type).getValue());
+                    }
+                }
+            });
+        }
+        return consumed;
+    }
+
+    private void write(TypeElement listener, Map<TypeElement, ExecutableElement> handlers) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(listener).getQualifiedName().toString();
+        String listenerName = listener.getQualifiedName().toString();
+        String dispatcherName = (packageName.isEmpty() ? listenerName : listenerName.substring(packageName.length() + 1))
+                .replace('.', '_') + "Dispatcher";
+
+        Filer filer = processingEnv.getFiler();
+        try (PrintWriter out = new PrintWriter(filer.createSourceFile(
+                packageName.isEmpty() ? dispatcherName : packageName + "." + dispatcherName, listener).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Dispatches events to the {@code @EventHandler} methods of {@link " + listenerName + "}.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("final class " + dispatcherName + " {");
+            out.println();
+            out.println("    private static final ClassValue<Integer> TYPE_IDS = new ClassValue<>() {");
+            out.println("        @Override");
+            out.println("        protected Integer computeValue(Class<?> type) {");
+            int typeId = 0;
+            for (TypeElement eventType : handlers.keySet()) {
+                out.println("            if (type == " + eventType.getQualifiedName() + ".class) {");
+                out.println("                return " + typeId++ + ";");
+                out.println("            }");
+            }
+            out.println("            return -1;");
+            out.println("        }");
+            out.println("    };");
+            out.println();
+            out.println("    private " + dispatcherName + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Returns {@code false} if the listener has no handler for the event's type.");
+            out.println("     */");
+            out.println("    static boolean dispatch(" + listenerName + " listener, "
+                    + DOMAIN_EVENT + " event) {");
+            out.println("        switch (TYPE_IDS.get(event.getClass())) {");
+            typeId = 0;
+            for (Map.Entry<TypeElement, ExecutableElement> handler : handlers.entrySet()) {
+                out.println("            case " + typeId++ + ":");
+                out.println("                listener." + handler.getValue().getSimpleName()
+                        + "((" + handler.getKey().getQualifiedName() + ") event);");
+                out.println("                return true;");
+            }
+            out.println("            default:");
+            out.println("                return false;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + dispatcherName + ": " + e.getMessage(), listener);
+        }
+    }
+}
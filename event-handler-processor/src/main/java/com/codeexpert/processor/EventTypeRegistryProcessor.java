@@ -0,0 +1,237 @@
+package com.codeexpert.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates {@code <Type>Types} for a base type annotated with {@code @EventTypeRegistry}.
+ * <p>
+ * Every public concrete class of the listed packages that implements the base type gets an index,
+ * in order of simple name. The generated class resolves a class to its index through a
+ * {@link ClassValue} and a simple name through a string switch, and maps an index back to the
+ * class and name through arrays. Each type also gets a wire id, the {@link String#hashCode()} of its
+ * simple name, which consumers can match without decoding a string. Two types with the same simple
+ * name or the same wire id fail the build, as those are what goes on the wire.
+ * <p>
+ * Indexes are not stable across builds that add types; they must not be written anywhere.
+ */
+@SupportedAnnotationTypes(EventTypeRegistryProcessor.EVENT_TYPE_REGISTRY)
+public class EventTypeRegistryProcessor extends AbstractProcessor {
+
+    static final String EVENT_TYPE_REGISTRY = "com.codeexpert.common.event.EventTypeRegistry";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement baseType = (TypeElement) element;
+                List<TypeElement> types = collect(baseType);
+                if (types != null) {
+                    write(baseType, types);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the registered types by simple name, or {@code null} after reporting errors.
+     */
+    private List<TypeElement> collect(TypeElement baseType) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        Messager messager = processingEnv.getMessager();
+
+        List<TypeElement> registered = new ArrayList<>();
+        for (String packageName : packages(baseType)) {
+            PackageElement packageElement = elements.getPackageElement(packageName);
+            if (packageElement == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "No package " + packageName, baseType);
+                return null;
+            }
+            for (Element member : packageElement.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.CLASS
+                        && member.getModifiers().contains(Modifier.PUBLIC)
+                        && !member.getModifiers().contains(Modifier.ABSTRACT)
+                        && types.isAssignable(member.asType(), types.erasure(baseType.asType()))) {
+                    registered.add((TypeElement) member);
+                }
+            }
+        }
+        registered.sort(Comparator.comparing(type -> type.getSimpleName().toString()));
+
+        Map<String, TypeElement> byName = new HashMap<>();
+        Map<Integer, TypeElement> byWireId = new HashMap<>();
+        boolean valid = true;
+        for (TypeElement type : registered) {
+            String name = type.getSimpleName().toString();
+            TypeElement existing = byName.putIfAbsent(name, type);
+            if (existing != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, type.getQualifiedName() + " has the same name as "
+                        + existing.getQualifiedName() + " and cannot be told apart on the wire", type);
+                valid = false;
+                continue;
+            }
+            existing = byWireId.putIfAbsent(name.hashCode(), type);
+            if (existing != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, type.getQualifiedName() + " has the same wire id as "
+                        + existing.getQualifiedName() + " and cannot be told apart on the wire", type);
+                valid = false;
+            }
+        }
+        return valid ? registered : null;
+    }
+
+    private List<String> packages(TypeElement baseType) {
+        List<String> packages = new ArrayList<>();
+        for (AnnotationMirror annotation : baseType.getAnnotationMirrors()) {
+            if (!((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(EVENT_TYPE_REGISTRY)) {
+                continue;
+            }
+            annotation.getElementValues().forEach((name, value) -> {
+                if (name.getSimpleName().contentEquals("packages")) {
+                    for (Object packageName : (List<?>) value.getValue()) {
+                        packages.add((String) ((AnnotationValue) packageName).getValue());
+                    }
+                }
+            });
+        }
+        return packages;
+    }
+
+    private void write(TypeElement baseType, List<TypeElement> types) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(baseType).getQualifiedName().toString();
+        String baseName = baseType.getSimpleName().toString();
+        String registryName = baseName + "Types";
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+                packageName + "." + registryName, baseType).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("/**");
+            out.println(" * Index of the concrete {@link " + baseName + "} types, generated from the packages listed");
+            out.println(" * on it. Indexes run from 0 to {@link #count()} - 1 and may change whenever a type is added,");
+            out.println(" * so they must never be stored or sent; names are stable, and so are wire ids, the");
+            out.println(" * {@link String#hashCode()} of the name.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + registryName + " {");
+            out.println();
+            out.println("    private static final Class<?>[] TYPES = {");
+            for (TypeElement type : types) {
+                out.println("            " + type.getQualifiedName() + ".class,");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private static final String[] NAMES = {");
+            for (TypeElement type : types) {
+                out.println("            \"" + type.getSimpleName() + "\",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private static final int[] WIRE_IDS = {");
+            for (TypeElement type : types) {
+                out.println("            " + type.getSimpleName().toString().hashCode() + ",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private static final ClassValue<Integer> IDS = new ClassValue<>() {");
+            out.println("        @Override");
+            out.println("        protected Integer computeValue(Class<?> type) {");
+            out.println("            for (int id = 0; id < TYPES.length; id++) {");
+            out.println("                if (TYPES[id] == type) {");
+            out.println("                    return id;");
+            out.println("                }");
+            out.println("            }");
+            out.println("            return -1;");
+            out.println("        }");
+            out.println("    };");
+            out.println();
+            out.println("    private " + registryName + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    public static int count() {");
+            out.println("        return TYPES.length;");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Returns the index of the type, or -1 if it is not a registered type.");
+            out.println("     */");
+            out.println("    public static int idOf(Class<?> type) {");
+            out.println("        return IDS.get(type);");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Returns the index of the type with the given simple name, or -1 if there is none.");
+            out.println("     */");
+            out.println("    public static int idOfName(String name) {");
+            out.println("        switch (name) {");
+            for (int id = 0; id < types.size(); id++) {
+                out.println("            case \"" + types.get(id).getSimpleName() + "\":");
+                out.println("                return " + id + ";");
+            }
+            out.println("            default:");
+            out.println("                return -1;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Returns the index of the type with the given wire id, or -1 if there is none.");
+            out.println("     */");
+            out.println("    public static int idOfWireId(int wireId) {");
+            out.println("        switch (wireId) {");
+            for (int id = 0; id < types.size(); id++) {
+                out.println("            case " + types.get(id).getSimpleName().toString().hashCode() + ":");
+                out.println("                return " + id + ";");
+            }
+            out.println("            default:");
+            out.println("                return -1;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    public static Class<? extends " + baseName + "> type(int id) {");
+            out.println("        return (Class<? extends " + baseName + ">) TYPES[id];");
+            out.println("    }");
+            out.println();
+            out.println("    public static String name(int id) {");
+            out.println("        return NAMES[id];");
+            out.println("    }");
+            out.println();
+            out.println("    public static int wireId(int id) {");
+            out.println("        return WIRE_IDS[id];");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + registryName + ": " + e.getMessage(), baseType);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.codeexpert.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventHandlerProcessorTest {
+
+    private static final Map<String, String> COMMON = Map.of(
+            "com.codeexpert.common.event.DomainEvent", """
+                    package com.codeexpert.common.event;
+                    public interface DomainEvent {
+                    }
+                    """,
+            "com.codeexpert.common.listener.EventHandler", """
+                    package com.codeexpert.common.listener;
+                    public @interface EventHandler {
+                    }
+                    """,
+            "com.codeexpert.common.listener.EventHandlers", """
+                    package com.codeexpert.common.listener;
+                    public @interface EventHandlers {
+                        Class<? extends com.codeexpert.common.event.DomainEvent>[] consumes();
+                    }
+                    """,
+            "test.Paid", """
+                    package test;
+                    public class Paid implements com.codeexpert.common.event.DomainEvent {
+                    }
+                    """,
+            "test.PaidLate", """
+                    package test;
+                    public class PaidLate extends Paid {
+                    }
+                    """,
+            "test.Refunded", """
+                    package test;
+                    public class Refunded implements com.codeexpert.common.event.DomainEvent {
+                    }
+                    """,
+            "test.Pending", """
+                    package test;
+                    public abstract class Pending implements com.codeexpert.common.event.DomainEvent {
+                    }
+                    """);
+
+    @Test
+    void generatesADispatcherThatCallsTheHandlerOfTheEventsExactClass() throws Exception {
+        TestCompiler.Result result = compile("""
+                package test;
+                import com.codeexpert.common.listener.EventHandler;
+                import com.codeexpert.common.listener.EventHandlers;
+                @EventHandlers(consumes = {Paid.class, Refunded.class})
+                public class PaymentListener {
+                    public final java.util.List<String> handled = new java.util.ArrayList<>();
+                    @EventHandler
+                    void onPaid(Paid event) {
+                        handled.add("paid");
+                    }
+                    @EventHandler
+                    protected void onRefunded(Refunded event) {
+                        handled.add("refunded");
+                    }
+                }
+                """);
+
+        assertThat(result.errors()).isEmpty();
+        ClassLoader classLoader = result.classLoader();
+        Object listener = classLoader.loadClass("test.PaymentListener").getConstructor().newInstance();
+        Method dispatch = dispatcher(classLoader, "test.PaymentListenerDispatcher");
+
+        assertThat(dispatch.invoke(null, listener, event(classLoader, "test.Refunded"))).isEqualTo(true);
+        assertThat(dispatch.invoke(null, listener, event(classLoader, "test.Paid"))).isEqualTo(true);
+        assertThat(dispatch.invoke(null, listener, event(classLoader, "test.PaidLate"))).isEqualTo(false);
+        assertThat(listener.getClass().getField("handled").get(listener)).isEqualTo(List.of("refunded", "paid"));
+    }
+
+    @Test
+    void namesTheDispatcherOfANestedListenerAfterItsEnclosingClasses() throws Exception {
+        TestCompiler.Result result = compile("""
+                package test;
+                public class PaymentListener {
+                    static class Inner {
+                        @com.codeexpert.common.listener.EventHandler
+                        void onPaid(Paid event) {
+                        }
+                    }
+                }
+                """);
+
+        assertThat(result.errors()).isEmpty();
+        assertThat(result.generated("test.PaymentListener_InnerDispatcher"))
+                .contains("static boolean dispatch(test.PaymentListener.Inner listener");
+    }
+
+    @Test
+    void rejectsPrivateAndStaticHandlers() {
+        assertThat(errors("""
+                private void onPaid(Paid event) {
+                }
+                @com.codeexpert.common.listener.EventHandler
+                static void onRefunded(Refunded event) {
+                }
+                """)).containsExactly(
+                "@EventHandler methods must be non-private instance methods",
+                "@EventHandler methods must be non-private instance methods");
+    }
+
+    @Test
+    void rejectsHandlersNotTakingASingleDomainEvent() {
+        assertThat(errors("""
+                void onPaid(Paid event, String source) {
+                }
+                @com.codeexpert.common.listener.EventHandler
+                void onText(String event) {
+                }
+                @com.codeexpert.common.listener.EventHandler
+                void onNothing() {
+                }
+                """)).containsExactly(
+                "@EventHandler methods must take a single DomainEvent subtype",
+                "@EventHandler methods must take a single DomainEvent subtype",
+                "@EventHandler methods must take a single DomainEvent subtype");
+    }
+
+    @Test
+    void rejectsHandlersOfAbstractTypesAndInterfaces() {
+        assertThat(errors("""
+                void onPending(Pending event) {
+                }
+                @com.codeexpert.common.listener.EventHandler
+                void onAny(com.codeexpert.common.event.DomainEvent event) {
+                }
+                """)).containsExactly(
+                "@EventHandler methods are matched on the exact class of the event and must take a concrete class, "
+                        + "not Pending",
+                "@EventHandler methods are matched on the exact class of the event and must take a concrete class, "
+                        + "not DomainEvent");
+    }
+
+    @Test
+    void rejectsTwoHandlersOfTheSameType() {
+        assertThat(errors("""
+                void onPaid(Paid event) {
+                }
+                @com.codeexpert.common.listener.EventHandler
+                void onPaidAgain(Paid event) {
+                }
+                """)).containsExactly("Paid is already handled by onPaid");
+    }
+
+    @Test
+    void rejectsAConsumedTypeWithoutAHandler() {
+        TestCompiler.Result result = compile("""
+                package test;
+                @com.codeexpert.common.listener.EventHandlers(consumes = {Paid.class, Refunded.class})
+                public class PaymentListener {
+                    @com.codeexpert.common.listener.EventHandler
+                    void onPaid(Paid event) {
+                    }
+                }
+                """);
+
+        assertThat(result.success()).isFalse();
+        assertThat(result.errors()).containsExactly("PaymentListener consumes Refunded but has no @EventHandler for it");
+    }
+
+    /**
+     * Compiles a listener whose first method is annotated and returns the errors reported.
+     */
+    private static List<String> errors(String methods) {
+        TestCompiler.Result result = compile("""
+                package test;
+                public class PaymentListener {
+                    @com.codeexpert.common.listener.EventHandler
+                """ + methods.indent(4) + "}\n");
+        assertThat(result.success()).isFalse();
+        return result.errors();
+    }
+
+    private static TestCompiler.Result compile(String listener) {
+        Map<String, String> sources = new HashMap<>(COMMON);
+        sources.put("test.PaymentListener", listener);
+        return TestCompiler.compile(new EventHandlerProcessor(), sources);
+    }
+
+    private static Method dispatcher(ClassLoader classLoader, String name) throws Exception {
+        Class<?> dispatcher = classLoader.loadClass(name);
+        Method dispatch = dispatcher.getDeclaredMethod("dispatch", classLoader.loadClass("test.PaymentListener"),
+                classLoader.loadClass("com.codeexpert.common.event.DomainEvent"));
+        dispatch.setAccessible(true);
+        return dispatch;
+    }
+
+    private static Object event(ClassLoader classLoader, String type) throws Exception {
+        return classLoader.loadClass(type).getConstructor().newInstance();
+    }
+}
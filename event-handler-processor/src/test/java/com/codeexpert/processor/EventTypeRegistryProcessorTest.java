@@ -0,0 +1,139 @@
+package com.codeexpert.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTypeRegistryProcessorTest {
+
+    private static final Map<String, String> COMMON = Map.of(
+            "com.codeexpert.common.event.EventTypeRegistry", """
+                    package com.codeexpert.common.event;
+                    public @interface EventTypeRegistry {
+                        String[] packages();
+                    }
+                    """,
+            "test.event.Message", """
+                    package test.event;
+                    @com.codeexpert.common.event.EventTypeRegistry(packages = {"test.event", "test.command"})
+                    public interface Message {
+                    }
+                    """,
+            "test.event.Paid", """
+                    package test.event;
+                    public class Paid implements Message {
+                    }
+                    """,
+            "test.command.Charge", """
+                    package test.command;
+                    public class Charge extends Base {
+                    }
+                    """,
+            "test.command.Base", """
+                    package test.command;
+                    public abstract class Base implements test.event.Message {
+                    }
+                    """,
+            "test.event.Hidden", """
+                    package test.event;
+                    class Hidden implements Message {
+                    }
+                    """,
+            "test.event.Unrelated", """
+                    package test.event;
+                    public class Unrelated {
+                    }
+                    """,
+            "test.other.Elsewhere", """
+                    package test.other;
+                    public class Elsewhere implements test.event.Message {
+                    }
+                    """);
+
+    @Test
+    void indexesThePublicConcreteSubtypesOfTheListedPackagesByName() throws Exception {
+        TestCompiler.Result result = TestCompiler.compile(new EventTypeRegistryProcessor(), COMMON);
+
+        assertThat(result.errors()).isEmpty();
+        Class<?> registry = result.classLoader().loadClass("test.event.MessageTypes");
+        assertThat(call(registry, "count")).isEqualTo(2);
+        assertThat(call(registry, "name", 0)).isEqualTo("Charge");
+        assertThat(call(registry, "name", 1)).isEqualTo("Paid");
+        assertThat(call(registry, "type", 1)).isEqualTo(registry.getClassLoader().loadClass("test.event.Paid"));
+        assertThat(call(registry, "idOfName", "Paid")).isEqualTo(1);
+        assertThat(call(registry, "idOfName", "Base")).isEqualTo(-1);
+        assertThat(call(registry, "idOf", registry.getClassLoader().loadClass("test.command.Charge")))
+                .isEqualTo(0);
+        assertThat(call(registry, "idOf", registry.getClassLoader().loadClass("test.other.Elsewhere")))
+                .isEqualTo(-1);
+        assertThat(call(registry, "wireId", 1)).isEqualTo("Paid".hashCode());
+        assertThat(call(registry, "idOfWireId", "Paid".hashCode())).isEqualTo(1);
+        assertThat(call(registry, "idOfWireId", "Base".hashCode())).isEqualTo(-1);
+    }
+
+    @Test
+    void rejectsTwoTypesWithTheSameSimpleName() {
+        Map<String, String> sources = new HashMap<>(COMMON);
+        sources.put("test.command.Paid", """
+                package test.command;
+                public class Paid implements test.event.Message {
+                }
+                """);
+
+        TestCompiler.Result result = TestCompiler.compile(new EventTypeRegistryProcessor(), sources);
+
+        assertThat(result.success()).isFalse();
+        assertThat(result.errors()).containsExactly(
+                "test.command.Paid has the same name as test.event.Paid and cannot be told apart on the wire");
+    }
+
+    @Test
+    void rejectsTwoTypesWithTheSameWireId() {
+        Map<String, String> sources = new HashMap<>(COMMON);
+        sources.put("test.event.Aa", """
+                package test.event;
+                public class Aa implements Message {
+                }
+                """);
+        sources.put("test.event.BB", """
+                package test.event;
+                public class BB implements Message {
+                }
+                """);
+
+        TestCompiler.Result result = TestCompiler.compile(new EventTypeRegistryProcessor(), sources);
+
+        assertThat(result.success()).isFalse();
+        assertThat(result.errors()).containsExactly(
+                "test.event.BB has the same wire id as test.event.Aa and cannot be told apart on the wire");
+    }
+
+    @Test
+    void rejectsAnUnknownPackage() {
+        Map<String, String> sources = new HashMap<>(COMMON);
+        sources.put("test.event.Message", """
+                package test.event;
+                @com.codeexpert.common.event.EventTypeRegistry(packages = {"test.event", "test.missing"})
+                public interface Message {
+                }
+                """);
+
+        TestCompiler.Result result = TestCompiler.compile(new EventTypeRegistryProcessor(), sources);
+
+        assertThat(result.success()).isFalse();
+        assertThat(result.errors()).containsExactly("No package test.missing");
+    }
+
+    private static Object call(Class<?> registry, String name, Object... args) throws Exception {
+        for (Method method : registry.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                return method.invoke(null, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+}
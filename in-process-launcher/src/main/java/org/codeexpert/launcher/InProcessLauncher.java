@@ -0,0 +1,112 @@
+package org.codeexpert.launcher;
+
+import lombok.extern.log4j.Log4j2;
+import org.codeexpert.inventory.InventoryServiceApplication;
+import org.codeexpert.payment.PaymentServiceApplication;
+import org.codeexpert.shipping.ShippingServiceApplication;
+import org.codeexperts.order.OrderServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the order, payment, inventory and shipping services side by side in one JVM, exchanging
+ * events through the shared {@link com.codeexpert.common.inprocess.InProcessBroker} instead of
+ * Kafka, each with an in-memory H2 database of its own. For load tests and profiling of the saga
+ * without a broker.
+ * <p>
+ * The participants are started before the order service, so that their command topics have
+ * subscribers when the first saga starts. Arguments are passed to every service and take
+ * precedence over the launcher's own settings, e.g. {@code --server.port=0} or
+ * {@code --messaging.in-process.serialize=false}.
+ */
+@Log4j2
+public final class InProcessLauncher implements AutoCloseable {
+
+    private static final Map<Class<?>, Integer> SERVICES = new LinkedHashMap<>();
+
+    static {
+        SERVICES.put(PaymentServiceApplication.class, 8082);
+        SERVICES.put(InventoryServiceApplication.class, 8083);
+        SERVICES.put(ShippingServiceApplication.class, 8084);
+        SERVICES.put(OrderServiceApplication.class, 8081);
+    }
+
+    private final Map<Class<?>, ConfigurableApplicationContext> contexts = new LinkedHashMap<>();
+
+    private InProcessLauncher() {
+    }
+
+    public static void main(String[] args) {
+        start(args);
+    }
+
+    /**
+     * Starts all four services; if one fails to start those already running are closed.
+     */
+    public static InProcessLauncher start(String... args) {
+        InProcessLauncher launcher = new InProcessLauncher();
+        try {
+            SERVICES.forEach((application, port) ->
+                    launcher.contexts.put(application, run(application, port, args)));
+        } catch (RuntimeException e) {
+            launcher.close();
+            throw e;
+        }
+        log.info("Started {} services in one JVM over the in-process transport", launcher.contexts.size());
+        return launcher;
+    }
+
+    /**
+     * The application context of the service started from {@code application}.
+     */
+    public ConfigurableApplicationContext service(Class<?> application) {
+        ConfigurableApplicationContext context = contexts.get(application);
+        if (context == null) {
+            throw new IllegalArgumentException(application.getSimpleName() + " is not one of the launched services");
+        }
+        return context;
+    }
+
+    /**
+     * Stops the services in reverse order of starting, the order service first.
+     */
+    @Override
+    public void close() {
+        List<ConfigurableApplicationContext> running = new ArrayList<>(contexts.values());
+        for (int i = running.size() - 1; i >= 0; i--) {
+            running.get(i).close();
+        }
+        contexts.clear();
+    }
+
+    private static ConfigurableApplicationContext run(Class<?> application, int port, String[] args) {
+        String name = application.getSimpleName().replace("ServiceApplication", "").toLowerCase();
+        Map<String, Object> settings = Map.of(
+                "spring.application.name", name + "-service",
+                "server.port", port,
+                "messaging.transport", "in-process",
+                "spring.datasource.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "spring.datasource.username", "sa",
+                "spring.datasource.password", "",
+                "spring.jpa.hibernate.ddl-auto", "none");
+        return new SpringApplicationBuilder(application)
+                .initializers(context -> {
+                    MutablePropertySources sources = context.getEnvironment().getPropertySources();
+                    MapPropertySource launcher = new MapPropertySource("inProcessLauncher", settings);
+                    if (sources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+                        sources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, launcher);
+                    } else {
+                        sources.addFirst(launcher);
+                    }
+                })
+                .run(args);
+    }
+}
@@ -0,0 +1,93 @@
+package org.codeexpert.launcher;
+
+import com.codeexpert.common.idempotency.IdempotentCommandHandler;
+import com.codeexpert.common.model.OrderItem;
+import org.codeexpert.payment.PaymentServiceApplication;
+import org.codeexperts.order.OrderServiceApplication;
+import org.codeexperts.order.dto.CreateOrderRequest;
+import org.codeexperts.order.entity.OrderEntity;
+import org.codeexperts.order.entity.SagaStateEntity;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.repository.OrderRepository;
+import org.codeexperts.order.repository.SagaStateRepository;
+import org.codeexperts.order.service.OrderIntakeService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class InProcessLauncherTest {
+
+    private static InProcessLauncher launcher;
+
+    @BeforeAll
+    static void startServices() {
+        launcher = InProcessLauncher.start("--server.port=0");
+    }
+
+    @AfterAll
+    static void stopServices() {
+        launcher.close();
+    }
+
+    @Test
+    void completesASagaAcrossAllFourServices() throws Exception {
+        String orderId = intake().submit(request("customer-1")).get(10, TimeUnit.SECONDS);
+
+        await().atMost(Duration.ofSeconds(30))
+                .untilAsserted(() -> assertThat(state(orderId)).isEqualTo(OrderState.ORDER_COMPLETED));
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(sagaState(orderId))
+                .isEqualTo(OrderState.ORDER_COMPLETED));
+    }
+
+    @Test
+    void completesEverySagaOfABulkSubmission() throws Exception {
+        List<CreateOrderRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            requests.add(request("customer-" + i));
+        }
+
+        List<String> orderIds = intake().submitAll(requests).get(30, TimeUnit.SECONDS);
+
+        await().atMost(Duration.ofSeconds(60)).untilAsserted(() -> assertThat(orderIds)
+                .allSatisfy(orderId -> assertThat(state(orderId)).isEqualTo(OrderState.ORDER_COMPLETED)));
+    }
+
+    @Test
+    void autoConfiguresIdempotencyForTheServicesThatTakeCommandsOnly() {
+        assertThat(launcher.service(PaymentServiceApplication.class).getBeansOfType(IdempotentCommandHandler.class))
+                .hasSize(1);
+        assertThat(launcher.service(OrderServiceApplication.class).getBeansOfType(IdempotentCommandHandler.class))
+                .isEmpty();
+    }
+
+    private static OrderIntakeService intake() {
+        return launcher.service(OrderServiceApplication.class).getBean(OrderIntakeService.class);
+    }
+
+    private static OrderState state(String orderId) {
+        return launcher.service(OrderServiceApplication.class).getBean(OrderRepository.class)
+                .findById(orderId).map(OrderEntity::getState).orElse(null);
+    }
+
+    private static OrderState sagaState(String orderId) {
+        return launcher.service(OrderServiceApplication.class).getBean(SagaStateRepository.class)
+                .findById(orderId).map(SagaStateEntity::getState).orElse(null);
+    }
+
+    private static CreateOrderRequest request(String customerId) {
+        return CreateOrderRequest.builder()
+                .customerId(customerId)
+                .amount(new BigDecimal("49.90"))
+                .items(List.of(new OrderItem("product-1", 2, new BigDecimal("24.95"))))
+                .build();
+    }
+}
@@ -4,7 +4,9 @@ import com.codeexpert.common.command.ReleaseInventoryCommand;
 import com.codeexpert.common.command.ReserveInventoryCommand;
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.listener.DomainEventListener;
-import com.codeexpert.common.listener.KafkaListenerRegistrar;
+import com.codeexpert.common.listener.ExecutionMode;
+import com.codeexpert.common.listener.ListenerRegistrar;
+import com.codeexpert.common.listener.ListenerOptions;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -15,12 +17,12 @@ import org.springframework.statemachine.config.EnableStateMachine;
 @EnableStateMachine
 public class InventoryServiceApplication {
 
-    private final KafkaListenerRegistrar kafkaListenerRegistrar;
+    private final ListenerRegistrar listenerRegistrar;
     private final DomainEventListener inventoryCommandListener;
 
     @Autowired
-    public InventoryServiceApplication(KafkaListenerRegistrar kafkaListenerRegistrar, DomainEventListener inventoryCommandListener) {
-        this.kafkaListenerRegistrar = kafkaListenerRegistrar;
+    public InventoryServiceApplication(ListenerRegistrar listenerRegistrar, DomainEventListener inventoryCommandListener) {
+        this.listenerRegistrar = listenerRegistrar;
         this.inventoryCommandListener = inventoryCommandListener;
     }
 
@@ -32,7 +34,14 @@ public class InventoryServiceApplication {
     public void registerKafkaListeners() {
         String groupId = "inventory-service-group"; // Define group ID here or in properties
 
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.INVENTORY_COMMANDS, groupId, inventoryCommandListener);
+        listenerRegistrar.registerListener(
+                KafkaTopics.INVENTORY_COMMANDS, groupId, inventoryCommandListener,
+                ListenerOptions.builder()
+                        .executionMode(ExecutionMode.KEY_ORDERED)
+                        .maxConcurrency(8)
+                        .retryDelays(ListenerOptions.STANDARD_RETRY_DELAYS)
+                        .deadLetter(true)
+                        .commitBatchSize(500)
+                        .build());
     }
 }
@@ -0,0 +1,77 @@
+package org.codeexperts.order;
+
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.ReserveInventoryCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.listener.BinaryEventSerializer;
+import com.codeexpert.common.listener.EventSerializer;
+import com.codeexpert.common.listener.JsonEventSerializer;
+import com.codeexpert.common.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the JSON and binary event serializers, measured on the bytes that go
+ * on the wire. Encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"ProcessPaymentCommand", "ReserveInventoryCommand", "PaymentProcessedEvent"})
+    public String eventType;
+
+    private EventSerializer serializer;
+    private DomainEvent event;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        serializer = "binary".equals(format) ? new BinaryEventSerializer() : new JsonEventSerializer();
+        String orderId = UUID.randomUUID().toString();
+        String correlationId = UUID.randomUUID().toString();
+        event = switch (eventType) {
+            case "ProcessPaymentCommand" -> ProcessPaymentCommand.builder()
+                    .orderId(orderId)
+                    .correlationId(correlationId)
+                    .customerId("customer-42")
+                    .amount(new BigDecimal("149.90"))
+                    .build();
+            case "ReserveInventoryCommand" -> ReserveInventoryCommand.builder()
+                    .orderId(orderId)
+                    .correlationId(correlationId)
+                    .items(List.of(
+                            new OrderItem("product-1", 2, new BigDecimal("19.99")),
+                            new OrderItem("product-2", 1, new BigDecimal("5.00")),
+                            new OrderItem("product-3", 4, new BigDecimal("12.50"))))
+                    .build();
+            default -> PaymentProcessedEvent.builder()
+                    .orderId(orderId)
+                    .correlationId(correlationId)
+                    .status("SUCCESS")
+                    .transactionId(UUID.randomUUID().toString())
+                    .build();
+        };
+        encoded = encode();
+        System.out.printf("%n%s %s: %d bytes%n", format, eventType, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.toBytes(event);
+    }
+
+    @Benchmark
+    public DomainEvent decode() {
+        return serializer.fromBytes(encoded);
+    }
+}
@@ -0,0 +1,14 @@
+package org.codeexperts.order;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.publisher.MessagePublisher;
+
+/**
+ * Swallows every message so benchmarks measure the orchestrator rather than the broker.
+ */
+public class NoOpMessagePublisher implements MessagePublisher {
+
+    @Override
+    public <T extends DomainEvent> void publish(String topic, String key, T message) {
+    }
+}
@@ -0,0 +1,90 @@
+package org.codeexperts.order;
+
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.constant.KafkaTopics;
+import com.codeexpert.common.listener.EventKafkaSerializer;
+import com.codeexpert.common.outbox.OutboxMessagePublisher;
+import com.codeexpert.common.outbox.OutboxRelay;
+import com.codeexpert.common.outbox.OutboxStore;
+import com.codeexpert.common.publisher.KafkaMessagePublisher;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second through the outbox against an in-memory H2 {@code OUTBOX} table and a
+ * {@link MockProducer} that acknowledges every send at once.
+ * <p>
+ * Each invocation appends {@value #EVENTS} events in one batch and lets the relay drain them with
+ * pages of {@code relayBatchSize}; a page size of 1 is the fetch, send and delete per message a
+ * naive relay does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OutboxRelayBenchmark {
+
+    private static final int EVENTS = 500;
+
+    @Param({"1", "50", "500"})
+    public int relayBatchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private MockProducer<String, Object> producer;
+    private OutboxMessagePublisher publisher;
+    private OutboxRelay relay;
+    private List<ProcessPaymentCommand> events;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS OUTBOX");
+        OutboxStore store = new OutboxStore(jdbcTemplate);
+        store.createTableIfMissing();
+
+        producer = new MockProducer<>(true, new StringSerializer(), new EventKafkaSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+                // KafkaTemplate closes the producer after every send; keep the mock usable
+            }
+        };
+        relay = new OutboxRelay(store, new KafkaMessagePublisher(new KafkaTemplate<>(() -> producer)), relayBatchSize,
+                60_000, 30_000, 60_000);
+        publisher = new OutboxMessagePublisher(store);
+
+        events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(ProcessPaymentCommand.builder()
+                    .orderId("order-" + i)
+                    .correlationId("correlation-" + i)
+                    .customerId("customer-" + i)
+                    .amount(new BigDecimal("149.90"))
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE OUTBOX");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int appendAndRelay() {
+        publisher.publishAll(KafkaTopics.PAYMENT_COMMANDS, events, ProcessPaymentCommand::getOrderId).join();
+        int relayed = relay.relayPending();
+        producer.clear();
+        return relayed;
+    }
+}
@@ -0,0 +1,116 @@
+package org.codeexperts.order.persistence;
+
+import org.codeexperts.order.model.OrderState;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order status updates per second against an in-memory H2 {@code ORDERS} table.
+ * <p>
+ * {@code perEvent} reproduces the old {@code findById} + {@code save} path: a full-row select and
+ * a full-row update, each in its own transaction. {@code batched} is the {@link OrderStatusWriter}
+ * flush: one batched single-column update per {@value #BATCH_SIZE} changes in one transaction.
+ * Scores are per status change. Each benchmark thread updates its own slice of the table, as each
+ * order's status has a single writer in the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderStatusWriteBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_SQL =
+            "SELECT id, customer_id, amount, product_id, quantity, state FROM ORDERS WHERE id = ?";
+    private static final String UPDATE_ROW_SQL =
+            "UPDATE ORDERS SET customer_id = ?, amount = ?, product_id = ?, quantity = ?, state = ? WHERE id = ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OrderStatusWriter writer;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:orders;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ORDERS");
+        jdbcTemplate.execute("CREATE TABLE ORDERS (id VARCHAR(64) PRIMARY KEY, customer_id VARCHAR(64), "
+                + "amount DECIMAL(19, 2), product_id VARCHAR(64), quantity INT, state VARCHAR(64))");
+        List<Object[]> rows = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            rows.add(new Object[]{"order-" + i, "customer-" + i, 10, "product-" + i, 1, OrderState.PENDING.name()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ORDERS VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        writer = new OrderStatusWriter(jdbcTemplate, transactionManager, BATCH_SIZE, 60_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.close();
+        jdbcTemplate.execute("DROP TABLE ORDERS");
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+
+        private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+        private int index;
+        private int threads;
+
+        @Setup
+        public void setUp(BenchmarkParams params) {
+            threads = params.getThreads();
+            index = NEXT_INDEX.getAndIncrement() % threads;
+        }
+
+        String randomOrderId(ThreadLocalRandom random) {
+            return "order-" + (random.nextInt(ORDERS / threads) * threads + index);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void perEvent(Slice slice) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String id = slice.randomOrderId(random);
+            Map<String, Object> row = transactionTemplate.execute(status -> jdbcTemplate.queryForMap(SELECT_SQL, id));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(UPDATE_ROW_SQL,
+                    row.get("CUSTOMER_ID"), row.get("AMOUNT"), row.get("PRODUCT_ID"), row.get("QUANTITY"),
+                    nextState(random).name(), id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batched(Slice slice) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<OrderStatusWriter.StatusChange> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new OrderStatusWriter.StatusChange(slice.randomOrderId(random), nextState(random)));
+        }
+        writer.write(batch);
+    }
+
+    private static OrderState nextState(ThreadLocalRandom random) {
+        return random.nextBoolean() ? OrderState.ORDER_COMPLETED : OrderState.ORDER_FAILED;
+    }
+}
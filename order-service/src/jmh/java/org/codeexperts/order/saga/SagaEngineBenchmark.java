@@ -0,0 +1,69 @@
+package org.codeexperts.order.saga;
+
+import com.codeexpert.common.publisher.MessagePublisher;
+import org.codeexperts.order.NoOpMessagePublisher;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.service.OrderCommandPublisher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.statemachine.config.StateMachineFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spring Statemachine versus the compiled table engine on the same saga definition and actions.
+ * <p>
+ * Run with {@code -PjmhProfilers=gc} to compare allocation per saga as well as throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SagaEngineBenchmark {
+
+    private static final AtomicLong ORDER_SEQUENCE = new AtomicLong();
+
+    @Param({"spring", "compiled"})
+    public String engineType;
+
+    private AnnotationConfigApplicationContext context;
+    private SagaEngine engine;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MessagePublisher.class, NoOpMessagePublisher::new);
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class);
+        context.refresh();
+
+        if ("compiled".equals(engineType)) {
+            engine = new CompiledSagaEngine(context.getBean(SagaDefinition.class));
+        } else {
+            engine = new SpringStateMachineSagaEngine(
+                    new SagaStateMachinePool(context.getBean(StateMachineFactory.class), 256));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderState completeSaga() {
+        Order order = new Order();
+        order.setOrderId("order-" + ORDER_SEQUENCE.incrementAndGet());
+
+        engine.start(order);
+        engine.sendEvent(order.getOrderId(), OrderEvent.START_ORDER);
+        engine.sendEvent(order.getOrderId(), OrderEvent.PAYMENT_SUCCESS);
+        engine.sendEvent(order.getOrderId(), OrderEvent.INVENTORY_SUCCESS);
+        OrderState state = engine.sendEvent(order.getOrderId(), OrderEvent.SHIPPING_SUCCESS);
+        engine.release(order.getOrderId());
+        return state;
+    }
+}
@@ -0,0 +1,113 @@
+package org.codeexperts.order.saga;
+
+import com.codeexpert.common.command.CreateShipmentCommand;
+import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.ReserveInventoryCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.publisher.MessagePublisher;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.service.OrderCommandPublisher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end saga latency of the sequential and parallel shapes.
+ * <p>
+ * Participants are simulated by answering each command after a fixed delay
+ * ({@code paymentMillis}, {@code inventoryMillis}, {@code shippingMillis}), so the result is
+ * dominated by the round trips the shape waits for: their sum for {@code sequential}, the slower of
+ * payment and inventory plus shipping for {@code parallel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SagaShapeLatencyBenchmark {
+
+    private static final AtomicLong ORDER_SEQUENCE = new AtomicLong();
+
+    @Param({"sequential", "parallel"})
+    public String shape;
+
+    @Param({"5"})
+    public long paymentMillis;
+
+    @Param({"5"})
+    public long inventoryMillis;
+
+    @Param({"2"})
+    public long shippingMillis;
+
+    private final Map<String, CompletableFuture<OrderState>> outcomes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService participants;
+    private AnnotationConfigApplicationContext context;
+    private volatile SagaEngine engine;
+
+    @Setup
+    public void setUp() {
+        participants = Executors.newScheduledThreadPool(4);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("saga.shape", shape)));
+        context.registerBean(MessagePublisher.class, () -> new SimulatedParticipants());
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class);
+        context.refresh();
+
+        engine = new CompiledSagaEngine(context.getBean(SagaDefinition.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        participants.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public OrderState completeSaga() throws Exception {
+        Order order = new Order();
+        order.setOrderId("order-" + ORDER_SEQUENCE.incrementAndGet());
+        CompletableFuture<OrderState> outcome = new CompletableFuture<>();
+        outcomes.put(order.getOrderId(), outcome);
+
+        engine.start(order);
+        engine.sendEvent(order.getOrderId(), OrderEvent.START_ORDER);
+        return outcome.get(10, TimeUnit.SECONDS);
+    }
+
+    private void reply(String orderId, OrderEvent event) {
+        OrderState state = engine.sendEvent(orderId, event);
+        if (state == OrderState.ORDER_COMPLETED || state == OrderState.ORDER_FAILED) {
+            engine.release(orderId);
+            outcomes.remove(orderId).complete(state);
+        }
+    }
+
+    /**
+     * Answers every command with a success event after the participant's delay.
+     */
+    private class SimulatedParticipants implements MessagePublisher {
+
+        @Override
+        public <T extends DomainEvent> void publish(String topic, String key, T message) {
+            if (message instanceof ProcessPaymentCommand) {
+                participants.schedule(() -> reply(key, OrderEvent.PAYMENT_SUCCESS), paymentMillis, TimeUnit.MILLISECONDS);
+            } else if (message instanceof ReserveInventoryCommand) {
+                participants.schedule(() -> reply(key, OrderEvent.INVENTORY_SUCCESS), inventoryMillis, TimeUnit.MILLISECONDS);
+            } else if (message instanceof CreateShipmentCommand) {
+                participants.schedule(() -> reply(key, OrderEvent.SHIPPING_SUCCESS), shippingMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.codeexperts.order.saga;
+
+import org.codeexperts.order.NoOpMessagePublisher;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.service.OrderCommandPublisher;
+import com.codeexpert.common.publisher.MessagePublisher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Happy-path sagas per second through pooled, per-order state machines.
+ * <p>
+ * Every invocation runs a complete saga (START_ORDER → SHIPPING_SUCCESS) on its own machine, so
+ * running with increasing {@code -PjmhThreads} shows how throughput scales with cores now that
+ * sagas no longer share one machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SagaStateMachinePoolBenchmark {
+
+    private static final AtomicLong ORDER_SEQUENCE = new AtomicLong();
+
+    private AnnotationConfigApplicationContext context;
+    private SagaStateMachinePool pool;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MessagePublisher.class, NoOpMessagePublisher::new);
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class, SagaStateMachinePool.class);
+        context.refresh();
+        pool = context.getBean(SagaStateMachinePool.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderState completeSaga() {
+        Order order = new Order();
+        order.setOrderId("order-" + ORDER_SEQUENCE.incrementAndGet());
+
+        StateMachine<OrderState, OrderEvent> stateMachine = pool.acquire(order.getOrderId());
+        stateMachine.getExtendedState().getVariables().put("order", order);
+        send(stateMachine, OrderEvent.START_ORDER);
+        send(stateMachine, OrderEvent.PAYMENT_SUCCESS);
+        send(stateMachine, OrderEvent.INVENTORY_SUCCESS);
+        send(stateMachine, OrderEvent.SHIPPING_SUCCESS);
+
+        OrderState state = stateMachine.getState().getId();
+        pool.release(order.getOrderId());
+        return state;
+    }
+
+    private static void send(StateMachine<OrderState, OrderEvent> stateMachine, OrderEvent event) {
+        stateMachine.sendEvent(Mono.just(MessageBuilder.withPayload(event).build())).blockLast();
+    }
+}
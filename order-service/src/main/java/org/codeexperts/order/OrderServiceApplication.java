@@ -2,44 +2,48 @@ package org.codeexperts.order;
 
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.event.*;
+import com.codeexpert.common.idempotency.IdempotencyAutoConfiguration;
 import com.codeexpert.common.listener.DomainEventListener;
-import com.codeexpert.common.listener.KafkaListenerRegistrar;
+import com.codeexpert.common.listener.ListenerRegistrar;
+import com.codeexpert.common.listener.ListenerOptions;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.statemachine.config.EnableStateMachine;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
-@EnableStateMachine
+// Takes no commands, so needs no processed-command table
+@SpringBootApplication(exclude = IdempotencyAutoConfiguration.class)
+@EnableScheduling
 public class OrderServiceApplication {
 
-    private final KafkaListenerRegistrar kafkaListenerRegistrar;
+    private final ListenerRegistrar listenerRegistrar;
     private final DomainEventListener orderEventListener;
 
     @Autowired
-    public OrderServiceApplication(KafkaListenerRegistrar kafkaListenerRegistrar, DomainEventListener orderEventListener) {
-        this.kafkaListenerRegistrar = kafkaListenerRegistrar;
+    public OrderServiceApplication(ListenerRegistrar listenerRegistrar, DomainEventListener orderEventListener) {
+        this.listenerRegistrar = listenerRegistrar;
         this.orderEventListener = orderEventListener;
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(SpringApplication.class, args);
+        SpringApplication.run(OrderServiceApplication.class, args);
     }
 
     @PostConstruct
     public void registerKafkaListeners() {
         String groupId = "order-service-group"; // Define group ID here or in properties
+        ListenerOptions options = ListenerOptions.builder()
+                .retryDelays(ListenerOptions.STANDARD_RETRY_DELAYS)
+                .deadLetter(true)
+                .commitBatchSize(500)
+                .build();
 
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.PAYMENT_EVENTS, groupId, orderEventListener, PaymentProcessedEvent.class);
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.PAYMENT_EVENTS, groupId, orderEventListener, PaymentRefundedEvent.class);
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.INVENTORY_EVENTS, groupId, orderEventListener, InventoryReservedEvent.class);
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.INVENTORY_EVENTS, groupId, orderEventListener, InventoryReleasedEvent.class);
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.SHIPPING_EVENTS, groupId, orderEventListener, ShipmentCreatedEvent.class);
+        listenerRegistrar.registerListener(KafkaTopics.PAYMENT_EVENTS, groupId, orderEventListener, options,
+                PaymentProcessedEvent.class, PaymentRefundedEvent.class);
+        listenerRegistrar.registerListener(KafkaTopics.INVENTORY_EVENTS, groupId, orderEventListener, options,
+                InventoryReservedEvent.class, InventoryReleasedEvent.class);
+        listenerRegistrar.registerListener(KafkaTopics.SHIPPING_EVENTS, groupId, orderEventListener, options,
+                ShipmentCreatedEvent.class);
     }
 }
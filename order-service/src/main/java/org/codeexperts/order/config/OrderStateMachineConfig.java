@@ -5,103 +5,186 @@ import org.codeexperts.order.service.OrderCommandPublisher;
 import org.codeexperts.order.model.Order;
 import org.codeexperts.order.model.OrderEvent;
 import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.saga.SagaDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.EnableStateMachineFactory;
 import org.springframework.statemachine.config.StateMachineConfigurerAdapter;
 import org.springframework.statemachine.config.builders.StateMachineStateConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.ExternalTransitionConfigurer;
+
+import java.time.Duration;
 
 @Configuration
+@EnableStateMachineFactory
 public class OrderStateMachineConfig extends StateMachineConfigurerAdapter<OrderState, OrderEvent> {
 
     @Autowired
     private OrderCommandPublisher commandPublisher;
 
+    @Value("${saga.shape:sequential}")
+    private String sagaShape;
+
+    @Value("${saga.timeout.payment-ms:30000}")
+    private long paymentTimeoutMillis;
+
+    @Value("${saga.timeout.inventory-ms:30000}")
+    private long inventoryTimeoutMillis;
+
+    @Value("${saga.timeout.shipping-ms:60000}")
+    private long shippingTimeoutMillis;
+
     /**
-     * Configure all the states for the order.
+     * The saga graph shared by every {@link org.codeexperts.order.saga.SagaEngine} implementation.
+     * {@code saga.shape=parallel} requests payment and inventory at the same time instead of one
+     * after the other.
+     *
+     * @return transitions, end states and step deadlines of the order saga
+     */
+    @Bean
+    public SagaDefinition orderSagaDefinition() {
+        SagaDefinition.Builder builder = SagaDefinition.builder(OrderState.PENDING)
+                .end(OrderState.ORDER_COMPLETED)
+                .end(OrderState.ORDER_FAILED);
+
+        if ("parallel".equals(sagaShape)) {
+            parallelPaymentAndInventory(builder);
+        } else {
+            sequentialPaymentAndInventory(builder);
+        }
+
+        return builder
+                .transition(OrderState.INVENTORY_RESERVED, OrderEvent.SHIPPING_SUCCESS,
+                        OrderState.ORDER_COMPLETED)
+                .transition(OrderState.INVENTORY_RESERVED, OrderEvent.SHIPPING_FAILED,
+                        OrderState.INVENTORY_COMPENSATING, compensateInventoryAction())
+                .transition(OrderState.INVENTORY_COMPENSATING, OrderEvent.COMPENSATE_INVENTORY,
+                        OrderState.PAYMENT_COMPENSATING, compensatePaymentAction())
+                .transition(OrderState.PAYMENT_COMPENSATING, OrderEvent.COMPENSATE_PAYMENT,
+                        OrderState.ORDER_FAILED)
+
+                .deadline(OrderState.INVENTORY_RESERVED,
+                        Duration.ofMillis(shippingTimeoutMillis), OrderEvent.SHIPPING_FAILED)
+                .build();
+    }
+
+    /**
+     * Payment first, inventory once payment has succeeded.
+     */
+    private void sequentialPaymentAndInventory(SagaDefinition.Builder builder) {
+        builder
+                .transition(OrderState.PENDING, OrderEvent.START_ORDER,
+                        OrderState.PAYMENT_PROCESSING, processPaymentAction())
+                .transition(OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_SUCCESS,
+                        OrderState.PAYMENT_COMPLETED, reserveInventoryAction())
+                .transition(OrderState.PAYMENT_COMPLETED, OrderEvent.INVENTORY_SUCCESS,
+                        OrderState.INVENTORY_RESERVED, processShippingAction())
+
+                .transition(OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED,
+                        OrderState.ORDER_FAILED)
+                .transition(OrderState.PAYMENT_COMPLETED, OrderEvent.INVENTORY_FAILED,
+                        OrderState.PAYMENT_COMPENSATING, compensatePaymentAction())
+
+                .deadline(OrderState.PAYMENT_PROCESSING,
+                        Duration.ofMillis(paymentTimeoutMillis), OrderEvent.PAYMENT_FAILED)
+                .deadline(OrderState.PAYMENT_COMPLETED,
+                        Duration.ofMillis(inventoryTimeoutMillis), OrderEvent.INVENTORY_FAILED);
+    }
+
+    /**
+     * Payment and inventory are requested together and joined before shipping. The two branches
+     * are flattened into one state per combination of outcomes, so both engines run the fork and
+     * join as ordinary transitions. A branch that succeeds after the other one failed is undone.
+     * <p>
+     * Each branch's deadline counts from the fork. While both are outstanding, the one with the
+     * shorter timeout is failed first; the other then gets the rest of its own time.
+     */
+    private void parallelPaymentAndInventory(SagaDefinition.Builder builder) {
+        boolean paymentFirst = paymentTimeoutMillis <= inventoryTimeoutMillis;
+        long firstDeadline = Math.min(paymentTimeoutMillis, inventoryTimeoutMillis);
+        builder
+                .transition(OrderState.PENDING, OrderEvent.START_ORDER,
+                        OrderState.PAYMENT_AND_INVENTORY_PROCESSING, processPaymentAndReserveInventoryAction())
+
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.PAYMENT_SUCCESS,
+                        OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING)
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.INVENTORY_SUCCESS,
+                        OrderState.INVENTORY_RESERVED_PAYMENT_PROCESSING)
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.PAYMENT_FAILED,
+                        OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING)
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.INVENTORY_FAILED,
+                        OrderState.INVENTORY_FAILED_PAYMENT_PROCESSING)
+
+                .transition(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_SUCCESS,
+                        OrderState.INVENTORY_RESERVED, processShippingAction())
+                .transition(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_FAILED,
+                        OrderState.PAYMENT_COMPENSATING, compensatePaymentAction())
+
+                .transition(OrderState.INVENTORY_RESERVED_PAYMENT_PROCESSING, OrderEvent.PAYMENT_SUCCESS,
+                        OrderState.INVENTORY_RESERVED, processShippingAction())
+                .transition(OrderState.INVENTORY_RESERVED_PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED,
+                        OrderState.INVENTORY_RELEASING, compensateInventoryAction())
+
+                .transition(OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_SUCCESS,
+                        OrderState.INVENTORY_RELEASING, compensateInventoryAction())
+                .transition(OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_FAILED,
+                        OrderState.ORDER_FAILED)
+
+                .transition(OrderState.INVENTORY_FAILED_PAYMENT_PROCESSING, OrderEvent.PAYMENT_SUCCESS,
+                        OrderState.PAYMENT_COMPENSATING, compensatePaymentAction())
+                .transition(OrderState.INVENTORY_FAILED_PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED,
+                        OrderState.ORDER_FAILED)
+
+                .transition(OrderState.INVENTORY_RELEASING, OrderEvent.COMPENSATE_INVENTORY,
+                        OrderState.ORDER_FAILED)
+
+                .deadline(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, Duration.ofMillis(firstDeadline),
+                        paymentFirst ? OrderEvent.PAYMENT_FAILED : OrderEvent.INVENTORY_FAILED)
+                .deadline(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING, Duration.ofMillis(inventoryTimeoutMillis),
+                        OrderEvent.INVENTORY_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING)
+                .deadline(OrderState.INVENTORY_RESERVED_PAYMENT_PROCESSING, Duration.ofMillis(paymentTimeoutMillis),
+                        OrderEvent.PAYMENT_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING)
+                .deadline(OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING, Duration.ofMillis(inventoryTimeoutMillis),
+                        OrderEvent.INVENTORY_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING)
+                .deadline(OrderState.INVENTORY_FAILED_PAYMENT_PROCESSING, Duration.ofMillis(paymentTimeoutMillis),
+                        OrderEvent.PAYMENT_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+    }
+
+    /**
+     * Configure all the states for the order. The saga's end states are deliberately not declared
+     * as such: a machine reaching one would stop itself and could not be started again once
+     * {@link org.codeexperts.order.saga.SagaStateMachinePool} recycles it. The orchestrator ends
+     * sagas through the {@link SagaDefinition} instead.
      *
      * @param states states configuration injected from Spring framework
      * @throws Exception if any
      */
     @Override
     public void configure(StateMachineStateConfigurer<OrderState, OrderEvent> states) throws Exception {
+        SagaDefinition definition = orderSagaDefinition();
+
         states
                 .withStates()
-                .initial(OrderState.PENDING)
-                .state(OrderState.PAYMENT_PROCESSING)
-                .state(OrderState.PAYMENT_COMPLETED)
-                .state(OrderState.INVENTORY_RESERVING)
-                .state(OrderState.INVENTORY_RESERVED)
-                .state(OrderState.SHIPPING_PROCESSING)
-                .state(OrderState.PAYMENT_COMPENSATING)
-                .state(OrderState.INVENTORY_COMPENSATING)
-                .end(OrderState.ORDER_COMPLETED)
-                .end(OrderState.ORDER_FAILED);
+                .initial(definition.getInitialState())
+                .states(definition.getStates());
     }
 
     @Override
     public void configure(StateMachineTransitionConfigurer<OrderState, OrderEvent> transitions) throws Exception {
-        transitions
-                .withExternal()
-                .source(OrderState.PENDING)
-                .target(OrderState.PAYMENT_PROCESSING)
-                .event(OrderEvent.START_ORDER)
-                .action(processPaymentAction())
-
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_PROCESSING)
-                .target(OrderState.PAYMENT_COMPLETED)
-                .event(OrderEvent.PAYMENT_SUCCESS)
-                .action(reserveInventoryAction())
-
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_COMPLETED)
-                .target(OrderState.INVENTORY_RESERVED)
-                .event(OrderEvent.INVENTORY_SUCCESS)
-                .action(processShippingAction())
-
-                .and()
-                .withExternal()
-                .source(OrderState.INVENTORY_RESERVED)
-                .target(OrderState.ORDER_COMPLETED)
-                .event(OrderEvent.SHIPPING_SUCCESS)
-
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_PROCESSING)
-                .target(OrderState.ORDER_FAILED)
-                .event(OrderEvent.PAYMENT_FAILED)
-
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_COMPLETED)
-                .target(OrderState.PAYMENT_COMPENSATING)
-                .event(OrderEvent.INVENTORY_FAILED)
-                .action(compensatePaymentAction())
-
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_COMPENSATING)
-                .target(OrderState.ORDER_FAILED)
-                .event(OrderEvent.COMPENSATE_PAYMENT)
-
-                .and()
-                .withExternal()
-                .source(OrderState.INVENTORY_RESERVED)
-                .target(OrderState.INVENTORY_COMPENSATING)
-                .event(OrderEvent.SHIPPING_FAILED)
-                .action(compensateInventoryAction())
-
-                .and()
-                .withExternal()
-                .source(OrderState.INVENTORY_COMPENSATING)
-                .target(OrderState.PAYMENT_COMPENSATING)
-                .event(OrderEvent.COMPENSATE_INVENTORY)
-                .action(compensatePaymentAction());
+        for (SagaDefinition.Transition transition : orderSagaDefinition().getTransitions()) {
+            ExternalTransitionConfigurer<OrderState, OrderEvent> external = transitions
+                    .withExternal()
+                    .source(transition.source())
+                    .target(transition.target())
+                    .event(transition.event());
+            if (transition.action() != null) {
+                external.action(transition.action());
+            }
+        }
     }
 
     @Bean
@@ -135,6 +218,16 @@ public class OrderStateMachineConfig extends StateMachineConfigurerAdapter<Order
         };
     }
 
+    @Bean
+    public Action<OrderState, OrderEvent> processPaymentAndReserveInventoryAction() {
+        Action<OrderState, OrderEvent> processPayment = processPaymentAction();
+        Action<OrderState, OrderEvent> reserveInventory = reserveInventoryAction();
+        return context -> {
+            processPayment.execute(context);
+            reserveInventory.execute(context);
+        };
+    }
+
     @Bean
     public Action<OrderState, OrderEvent> processShippingAction() {
         return context -> {
@@ -0,0 +1,72 @@
+package org.codeexperts.order.controller;
+
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import org.codeexperts.order.dto.BulkOrderAcceptedResponse;
+import org.codeexperts.order.dto.CreateOrderRequest;
+import org.codeexperts.order.dto.OrderAcceptedResponse;
+import org.codeexperts.order.service.BulkIntakeException;
+import org.codeexperts.order.service.OrderIntakeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Order intake. Both endpoints answer 202 Accepted once the orders are stored and their sagas have
+ * been started; the outcome of each saga is reflected later in the order's state.
+ */
+@Validated
+@RestController
+@RequestMapping("/orders")
+public class OrderController {
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<OrderAcceptedResponse>> createOrder(
+            @Valid @RequestBody CreateOrderRequest request) {
+        return orderIntakeService.submit(request)
+                .thenApply(orderId -> ResponseEntity.accepted().body(new OrderAcceptedResponse(orderId)));
+    }
+
+    @PostMapping("/bulk")
+    public CompletableFuture<ResponseEntity<BulkOrderAcceptedResponse>> createOrders(
+            @RequestBody @NotEmpty List<@Valid @NotNull CreateOrderRequest> requests) {
+        return orderIntakeService.submitAll(requests)
+                .thenApply(orderIds -> ResponseEntity.accepted().body(new BulkOrderAcceptedResponse(orderIds)));
+    }
+
+    /**
+     * A bulk submission that failed part way still tells the caller which orders were accepted,
+     * so that only the others are resubmitted.
+     */
+    @ExceptionHandler(BulkIntakeException.class)
+    public ResponseEntity<ProblemDetail> handleBulkIntakeFailure(BulkIntakeException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        problem.setProperty("acceptedOrderIds", e.getAcceptedOrderIds());
+        return ResponseEntity.internalServerError().body(problem);
+    }
+
+    /**
+     * The bulk body is checked by method validation, which reports an empty list or an invalid
+     * order as a constraint violation; like a binding error on a single order it is a bad request.
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ProblemDetail> handleConstraintViolation(ConstraintViolationException e) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+}
@@ -0,0 +1,14 @@
+package org.codeexperts.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderAcceptedResponse {
+    private List<String> orderIds;
+}
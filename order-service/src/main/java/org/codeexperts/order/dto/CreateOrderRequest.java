@@ -0,0 +1,32 @@
+package org.codeexperts.order.dto;
+
+import com.codeexpert.common.model.OrderItem;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateOrderRequest {
+
+    @NotBlank
+    private String customerId;
+
+    @NotNull
+    @DecimalMin(value = "0.00", inclusive = false)
+    private BigDecimal amount;
+
+    @NotEmpty
+    private List<@Valid @NotNull OrderItem> items;
+}
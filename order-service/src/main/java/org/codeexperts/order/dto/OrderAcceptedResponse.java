@@ -0,0 +1,12 @@
+package org.codeexperts.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAcceptedResponse {
+    private String orderId;
+}
@@ -1,21 +1,31 @@
 package org.codeexperts.order.entity;
 
 import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.codeexperts.order.model.OrderState;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 
+/**
+ * An order as accepted by the intake API. The id is assigned by the service, so the entity tracks
+ * whether it has been stored yet; otherwise {@code save} would merge and select every new order
+ * before inserting it, and bulk intake could not batch its inserts. The table is created by
+ * {@link org.codeexperts.order.persistence.OrderStatusWriter}, not by JPA.
+ */
 @Getter
 @Setter
 @Entity
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @Table(name = "ORDERS")
-public class OrderEntity {
+public class OrderEntity implements Persistable<String> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private String id;
     private String customerId;
     private BigDecimal amount;
@@ -24,4 +34,19 @@ public class OrderEntity {
 
     @Enumerated(EnumType.STRING)
     private OrderState state;
+
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
@@ -0,0 +1,45 @@
+package org.codeexperts.order.entity;
+
+import com.codeexpert.common.model.OrderItem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * Stores an order's line items as a JSON array in a single text column.
+ */
+@Converter
+public class OrderItemsConverter implements AttributeConverter<List<OrderItem>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<OrderItem>> ITEMS_TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<OrderItem> items) {
+        if (items == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize order items", e);
+        }
+    }
+
+    @Override
+    public List<OrderItem> convertToEntityAttribute(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, ITEMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to deserialize order items", e);
+        }
+    }
+}
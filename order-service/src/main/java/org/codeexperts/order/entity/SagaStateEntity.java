@@ -0,0 +1,47 @@
+package org.codeexperts.order.entity;
+
+import com.codeexpert.common.model.OrderItem;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.codeexperts.order.model.OrderState;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Last known state of a saga together with the transaction IDs collected so far.
+ * Written in batches by {@link org.codeexperts.order.persistence.SagaStateWriter} and read back on startup
+ * to resume in-flight sagas. The table is created by the writer, not by JPA.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "SAGA_STATE")
+public class SagaStateEntity {
+    @Id
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    private OrderState state;
+
+    private String customerId;
+    private BigDecimal amount;
+
+    @Convert(converter = OrderItemsConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<OrderItem> items;
+
+    private String paymentTransactionId;
+    private String inventoryTransactionId;
+    private String shippingTransactionId;
+    private String errorMessage;
+    private Instant updatedAt;
+}
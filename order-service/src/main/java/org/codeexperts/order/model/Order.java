@@ -19,5 +19,8 @@ public class Order {
     private String shippingTransactionId;
 
     private String errorMessage;
+
+    // Monotonic nanos of intake and of the last transition, for latency metrics
     private long startTime;
+    private long stepStartTime;
 }
@@ -12,6 +12,16 @@ public enum OrderState {
 
     INVENTORY_RESERVED,      // Inventory DB committed
 
+    PAYMENT_AND_INVENTORY_PROCESSING,        // Parallel shape: both requested, neither answered
+
+    PAYMENT_COMPLETED_INVENTORY_PROCESSING,  // Parallel shape: payment done, inventory outstanding
+
+    INVENTORY_RESERVED_PAYMENT_PROCESSING,   // Parallel shape: inventory done, payment outstanding
+
+    PAYMENT_FAILED_INVENTORY_PROCESSING,     // Parallel shape: payment failed, awaiting inventory to undo it
+
+    INVENTORY_FAILED_PAYMENT_PROCESSING,     // Parallel shape: inventory failed, awaiting payment to undo it
+
     SHIPPING_PROCESSING,     // Local transaction in Shipping DB
 
     ORDER_COMPLETED,         // All distributed transactions completed
@@ -20,5 +30,7 @@ public enum OrderState {
 
     INVENTORY_COMPENSATING,  // Undo inventory transaction
 
+    INVENTORY_RELEASING,     // Undo inventory transaction, no payment to refund
+
     ORDER_FAILED;            // Distributed transaction failed
 }
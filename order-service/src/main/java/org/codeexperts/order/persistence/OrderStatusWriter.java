@@ -0,0 +1,74 @@
+package org.codeexperts.order.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Applies order status changes to {@code ORDERS} as batched single-column updates.
+ * <p>
+ * Changes are coalesced per order in a {@link WriteBehindQueue}, so only the latest status of an
+ * order is written, and each flush is one batched {@code UPDATE ORDERS SET state = ? WHERE id = ?}
+ * in a single transaction. Orders without a row are skipped, as before. The table is created here
+ * if missing; orders are inserted through {@link org.codeexperts.order.entity.OrderEntity}.
+ */
+@Component
+public class OrderStatusWriter {
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS ORDERS ("
+            + "id VARCHAR(255) NOT NULL PRIMARY KEY, "
+            + "customer_id VARCHAR(255), "
+            + "amount NUMERIC(38, 2), "
+            + "product_id VARCHAR(255), "
+            + "quantity INTEGER, "
+            + "state VARCHAR(255))";
+    private static final String UPDATE_SQL = "UPDATE ORDERS SET state = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindQueue<String, StatusChange> queue;
+
+    @Autowired
+    public OrderStatusWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${order.status.batch-size:500}") int batchSize,
+            @Value("${order.status.flush-interval-ms:50}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new WriteBehindQueue<>("order-status", batchSize, flushIntervalMillis, this::write);
+    }
+
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_SQL);
+    }
+
+    public void enqueue(String orderId, OrderState state) {
+        queue.put(orderId, new StatusChange(orderId, state));
+    }
+
+    @PreDestroy
+    public void close() {
+        queue.close();
+    }
+
+    void write(List<StatusChange> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, change) -> {
+                    ps.setString(1, change.state().name());
+                    ps.setString(2, change.orderId());
+                }));
+    }
+
+    record StatusChange(String orderId, OrderState state) {
+    }
+}
@@ -0,0 +1,137 @@
+package org.codeexperts.order.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.codeexperts.order.entity.OrderItemsConverter;
+import org.codeexperts.order.entity.SagaStateEntity;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists saga progress to {@code SAGA_STATE} without a database round trip per transition.
+ * <p>
+ * Snapshots are coalesced per orderId in a {@link WriteBehindQueue} and group-committed: each
+ * flush runs one batched UPDATE for the whole batch, then one batched INSERT for the sagas that had
+ * no row yet, in a single transaction. A crash loses at most the last flush interval of progress.
+ * The table is created here if missing, like the outbox and processed-command tables; it is read
+ * back through {@link SagaStateEntity}.
+ */
+@Component
+public class SagaStateWriter {
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS SAGA_STATE ("
+            + "order_id VARCHAR(255) NOT NULL PRIMARY KEY, "
+            + "state VARCHAR(255) NOT NULL, "
+            + "customer_id VARCHAR(255), "
+            + "amount NUMERIC(38, 2), "
+            + "items TEXT, "
+            + "payment_transaction_id VARCHAR(255), "
+            + "inventory_transaction_id VARCHAR(255), "
+            + "shipping_transaction_id VARCHAR(255), "
+            + "error_message VARCHAR(255), "
+            + "updated_at TIMESTAMP WITH TIME ZONE)";
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS IDX_SAGA_STATE_STATE ON SAGA_STATE (state)";
+
+    private static final String UPDATE_SQL = "UPDATE SAGA_STATE SET state = ?, customer_id = ?, amount = ?, items = ?, "
+            + "payment_transaction_id = ?, inventory_transaction_id = ?, shipping_transaction_id = ?, "
+            + "error_message = ?, updated_at = ? WHERE order_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO SAGA_STATE (state, customer_id, amount, items, "
+            + "payment_transaction_id, inventory_transaction_id, shipping_transaction_id, "
+            + "error_message, updated_at, order_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderItemsConverter itemsConverter = new OrderItemsConverter();
+    private final WriteBehindQueue<String, SagaStateEntity> queue;
+
+    @Autowired
+    public SagaStateWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${saga.persistence.batch-size:500}") int batchSize,
+            @Value("${saga.persistence.flush-interval-ms:50}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new WriteBehindQueue<>("saga-state", batchSize, flushIntervalMillis, this::write);
+    }
+
+    @PostConstruct
+    public void createTableIfMissing() {
+        jdbcTemplate.execute(CREATE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+    }
+
+    /**
+     * Queues a snapshot of the saga in the given state. The order is copied immediately, so later
+     * changes to it are only persisted by a later call.
+     */
+    public void enqueue(Order order, OrderState state) {
+        SagaStateEntity snapshot = SagaStateEntity.builder()
+                .orderId(order.getOrderId())
+                .state(state)
+                .customerId(order.getCustomerId())
+                .amount(order.getAmount())
+                .items(order.getItems())
+                .paymentTransactionId(order.getPaymentTransactionId())
+                .inventoryTransactionId(order.getInventoryTransactionId())
+                .shippingTransactionId(order.getShippingTransactionId())
+                .errorMessage(order.getErrorMessage())
+                .updatedAt(Instant.now())
+                .build();
+        queue.put(order.getOrderId(), snapshot);
+    }
+
+    @PreDestroy
+    public void close() {
+        queue.close();
+    }
+
+    private void write(List<SagaStateEntity> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), this::bind);
+
+            List<SagaStateEntity> missing = new ArrayList<>();
+            int index = 0;
+            for (int[] counts : updated) {
+                for (int count : counts) {
+                    if (count == 0) {
+                        missing.add(batch.get(index));
+                    }
+                    index++;
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), this::bind);
+            }
+        });
+    }
+
+    private void bind(PreparedStatement ps, SagaStateEntity saga) throws SQLException {
+        ps.setString(1, saga.getState().name());
+        ps.setString(2, saga.getCustomerId());
+        ps.setBigDecimal(3, saga.getAmount());
+        ps.setString(4, itemsConverter.convertToDatabaseColumn(saga.getItems()));
+        ps.setString(5, saga.getPaymentTransactionId());
+        ps.setString(6, saga.getInventoryTransactionId());
+        ps.setString(7, saga.getShippingTransactionId());
+        ps.setString(8, saga.getErrorMessage());
+        ps.setTimestamp(9, Timestamp.from(saga.getUpdatedAt()));
+        ps.setString(10, saga.getOrderId());
+    }
+}
@@ -0,0 +1,121 @@
+package org.codeexperts.order.persistence;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Coalescing write-behind buffer drained by a single background thread.
+ * <p>
+ * Callers {@link #put(Object, Object)} the latest value for a key and return immediately; a newer
+ * value replaces a pending one, so a key that changes many times between flushes is written once.
+ * The flusher hands pending values to the writer in batches of up to {@code batchSize}, as soon as
+ * that many are pending or every {@code flushIntervalMillis} otherwise. A batch the writer fails on
+ * is re-queued (unless superseded by a newer value) and retried on the next interval.
+ */
+@Log4j2
+public class WriteBehindQueue<K, V> implements AutoCloseable {
+
+    private final String name;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Consumer<List<V>> writer;
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(String name, int batchSize, long flushIntervalMillis, Consumer<List<V>> writer) {
+        this.name = name;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.writer = writer;
+        this.flusher = new Thread(this::run, "write-behind-" + name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public void put(K key, V value) {
+        pending.put(key, value);
+        if (pending.size() >= batchSize) {
+            synchronized (signal) {
+                signal.notify();
+            }
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the flusher after writing everything still pending.
+     */
+    @Override
+    public void close() {
+        running = false;
+        synchronized (signal) {
+            signal.notify();
+        }
+        try {
+            flusher.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Write-behind queue '{}' closed with {} unwritten entries", name, pending.size());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            synchronized (signal) {
+                if (running && pending.size() < batchSize) {
+                    try {
+                        signal.wait(flushIntervalMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            flushPending();
+        }
+        flushPending();
+    }
+
+    private void flushPending() {
+        while (!pending.isEmpty()) {
+            List<K> keys = new ArrayList<>(batchSize);
+            List<V> values = new ArrayList<>(batchSize);
+            Iterator<Map.Entry<K, V>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && values.size() < batchSize) {
+                Map.Entry<K, V> entry = iterator.next();
+                K key = entry.getKey();
+                V value = entry.getValue();
+                if (pending.remove(key, value)) {
+                    keys.add(key);
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                return;
+            }
+
+            try {
+                writer.accept(values);
+            } catch (Exception e) {
+                log.error("Write-behind queue '{}' failed to write {} entries, retrying later", name, values.size(), e);
+                for (int i = 0; i < keys.size(); i++) {
+                    pending.putIfAbsent(keys.get(i), values.get(i));
+                }
+                return;
+            }
+        }
+    }
+}
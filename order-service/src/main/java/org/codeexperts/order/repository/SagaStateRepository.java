@@ -0,0 +1,15 @@
+package org.codeexperts.order.repository;
+
+import org.codeexperts.order.entity.SagaStateEntity;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SagaStateRepository extends JpaRepository<SagaStateEntity, String> {
+
+    List<SagaStateEntity> findByStateNotIn(Collection<OrderState> states);
+}
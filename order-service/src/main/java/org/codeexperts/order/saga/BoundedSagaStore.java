@@ -0,0 +1,159 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.model.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link SagaStore} that never evicts in-flight sagas and bounds terminal ones by count and age.
+ * <p>
+ * Terminal sagas are kept for {@code saga.store.terminal-ttl-ms} so late or duplicate events can
+ * still be matched to their saga, and at most {@code saga.store.max-terminal} of them are retained;
+ * the oldest are evicted first. Because every terminal entry gets the same TTL, completion order is
+ * also expiry order and a FIFO queue is enough to find eviction candidates. An entry is counted as
+ * terminal from the moment it is marked until it leaves the map, by eviction or by a restart of
+ * its saga, so marking it again or re-putting the order does not skew the count.
+ * <p>
+ * Exposes {@code saga.store.requests} (hit/miss), {@code saga.store.evictions} (expired/size) and
+ * the {@code saga.store.size} gauge split by in-flight and terminal entries.
+ */
+@Log4j2
+@Component
+public class BoundedSagaStore implements SagaStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> terminalEntries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger terminalCount = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long terminalTtlMillis;
+    private final int maxTerminal;
+    private final LongSupplier clock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+
+    @Autowired
+    public BoundedSagaStore(
+            MeterRegistry meterRegistry,
+            @Value("${saga.store.terminal-ttl-ms:30000}") long terminalTtlMillis,
+            @Value("${saga.store.max-terminal:10000}") int maxTerminal) {
+        this(meterRegistry, terminalTtlMillis, maxTerminal, System::currentTimeMillis);
+    }
+
+    BoundedSagaStore(MeterRegistry meterRegistry, long terminalTtlMillis, int maxTerminal, LongSupplier clock) {
+        this.terminalTtlMillis = terminalTtlMillis;
+        this.maxTerminal = maxTerminal;
+        this.clock = clock;
+
+        this.hits = Counter.builder("saga.store.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("saga.store.requests").tag("result", "miss").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("saga.store.evictions").tag("cause", "expired").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("saga.store.evictions").tag("cause", "size").register(meterRegistry);
+        Gauge.builder("saga.store.size", this, store -> store.size() - store.terminalCount.get())
+                .tag("state", "in_flight")
+                .register(meterRegistry);
+        Gauge.builder("saga.store.size", terminalCount, AtomicInteger::get)
+                .tag("state", "terminal")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void put(Order order) {
+        entries.compute(order.getOrderId(), (orderId, previous) -> {
+            if (previous != null && previous.expiresAt != 0) {
+                // a restarted saga replaces its terminal entry, which stays queued until evict() drops it
+                terminalCount.decrementAndGet();
+            }
+            return new Entry(orderId, order);
+        });
+    }
+
+    @Override
+    public Order get(String orderId) {
+        Entry entry = entries.get(orderId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.order;
+    }
+
+    @Override
+    public void markTerminal(String orderId) {
+        entries.computeIfPresent(orderId, (id, entry) -> {
+            if (entry.expiresAt == 0) {
+                entry.expiresAt = clock.getAsLong() + terminalTtlMillis;
+                terminalEntries.add(entry);
+                terminalCount.incrementAndGet();
+            }
+            return entry;
+        });
+        evict();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops terminal sagas past their TTL or beyond the retention bound. Runs on every
+     * {@link #markTerminal(String)} and periodically so expiry also happens when traffic stops.
+     */
+    @Scheduled(fixedDelayString = "${saga.store.sweep-interval-ms:1000}")
+    public void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            Entry head;
+            while ((head = terminalEntries.peek()) != null) {
+                if (entries.get(head.orderId) != head) {
+                    terminalEntries.poll();
+                    continue;
+                }
+                boolean expired = head.expiresAt <= now;
+                if (!expired && terminalCount.get() <= maxTerminal) {
+                    break;
+                }
+                terminalEntries.poll();
+                if (entries.remove(head.orderId, head)) {
+                    terminalCount.decrementAndGet();
+                    (expired ? expiredEvictions : sizeEvictions).increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final String orderId;
+        private final Order order;
+        private volatile long expiresAt;
+
+        private Entry(String orderId, Order order) {
+            this.orderId = orderId;
+            this.order = order;
+        }
+    }
+}
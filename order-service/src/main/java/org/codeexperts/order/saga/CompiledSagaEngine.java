@@ -0,0 +1,202 @@
+package org.codeexperts.order.saga;
+
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.statemachine.ExtendedState;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.state.State;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.transition.Transition;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table-driven {@link SagaEngine} for the hot path.
+ * <p>
+ * The {@link SagaDefinition} is compiled once into dense {@code [state][event]} target and action
+ * tables indexed by enum ordinal. Firing an event is two array reads and, when the transition has
+ * one, a call to the same {@link Action} bean Spring Statemachine would run; no listeners,
+ * interceptors, reactive pipeline or per-event objects are involved.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "saga.engine", havingValue = "compiled")
+public class CompiledSagaEngine implements SagaEngine {
+
+    private static final int EVENT_COUNT = OrderEvent.values().length;
+
+    private final OrderState initialState;
+    private final OrderState[] targets;
+    private final List<Action<OrderState, OrderEvent>> actions;
+    private final Map<String, Saga> sagas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CompiledSagaEngine(SagaDefinition definition) {
+        int size = OrderState.values().length * EVENT_COUNT;
+        this.initialState = definition.getInitialState();
+        this.targets = new OrderState[size];
+        this.actions = new ArrayList<>(Collections.nCopies(size, null));
+
+        for (SagaDefinition.Transition transition : definition.getTransitions()) {
+            int index = index(transition.source(), transition.event());
+            targets[index] = transition.target();
+            actions.set(index, transition.action());
+        }
+    }
+
+    @Override
+    public void start(Order order) {
+        Saga saga = new Saga(initialState);
+        saga.extendedState.getVariables().put("order", order);
+        sagas.put(order.getOrderId(), saga);
+    }
+
+    @Override
+    public void restore(Order order, OrderState state) {
+        Saga saga = new Saga(state);
+        saga.extendedState.getVariables().put("order", order);
+        sagas.put(order.getOrderId(), saga);
+    }
+
+    @Override
+    public OrderState sendEvent(String orderId, OrderEvent event) {
+        Saga saga = sagas.get(orderId);
+        if (saga == null) {
+            return null;
+        }
+
+        synchronized (saga) {
+            int index = index(saga.state, event);
+            OrderState target = targets[index];
+            if (target == null) {
+                log.debug("Saga {} in state {} does not accept {}", orderId, saga.state, event);
+                return saga.state;
+            }
+
+            Action<OrderState, OrderEvent> action = actions.get(index);
+            if (action != null) {
+                saga.event = event;
+                try {
+                    action.execute(saga);
+                } catch (Exception e) {
+                    log.error("Action for {} -> {} failed for saga {}", saga.state, target, orderId, e);
+                    return saga.state;
+                } finally {
+                    saga.event = null;
+                }
+            }
+
+            saga.state = target;
+            return target;
+        }
+    }
+
+    @Override
+    public OrderState getState(String orderId) {
+        Saga saga = sagas.get(orderId);
+        return saga != null ? saga.state : null;
+    }
+
+    @Override
+    public void release(String orderId) {
+        sagas.remove(orderId);
+    }
+
+    private static int index(OrderState state, OrderEvent event) {
+        return state.ordinal() * EVENT_COUNT + event.ordinal();
+    }
+
+    /**
+     * One running saga. It doubles as the {@link StateContext} handed to actions so a transition
+     * does not allocate; only the extended state and the triggering event are populated.
+     */
+    private static final class Saga implements StateContext<OrderState, OrderEvent> {
+
+        private final ExtendedState extendedState = new DefaultExtendedState();
+        private volatile OrderState state;
+        private OrderEvent event;
+
+        private Saga(OrderState state) {
+            this.state = state;
+        }
+
+        @Override
+        public Stage getStage() {
+            return Stage.TRANSITION;
+        }
+
+        @Override
+        public Message<OrderEvent> getMessage() {
+            return null;
+        }
+
+        @Override
+        public OrderEvent getEvent() {
+            return event;
+        }
+
+        @Override
+        public MessageHeaders getMessageHeaders() {
+            return null;
+        }
+
+        @Override
+        public Object getMessageHeader(Object header) {
+            return null;
+        }
+
+        @Override
+        public ExtendedState getExtendedState() {
+            return extendedState;
+        }
+
+        @Override
+        public Transition<OrderState, OrderEvent> getTransition() {
+            return null;
+        }
+
+        @Override
+        public StateMachine<OrderState, OrderEvent> getStateMachine() {
+            return null;
+        }
+
+        @Override
+        public State<OrderState, OrderEvent> getSource() {
+            return null;
+        }
+
+        @Override
+        public Collection<State<OrderState, OrderEvent>> getSources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public State<OrderState, OrderEvent> getTarget() {
+            return null;
+        }
+
+        @Override
+        public Collection<State<OrderState, OrderEvent>> getTargets() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Exception getException() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.codeexperts.order.saga;
+
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.statemachine.action.Action;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Engine-neutral description of the order saga: its initial and end states and the
+ * {@code (source, event) -> (target, action)} transitions between them, plus the deadlines after
+ * which a saga waiting in a state is failed with a given event.
+ * <p>
+ * Both the Spring Statemachine configuration and the {@link CompiledSagaEngine} are built from
+ * the same definition, so the two engines cannot drift apart.
+ */
+public final class SagaDefinition {
+
+    public record Transition(
+            OrderState source,
+            OrderEvent event,
+            OrderState target,
+            Action<OrderState, OrderEvent> action) {
+    }
+
+    /**
+     * Fails sagas waiting in {@code state} with {@code event} once {@code timeout} has passed since
+     * they entered {@code since}, which is {@code state} itself unless the deadline belongs to a
+     * branch requested earlier, in a fork state.
+     */
+    public record Deadline(OrderState state, Duration timeout, OrderEvent event, OrderState since) {
+    }
+
+    private static final int EVENT_COUNT = OrderEvent.values().length;
+
+    private final OrderState initialState;
+    private final Set<OrderState> endStates;
+    private final List<Transition> transitions;
+    private final Map<OrderState, Deadline> deadlines;
+    private final boolean[] accepted;
+
+    private SagaDefinition(OrderState initialState, Set<OrderState> endStates, List<Transition> transitions,
+                           Map<OrderState, Deadline> deadlines) {
+        this.initialState = initialState;
+        this.endStates = Collections.unmodifiableSet(endStates);
+        this.transitions = Collections.unmodifiableList(transitions);
+        this.deadlines = Collections.unmodifiableMap(deadlines);
+        this.accepted = new boolean[OrderState.values().length * EVENT_COUNT];
+        for (Transition transition : transitions) {
+            accepted[transition.source().ordinal() * EVENT_COUNT + transition.event().ordinal()] = true;
+        }
+    }
+
+    public static Builder builder(OrderState initialState) {
+        return new Builder(initialState);
+    }
+
+    public OrderState getInitialState() {
+        return initialState;
+    }
+
+    public Set<OrderState> getStates() {
+        return Collections.unmodifiableSet(EnumSet.allOf(OrderState.class));
+    }
+
+    public Set<OrderState> getEndStates() {
+        return endStates;
+    }
+
+    public boolean isEndState(OrderState state) {
+        return endStates.contains(state);
+    }
+
+    public List<Transition> getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * Returns whether a saga in {@code state} has a transition for {@code event}, with one array
+     * read. A {@code null} state, for a saga that no longer runs, accepts nothing.
+     */
+    public boolean accepts(OrderState state, OrderEvent event) {
+        return state != null && accepted[state.ordinal() * EVENT_COUNT + event.ordinal()];
+    }
+
+    /**
+     * Returns the deadline for sagas waiting in the given state, or {@code null} if they may wait
+     * indefinitely.
+     */
+    public Deadline getDeadline(OrderState state) {
+        return deadlines.get(state);
+    }
+
+    public static final class Builder {
+
+        private final OrderState initialState;
+        private final Set<OrderState> endStates = EnumSet.noneOf(OrderState.class);
+        private final List<Transition> transitions = new ArrayList<>();
+        private final Map<OrderState, Deadline> deadlines = new EnumMap<>(OrderState.class);
+
+        private Builder(OrderState initialState) {
+            this.initialState = initialState;
+        }
+
+        public Builder end(OrderState state) {
+            endStates.add(state);
+            return this;
+        }
+
+        public Builder transition(OrderState source, OrderEvent event, OrderState target) {
+            return transition(source, event, target, null);
+        }
+
+        public Builder transition(OrderState source, OrderEvent event, OrderState target,
+                                  Action<OrderState, OrderEvent> action) {
+            for (Transition existing : transitions) {
+                if (existing.source() == source && existing.event() == event) {
+                    throw new IllegalStateException("Duplicate transition for " + source + " on " + event);
+                }
+            }
+            transitions.add(new Transition(source, event, target, action));
+            return this;
+        }
+
+        /**
+         * Fails sagas that stay in {@code state} for longer than {@code timeout} by sending
+         * {@code event}, which must be a transition out of that state.
+         */
+        public Builder deadline(OrderState state, Duration timeout, OrderEvent event) {
+            return deadline(state, timeout, event, state);
+        }
+
+        /**
+         * Like {@link #deadline(OrderState, Duration, OrderEvent)}, but {@code timeout} counts from
+         * when the saga entered {@code since}, for a branch still outstanding after a fork. Sagas
+         * that reach {@code state} without passing through {@code since} count from entering
+         * {@code state}.
+         */
+        public Builder deadline(OrderState state, Duration timeout, OrderEvent event, OrderState since) {
+            deadlines.put(state, new Deadline(state, timeout, event, since));
+            return this;
+        }
+
+        public SagaDefinition build() {
+            for (Deadline deadline : deadlines.values()) {
+                boolean handled = transitions.stream()
+                        .anyMatch(t -> t.source() == deadline.state() && t.event() == deadline.event());
+                if (!handled) {
+                    throw new IllegalStateException("No transition for deadline event " + deadline.event()
+                            + " in " + deadline.state());
+                }
+            }
+            return new SagaDefinition(initialState, endStates, transitions, deadlines);
+        }
+    }
+}
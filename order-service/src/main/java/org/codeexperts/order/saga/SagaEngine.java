@@ -0,0 +1,43 @@
+package org.codeexperts.order.saga;
+
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+
+/**
+ * Runs the order saga described by {@link SagaDefinition}, one independent instance per orderId.
+ * <p>
+ * The implementation is selected with the {@code saga.engine} property: {@code spring} (default)
+ * for Spring Statemachine, {@code compiled} for the table-driven {@link CompiledSagaEngine}.
+ */
+public interface SagaEngine {
+
+    /**
+     * Creates the saga instance for the order in its initial state and binds the order to it as
+     * the {@code "order"} extended-state variable read by the saga actions.
+     */
+    void start(Order order);
+
+    /**
+     * Recreates the saga instance for the order directly in the given state, without running any
+     * actions. Used to resume persisted sagas after a restart.
+     */
+    void restore(Order order, OrderState state);
+
+    /**
+     * Fires an event at the saga, running the transition action if the current state accepts it.
+     *
+     * @return the saga state after the event, or {@code null} if no saga exists for the orderId
+     */
+    OrderState sendEvent(String orderId, OrderEvent event);
+
+    /**
+     * @return the current saga state, or {@code null} if no saga exists for the orderId
+     */
+    OrderState getState(String orderId);
+
+    /**
+     * Discards the saga instance, typically once it has reached an end state.
+     */
+    void release(String orderId);
+}
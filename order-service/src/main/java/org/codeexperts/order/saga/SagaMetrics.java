@@ -0,0 +1,132 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for saga steps, built on {@link Order#getStartTime()} and
+ * {@link Order#getStepStartTime()}.
+ * <p>
+ * {@code saga.step} records how long a saga waited in a state before an event moved it on, tagged
+ * with that {@code state} and the {@code event}; since every waiting state belongs to one
+ * participant, this separates intake, payment, inventory and shipping round trips as well as the
+ * compensation steps, and the event tag splits them by success or failure. {@code saga.duration}
+ * records intake to end state, tagged with the end state as {@code outcome}. Both publish p50, p99
+ * and p999 plus a percentile histogram for Prometheus. {@code saga.events.rejected} counts replies
+ * dropped because the saga's state has no transition for them, tagged with the {@code state}
+ * ({@code NONE} once the saga has ended) and the {@code event}.
+ * <p>
+ * Times come from the registry's monotonic clock. Sagas recovered after a restart have no start
+ * time; their steps are measured from recovery and their total is not recorded.
+ */
+@Component
+public class SagaMetrics {
+
+    private static final int EVENT_COUNT = OrderEvent.values().length;
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(2);
+
+    private final SagaDefinition sagaDefinition;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Timer[] stepTimers = new Timer[OrderState.values().length * EVENT_COUNT];
+    private final Timer[] durationTimers = new Timer[OrderState.values().length];
+    private final Counter[] rejectedCounters = new Counter[(OrderState.values().length + 1) * EVENT_COUNT];
+
+    @Autowired
+    public SagaMetrics(SagaDefinition sagaDefinition, MeterRegistry meterRegistry) {
+        this.sagaDefinition = sagaDefinition;
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+    }
+
+    /**
+     * Marks the saga as received now, unless intake already did.
+     */
+    public void sagaStarted(Order order) {
+        if (order.getStartTime() == 0) {
+            order.setStartTime(clock.monotonicTime());
+        }
+        order.setStepStartTime(order.getStartTime());
+    }
+
+    public void sagaRecovered(Order order) {
+        order.setStartTime(0);
+        order.setStepStartTime(clock.monotonicTime());
+    }
+
+    /**
+     * Records the step that ended with {@code event} moving the saga from {@code source} to
+     * {@code target}, and the whole saga if {@code target} is an end state.
+     */
+    public void transition(Order order, OrderState source, OrderEvent event, OrderState target) {
+        long now = clock.monotonicTime();
+        stepTimer(source, event).record(now - order.getStepStartTime(), TimeUnit.NANOSECONDS);
+        order.setStepStartTime(now);
+
+        if (sagaDefinition.isEndState(target) && order.getStartTime() != 0) {
+            durationTimer(target).record(now - order.getStartTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Counts an event the saga was not waiting for, typically a duplicate or late reply.
+     * {@code state} is {@code null} if the saga no longer runs.
+     */
+    public void eventRejected(OrderState state, OrderEvent event) {
+        int index = (state != null ? state.ordinal() + 1 : 0) * EVENT_COUNT + event.ordinal();
+        Counter counter = rejectedCounters[index];
+        if (counter == null) {
+            counter = Counter.builder("saga.events.rejected")
+                    .description("Events dropped because the saga was not waiting for them")
+                    .tag("state", state != null ? state.name() : "NONE")
+                    .tag("event", event.name())
+                    .register(meterRegistry);
+            rejectedCounters[index] = counter;
+        }
+        counter.increment();
+    }
+
+    private Timer stepTimer(OrderState state, OrderEvent event) {
+        int index = state.ordinal() * EVENT_COUNT + event.ordinal();
+        Timer timer = stepTimers[index];
+        if (timer == null) {
+            timer = histogram(Timer.builder("saga.step")
+                    .description("Time a saga waited in a state before an event moved it on")
+                    .tag("state", state.name())
+                    .tag("event", event.name()));
+            stepTimers[index] = timer;
+        }
+        return timer;
+    }
+
+    private Timer durationTimer(OrderState outcome) {
+        Timer timer = durationTimers[outcome.ordinal()];
+        if (timer == null) {
+            timer = histogram(Timer.builder("saga.duration")
+                    .description("Time from order intake to the end of its saga")
+                    .tag("outcome", outcome.name()));
+            durationTimers[outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    private Timer histogram(Timer.Builder builder) {
+        return builder
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package org.codeexperts.order.saga;
+
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one state machine per saga, keyed by orderId.
+ * <p>
+ * Building a machine from the {@link StateMachineFactory} is expensive, so machines of finished
+ * sagas are stopped, reset to the initial state and parked in a bounded idle queue for the next
+ * saga. When the idle queue is full the released machine is simply dropped.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "saga.engine", havingValue = "spring", matchIfMissing = true)
+public class SagaStateMachinePool {
+
+    private final StateMachineFactory<OrderState, OrderEvent> stateMachineFactory;
+    private final BlockingQueue<StateMachine<OrderState, OrderEvent>> idleMachines;
+    private final Map<String, StateMachine<OrderState, OrderEvent>> activeMachines = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SagaStateMachinePool(
+            StateMachineFactory<OrderState, OrderEvent> stateMachineFactory,
+            @Value("${saga.state-machine.pool.max-idle:256}") int maxIdle) {
+        this.stateMachineFactory = stateMachineFactory;
+        this.idleMachines = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns the started state machine bound to the given saga, taking one from the idle queue
+     * (or building a new one) on first use.
+     */
+    public StateMachine<OrderState, OrderEvent> acquire(String orderId) {
+        return activeMachines.computeIfAbsent(orderId, id -> {
+            StateMachine<OrderState, OrderEvent> stateMachine = idleMachines.poll();
+            if (stateMachine == null) {
+                stateMachine = stateMachineFactory.getStateMachine();
+            }
+            stateMachine.startReactively().block();
+            return stateMachine;
+        });
+    }
+
+    /**
+     * Returns the state machine bound to the given saga, or {@code null} if the saga is unknown.
+     */
+    public StateMachine<OrderState, OrderEvent> get(String orderId) {
+        return activeMachines.get(orderId);
+    }
+
+    /**
+     * Unbinds the state machine from a finished saga and recycles it.
+     */
+    public void release(String orderId) {
+        StateMachine<OrderState, OrderEvent> stateMachine = activeMachines.remove(orderId);
+        if (stateMachine == null) {
+            return;
+        }
+
+        try {
+            stateMachine.stopReactively().block();
+            stateMachine.getStateMachineAccessor()
+                    .doWithAllRegions(access -> access.resetStateMachineReactively(null).block());
+            stateMachine.getExtendedState().getVariables().clear();
+        } catch (Exception e) {
+            log.warn("Discarding state machine of saga {} that failed to reset: {}", orderId, e.getMessage());
+            return;
+        }
+
+        if (!idleMachines.offer(stateMachine)) {
+            log.debug("Idle state machine pool is full, dropping machine of saga {}", orderId);
+        }
+    }
+
+    public int activeCount() {
+        return activeMachines.size();
+    }
+
+    public int idleCount() {
+        return idleMachines.size();
+    }
+}
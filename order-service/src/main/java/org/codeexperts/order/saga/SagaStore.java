@@ -0,0 +1,29 @@
+package org.codeexperts.order.saga;
+
+import org.codeexperts.order.model.Order;
+
+/**
+ * Holds the {@link Order} data of sagas by orderId.
+ * <p>
+ * Sagas are pinned while in flight and become evictable once {@link #markTerminal(String)} has
+ * been called for them.
+ */
+public interface SagaStore {
+
+    /**
+     * Stores (or replaces) an in-flight saga; it will not be evicted until marked terminal.
+     */
+    void put(Order order);
+
+    /**
+     * @return the saga's order data, or {@code null} if unknown or already evicted
+     */
+    Order get(String orderId);
+
+    /**
+     * Records that the saga reached an end state, making it eligible for eviction.
+     */
+    void markTerminal(String orderId);
+
+    int size();
+}
@@ -0,0 +1,142 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the {@link SagaDefinition.Deadline} of the state each in-flight saga is waiting in.
+ * <p>
+ * Every saga has at most one pending timer, held in a {@link TimingWheel} so that scheduling and
+ * cancelling stay O(1) however many sagas are in flight. Entering a new state replaces the timer;
+ * entering a state without a deadline, or an end state, just cancels it. A deadline counted from
+ * an earlier state keeps the start time of the timer it replaces if that one counted from the same
+ * state, so the branches of a fork are timed from the fork. When a timer expires the registered
+ * handler is called with the saga and the deadline so it can send the failure event.
+ * <p>
+ * Exposes {@code saga.timeouts} (expired deadlines, by state) and the {@code saga.timeouts.pending}
+ * gauge.
+ */
+@Log4j2
+@Component
+public class SagaTimeoutScheduler {
+
+    private final SagaDefinition sagaDefinition;
+    private final LongSupplier clock;
+    private final TimingWheel<Pending> wheel;
+    private final Map<String, TimingWheel.Timer<Pending>> timers = new ConcurrentHashMap<>();
+    private final Map<OrderState, Counter> expirations = new EnumMap<>(OrderState.class);
+    private volatile BiConsumer<String, SagaDefinition.Deadline> expiryHandler = (orderId, deadline) -> { };
+
+    @Autowired
+    public SagaTimeoutScheduler(
+            SagaDefinition sagaDefinition,
+            MeterRegistry meterRegistry,
+            @Value("${saga.timeout.tick-ms:100}") long tickMillis) {
+        this(sagaDefinition, meterRegistry, tickMillis, System::currentTimeMillis);
+    }
+
+    SagaTimeoutScheduler(SagaDefinition sagaDefinition, MeterRegistry meterRegistry, long tickMillis,
+                         LongSupplier clock) {
+        this.sagaDefinition = sagaDefinition;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, clock.getAsLong());
+
+        for (OrderState state : sagaDefinition.getStates()) {
+            if (sagaDefinition.getDeadline(state) != null) {
+                expirations.put(state, Counter.builder("saga.timeouts")
+                        .tag("state", state.name())
+                        .register(meterRegistry));
+            }
+        }
+        Gauge.builder("saga.timeouts.pending", timers, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Sets the callback for expired deadlines. It runs on the scheduler thread.
+     */
+    public void onExpiry(BiConsumer<String, SagaDefinition.Deadline> handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Starts the deadline of {@code state} for the saga, replacing the timer of its previous state.
+     * Re-entering the state the saga is already timed in keeps the running deadline.
+     */
+    public void stateEntered(String orderId, OrderState state) {
+        SagaDefinition.Deadline deadline = sagaDefinition.getDeadline(state);
+        if (deadline == null) {
+            cancel(orderId);
+            return;
+        }
+
+        TimingWheel.Timer<Pending> current = timers.get(orderId);
+        if (current != null && current.getPayload().deadline() == deadline) {
+            return;
+        }
+
+        long startedAt = current != null && current.getPayload().deadline().since() == deadline.since()
+                ? current.getPayload().startedAt()
+                : clock.getAsLong();
+        long expiresAt = startedAt + deadline.timeout().toMillis();
+        TimingWheel.Timer<Pending> timer = wheel.schedule(new Pending(orderId, deadline, startedAt), expiresAt);
+        TimingWheel.Timer<Pending> previous = timers.put(orderId, timer);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    public void cancel(String orderId) {
+        TimingWheel.Timer<Pending> timer = timers.remove(orderId);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    public int pendingCount() {
+        return timers.size();
+    }
+
+    /**
+     * Advances the wheel to now and fires the handler for every deadline that has passed.
+     */
+    @Scheduled(fixedDelayString = "${saga.timeout.tick-ms:100}")
+    public void tick() {
+        List<Pending> expired = wheel.advance(clock.getAsLong());
+        for (Pending pending : expired) {
+            TimingWheel.Timer<Pending> timer = timers.get(pending.orderId());
+            if (timer == null || timer.getPayload() != pending) {
+                continue;
+            }
+
+            SagaDefinition.Deadline deadline = pending.deadline();
+            expirations.get(deadline.state()).increment();
+            log.warn("Saga {} timed out after {} in {}, sending {}",
+                    pending.orderId(), deadline.timeout(), deadline.state(), deadline.event());
+            try {
+                expiryHandler.accept(pending.orderId(), deadline);
+            } catch (Exception e) {
+                log.error("Timeout handling failed for saga {}", pending.orderId(), e);
+            }
+            // Removed only now, so the deadline of the state the handler moves to can count from its start
+            timers.remove(pending.orderId(), timer);
+        }
+    }
+
+    private record Pending(String orderId, SagaDefinition.Deadline deadline, long startedAt) {
+    }
+}
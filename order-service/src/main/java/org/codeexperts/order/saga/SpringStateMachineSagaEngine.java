@@ -0,0 +1,79 @@
+package org.codeexperts.order.saga;
+
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.ExtendedState;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.StateMachineEventResult;
+import org.springframework.statemachine.StateMachineEventResult.ResultType;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link SagaEngine} backed by Spring Statemachine instances from the {@link SagaStateMachinePool}.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "saga.engine", havingValue = "spring", matchIfMissing = true)
+public class SpringStateMachineSagaEngine implements SagaEngine {
+
+    private final SagaStateMachinePool stateMachinePool;
+
+    @Autowired
+    public SpringStateMachineSagaEngine(SagaStateMachinePool stateMachinePool) {
+        this.stateMachinePool = stateMachinePool;
+    }
+
+    @Override
+    public void start(Order order) {
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachinePool.acquire(order.getOrderId());
+        stateMachine.getExtendedState().getVariables().put("order", order);
+    }
+
+    @Override
+    public void restore(Order order, OrderState state) {
+        ExtendedState extendedState = new DefaultExtendedState();
+        extendedState.getVariables().put("order", order);
+
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachinePool.acquire(order.getOrderId());
+        stateMachine.stopReactively().block();
+        stateMachine.getStateMachineAccessor().doWithAllRegions(access -> access
+                .resetStateMachineReactively(new DefaultStateMachineContext<>(state, null, null, extendedState))
+                .block());
+        stateMachine.startReactively().block();
+    }
+
+    @Override
+    public OrderState sendEvent(String orderId, OrderEvent event) {
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachinePool.get(orderId);
+        if (stateMachine == null) {
+            return null;
+        }
+        StateMachineEventResult<OrderState, OrderEvent> result = stateMachine
+                .sendEvent(Mono.just(MessageBuilder.withPayload(event).build()))
+                .blockLast();
+        OrderState state = stateMachine.getState().getId();
+        if (result == null || result.getResultType() == ResultType.DENIED) {
+            log.debug("Saga {} in state {} does not accept {}", orderId, state, event);
+        }
+        return state;
+    }
+
+    @Override
+    public OrderState getState(String orderId) {
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachinePool.get(orderId);
+        return stateMachine != null ? stateMachine.getState().getId() : null;
+    }
+
+    @Override
+    public void release(String orderId) {
+        stateMachinePool.release(orderId);
+    }
+}
@@ -0,0 +1,22 @@
+package org.codeexperts.order.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A bulk submission that was only partly accepted: the orders listed here are stored and their
+ * sagas running, the rest of the submission is not. Resubmitting only the others avoids
+ * duplicates.
+ */
+@Getter
+public class BulkIntakeException extends RuntimeException {
+
+    private final List<String> acceptedOrderIds;
+
+    public BulkIntakeException(List<String> acceptedOrderIds, Throwable cause) {
+        super("Accepted " + acceptedOrderIds.size() + " orders of the submission before failing: "
+                + cause.getMessage(), cause);
+        this.acceptedOrderIds = acceptedOrderIds;
+    }
+}
@@ -7,6 +7,19 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the saga's commands. Each method returns a future that completes when the command has been
+ * accepted by the publisher, the outbox or the broker; saga actions do not wait on it, replies
+ * drive the saga forward.
+ * <p>
+ * Nothing here shares a transaction with the saga: each command's outbox insert commits on its own,
+ * while the saga's state reaches {@code SAGA_STATE} later through the write-behind
+ * {@link org.codeexperts.order.persistence.SagaStateWriter}. A crash in between can leave a command
+ * sent for a step the recovered saga has not recorded, whose reply is then undone as a late one,
+ * or for a saga not recorded at all, whose reply is only logged.
+ */
 @Log4j2
 @Service
 public class OrderCommandPublisher {
@@ -14,28 +27,28 @@ public class OrderCommandPublisher {
     @Autowired
     private MessagePublisher messagePublisher; // Changed injected type
 
-    public void publishPaymentCommand(ProcessPaymentCommand command) {
+    public CompletableFuture<Void> publishPaymentCommand(ProcessPaymentCommand command) {
         log.debug("Publishing payment command: {}", command);
-        messagePublisher.publish(KafkaTopics.PAYMENT_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
+        return messagePublisher.publishAsync(KafkaTopics.PAYMENT_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
     }
 
-    public void publishRefundCommand(RefundPaymentCommand command) {
+    public CompletableFuture<Void> publishRefundCommand(RefundPaymentCommand command) {
         log.debug("Publishing refund command: {}", command);
-        messagePublisher.publish(KafkaTopics.PAYMENT_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
+        return messagePublisher.publishAsync(KafkaTopics.PAYMENT_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
     }
 
-    public void publishInventoryCommand(ReserveInventoryCommand command) {
+    public CompletableFuture<Void> publishInventoryCommand(ReserveInventoryCommand command) {
         log.debug("Publishing inventory command: {}", command);
-        messagePublisher.publish(KafkaTopics.INVENTORY_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
+        return messagePublisher.publishAsync(KafkaTopics.INVENTORY_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
     }
 
-    public void publishReleaseInventoryCommand(ReleaseInventoryCommand command) {
+    public CompletableFuture<Void> publishReleaseInventoryCommand(ReleaseInventoryCommand command) {
         log.debug("Publishing release inventory command: {}", command);
-        messagePublisher.publish(KafkaTopics.INVENTORY_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
+        return messagePublisher.publishAsync(KafkaTopics.INVENTORY_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
     }
 
-    public void publishShippingCommand(CreateShipmentCommand command) {
+    public CompletableFuture<Void> publishShippingCommand(CreateShipmentCommand command) {
         log.debug("Publishing shipping command: {}", command);
-        messagePublisher.publish(KafkaTopics.SHIPPING_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
+        return messagePublisher.publishAsync(KafkaTopics.SHIPPING_COMMANDS, command.getOrderId(), command); // Changed commandPublisher to messagePublisher
     }
 }
@@ -2,61 +2,58 @@ package org.codeexperts.order.service;
 
 import com.codeexpert.common.event.*;
 import com.codeexpert.common.listener.DomainEventListener;
+import com.codeexpert.common.listener.EventHandler;
+import com.codeexpert.common.listener.EventHandlers;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Consumer;
-
 @Log4j2
 @Service
+@EventHandlers(consumes = {
+        PaymentProcessedEvent.class,
+        PaymentRefundedEvent.class,
+        InventoryReservedEvent.class,
+        InventoryReleasedEvent.class,
+        ShipmentCreatedEvent.class})
 public class OrderEventListener implements DomainEventListener {
 
     private final OrderOrchestrator orchestrator;
-    private final Map<Class<?>, Consumer<DomainEvent>> eventHandlers; // Changed to Class<?>
 
     @Autowired
     public OrderEventListener(OrderOrchestrator orchestrator) {
         this.orchestrator = orchestrator;
-        this.eventHandlers = new HashMap<>();
-
-        // Register handlers for each event type
-        eventHandlers.put(PaymentProcessedEvent.class, this::handlePaymentProcessedEvent);
-        eventHandlers.put(PaymentRefundedEvent.class, this::handlePaymentRefundedEvent);
-        eventHandlers.put(InventoryReservedEvent.class, this::handleInventoryReservedEvent);
-        eventHandlers.put(InventoryReleasedEvent.class, this::handleInventoryReleasedEvent);
-        eventHandlers.put(ShipmentCreatedEvent.class, this::handleShipmentCreatedEvent);
     }
 
     @Override
     public void onEvent(DomainEvent event) {
-        Consumer<DomainEvent> handler = eventHandlers.get(event.getClass());
-        if (handler != null) {
-            handler.accept(event);
-        } else {
+        if (!OrderEventListenerDispatcher.dispatch(this, event)) {
             log.warn("No handler found for event type: {}", event.getClass().getSimpleName());
         }
     }
 
-    private void handlePaymentProcessedEvent(DomainEvent event) {
-        orchestrator.handlePaymentEvent((PaymentProcessedEvent) event);
+    @EventHandler
+    void handlePaymentProcessedEvent(PaymentProcessedEvent event) {
+        orchestrator.handlePaymentEvent(event);
     }
 
-    private void handlePaymentRefundedEvent(DomainEvent event) {
-        orchestrator.handlePaymentRefundEvent((PaymentRefundedEvent) event);
+    @EventHandler
+    void handlePaymentRefundedEvent(PaymentRefundedEvent event) {
+        orchestrator.handlePaymentRefundEvent(event);
     }
 
-    private void handleInventoryReservedEvent(DomainEvent event) {
-        orchestrator.handleInventoryEvent((InventoryReservedEvent) event);
+    @EventHandler
+    void handleInventoryReservedEvent(InventoryReservedEvent event) {
+        orchestrator.handleInventoryEvent(event);
     }
 
-    private void handleInventoryReleasedEvent(DomainEvent event) {
-        orchestrator.handleInventoryReleaseEvent((InventoryReleasedEvent) event);
+    @EventHandler
+    void handleInventoryReleasedEvent(InventoryReleasedEvent event) {
+        orchestrator.handleInventoryReleaseEvent(event);
     }
 
-    private void handleShipmentCreatedEvent(DomainEvent event) {
-        orchestrator.handleShippingEvent((ShipmentCreatedEvent) event);
+    @EventHandler
+    void handleShipmentCreatedEvent(ShipmentCreatedEvent event) {
+        orchestrator.handleShippingEvent(event);
     }
 }
\ No newline at end of file
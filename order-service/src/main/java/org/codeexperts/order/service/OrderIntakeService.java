@@ -0,0 +1,117 @@
+package org.codeexperts.order.service;
+
+import com.codeexpert.common.model.OrderItem;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.dto.CreateOrderRequest;
+import org.codeexperts.order.entity.OrderEntity;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Accepts orders: stores them in {@code ORDERS} and starts their sagas off the request thread.
+ * <p>
+ * Work runs on Spring Boot's {@code applicationTaskExecutor}, which is virtual-thread-per-task when
+ * {@code spring.threads.virtual.enabled} is set on Java 21 and a bounded pool otherwise, so blocking
+ * on JPA or the Kafka producer does not hold on to servlet threads. Bulk submissions are cut into
+ * chunks of {@code order.intake.bulk-chunk-size}; each chunk is inserted with one batched
+ * {@code saveAll} and then has its sagas started, and all chunks run concurrently. Should a chunk
+ * fail, the others still complete and the submission fails with a {@link BulkIntakeException}
+ * naming the orders that were accepted. A saga that
+ * cannot be started fails its order instead of leaving it {@code PENDING}; see
+ * {@link OrderOrchestrator#startSaga(Order)}.
+ */
+@Log4j2
+@Service
+public class OrderIntakeService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOrchestrator orderOrchestrator;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor intakeExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.intake.bulk-chunk-size:500}")
+    private int bulkChunkSize;
+
+    public CompletableFuture<String> submit(CreateOrderRequest request) {
+        return CompletableFuture.supplyAsync(() -> accept(List.of(request)).get(0), intakeExecutor);
+    }
+
+    public CompletableFuture<List<String>> submitAll(List<CreateOrderRequest> requests) {
+        List<CompletableFuture<List<String>>> chunks = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += bulkChunkSize) {
+            List<CreateOrderRequest> chunk = requests.subList(from, Math.min(from + bulkChunkSize, requests.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> accept(chunk), intakeExecutor));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                .handle((done, failure) -> {
+                    List<String> orderIds = new ArrayList<>(requests.size());
+                    chunks.stream()
+                            .filter(chunk -> !chunk.isCompletedExceptionally())
+                            .forEach(chunk -> orderIds.addAll(chunk.join()));
+                    if (failure != null) {
+                        throw new BulkIntakeException(orderIds, failure instanceof CompletionException
+                                ? failure.getCause() : failure);
+                    }
+                    return orderIds;
+                });
+    }
+
+    private List<String> accept(List<CreateOrderRequest> requests) {
+        Clock clock = meterRegistry.config().clock();
+        List<Order> orders = new ArrayList<>(requests.size());
+        List<OrderEntity> entities = new ArrayList<>(requests.size());
+        for (CreateOrderRequest request : requests) {
+            Order order = new Order();
+            order.setOrderId(UUID.randomUUID().toString());
+            order.setStartTime(clock.monotonicTime());
+            order.setCustomerId(request.getCustomerId());
+            order.setAmount(request.getAmount());
+            order.setItems(request.getItems());
+            orders.add(order);
+
+            // ORDERS has room for one line; the saga state keeps all of them
+            OrderItem firstItem = request.getItems().get(0);
+            entities.add(OrderEntity.builder()
+                    .id(order.getOrderId())
+                    .customerId(order.getCustomerId())
+                    .amount(order.getAmount())
+                    .productId(firstItem.getProductId())
+                    .quantity(firstItem.getQuantity())
+                    .state(OrderState.PENDING)
+                    .build());
+        }
+
+        orderRepository.saveAll(entities);
+
+        List<String> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderOrchestrator.startSaga(order);
+            orderIds.add(order.getOrderId());
+        }
+        log.debug("Accepted {} orders", orderIds.size());
+        return orderIds;
+    }
+}
@@ -1,59 +1,153 @@
 package org.codeexperts.order.service;
 
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.command.ReleaseInventoryCommand;
 import com.codeexpert.common.event.*;
-import org.codeexperts.order.entity.OrderEntity;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.codeexperts.order.entity.SagaStateEntity;
 import org.codeexperts.order.model.Order;
 import org.codeexperts.order.model.OrderEvent;
 import org.codeexperts.order.model.OrderState;
-import org.codeexperts.order.repository.OrderRepository;
+import org.codeexperts.order.persistence.OrderStatusWriter;
+import org.codeexperts.order.persistence.SagaStateWriter;
+import org.codeexperts.order.repository.SagaStateRepository;
+import org.codeexperts.order.saga.SagaDefinition;
+import org.codeexperts.order.saga.SagaEngine;
+import org.codeexperts.order.saga.SagaMetrics;
+import org.codeexperts.order.saga.SagaStore;
+import org.codeexperts.order.saga.SagaTimeoutScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.statemachine.StateMachine;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
+@Log4j2
 @Service
 public class OrderOrchestrator {
 
     @Autowired
-    private StateMachine<OrderState, OrderEvent> stateMachine;
+    private SagaEngine sagaEngine;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private SagaDefinition sagaDefinition;
 
-    private Map<String, Order> sagaStore = new ConcurrentHashMap<>();
+    @Autowired
+    private SagaStore sagaStore;
+
+    @Autowired
+    private SagaStateWriter sagaStateWriter;
+
+    @Autowired
+    private OrderStatusWriter orderStatusWriter;
+
+    @Autowired
+    private SagaStateRepository sagaStateRepository;
+
+    @Autowired
+    private SagaTimeoutScheduler sagaTimeoutScheduler;
 
+    @Autowired
+    private SagaMetrics sagaMetrics;
+
+    @Autowired
+    private OrderCommandPublisher commandPublisher;
+
+    /**
+     * Resumes the sagas that were still in flight when the service last stopped. Runs before the
+     * Kafka listeners are registered, so no event can arrive for a saga that is not restored yet.
+     * Recovered sagas get a fresh deadline for the state they were waiting in.
+     */
+    @PostConstruct
+    public void recoverInFlightSagas() {
+        sagaTimeoutScheduler.onExpiry(this::handleTimeout);
+
+        List<SagaStateEntity> inFlight = sagaStateRepository.findByStateNotIn(sagaDefinition.getEndStates());
+        for (SagaStateEntity saga : inFlight) {
+            Order order = toOrder(saga);
+
+            sagaMetrics.sagaRecovered(order);
+            sagaStore.put(order);
+            sagaEngine.restore(order, saga.getState());
+            sagaTimeoutScheduler.stateEntered(order.getOrderId(), saga.getState());
+        }
+        if (!inFlight.isEmpty()) {
+            log.info("Recovered {} in-flight sagas", inFlight.size());
+        }
+    }
+
+    /**
+     * Starts the saga of a stored order. If its first step cannot be taken the saga ends as
+     * {@code ORDER_FAILED} straight away, as nothing would ever move it out of its initial state,
+     * which has no deadline.
+     */
     public void startSaga(Order order) {
-        sagaStore.put(order.getOrderId(), order);
-        stateMachine.getExtendedState().getVariables().put("order", order);
-        stateMachine.start();
-        stateMachine.sendEvent(OrderEvent.START_ORDER);
+        sagaMetrics.sagaStarted(order);
+        sagaStore.put(order);
+        boolean started = false;
+        try {
+            sagaEngine.start(order);
+            started = sendEvent(order, OrderEvent.START_ORDER);
+        } catch (RuntimeException e) {
+            log.error("Could not start saga {}", order.getOrderId(), e);
+        }
+        if (!started) {
+            failToStart(order);
+        }
+    }
+
+    private void failToStart(Order order) {
+        String orderId = order.getOrderId();
+        synchronized (order) {
+            order.setErrorMessage("Saga could not be started");
+            sagaEngine.release(orderId);
+            sagaStore.markTerminal(orderId);
+            sagaStateWriter.enqueue(order, OrderState.ORDER_FAILED);
+            orderStatusWriter.enqueue(orderId, OrderState.ORDER_FAILED);
+        }
     }
 
     public void handlePaymentEvent(PaymentProcessedEvent event) {
         Order data = sagaStore.get(event.getOrderId());
-        if (data == null) return;
+        boolean success = "SUCCESS".equals(event.getStatus());
+        if (data == null) {
+            if (success) refundPaymentOfEndedSaga(event);
+            return;
+        }
 
-        if ("SUCCESS".equals(event.getStatus())) {
+        if (!accepts(data, success ? OrderEvent.PAYMENT_SUCCESS : OrderEvent.PAYMENT_FAILED)) {
+            if (success) refundLatePayment(data, event.getTransactionId());
+            return;
+        }
+
+        if (success) {
             data.setPaymentTransactionId(event.getTransactionId());
-            stateMachine.sendEvent(OrderEvent.PAYMENT_SUCCESS);
+            sendEvent(data, OrderEvent.PAYMENT_SUCCESS);
         } else {
             data.setErrorMessage(event.getErrorMessage());
-            stateMachine.sendEvent(OrderEvent.PAYMENT_FAILED);
+            sendEvent(data, OrderEvent.PAYMENT_FAILED);
         }
     }
 
     public void handleInventoryEvent(InventoryReservedEvent event) {
         Order data = sagaStore.get(event.getOrderId());
-        if (data == null) return;
+        boolean success = "SUCCESS".equals(event.getStatus());
+        if (data == null) {
+            if (success) releaseReservationOfEndedSaga(event);
+            return;
+        }
+
+        if (!accepts(data, success ? OrderEvent.INVENTORY_SUCCESS : OrderEvent.INVENTORY_FAILED)) {
+            if (success) releaseLateReservation(data, event.getReservationId());
+            return;
+        }
 
-        if ("SUCCESS".equals(event.getStatus())) {
+        if (success) {
             data.setInventoryTransactionId(event.getReservationId());
-            stateMachine.sendEvent(OrderEvent.INVENTORY_SUCCESS);
+            sendEvent(data, OrderEvent.INVENTORY_SUCCESS);
         } else {
             data.setErrorMessage(event.getErrorMessage());
-            stateMachine.sendEvent(OrderEvent.INVENTORY_FAILED);
+            sendEvent(data, OrderEvent.INVENTORY_FAILED);
         }
     }
 
@@ -61,30 +155,198 @@ public class OrderOrchestrator {
         Order order = sagaStore.get(event.getOrderId());
         if (order == null) return;
 
-        if ("SUCCESS".equals(event.getStatus())) {
+        boolean success = "SUCCESS".equals(event.getStatus());
+        if (!accepts(order, success ? OrderEvent.SHIPPING_SUCCESS : OrderEvent.SHIPPING_FAILED)) return;
+
+        if (success) {
             order.setShippingTransactionId(event.getShipmentId());
-            stateMachine.sendEvent(OrderEvent.SHIPPING_SUCCESS);
-            updateOrderStatus(event.getOrderId(), OrderState.ORDER_COMPLETED);
+            sendEvent(order, OrderEvent.SHIPPING_SUCCESS);
         } else {
             order.setErrorMessage(event.getErrorMessage());
-            stateMachine.sendEvent(OrderEvent.SHIPPING_FAILED);
+            sendEvent(order, OrderEvent.SHIPPING_FAILED);
         }
     }
 
     public void handlePaymentRefundEvent(PaymentRefundedEvent event) {
-        stateMachine.sendEvent(OrderEvent.COMPENSATE_PAYMENT);
-        updateOrderStatus(event.getOrderId(), OrderState.ORDER_FAILED);
+        Order order = sagaStore.get(event.getOrderId());
+        if (order == null || !accepts(order, OrderEvent.COMPENSATE_PAYMENT)) return;
+
+        sendEvent(order, OrderEvent.COMPENSATE_PAYMENT);
     }
 
     public void handleInventoryReleaseEvent(InventoryReleasedEvent event) {
-        stateMachine.sendEvent(OrderEvent.COMPENSATE_INVENTORY);
+        Order order = sagaStore.get(event.getOrderId());
+        if (order == null || !accepts(order, OrderEvent.COMPENSATE_INVENTORY)) return;
+
+        sendEvent(order, OrderEvent.COMPENSATE_INVENTORY);
+    }
+
+    /**
+     * Fails a saga whose participant did not answer in time, which runs the same compensation as
+     * an explicit failure reply. Ignored if the saga has moved on since the deadline was set. Should
+     * the participant succeed after all, its late reply is undone by {@link #refundLatePayment} or
+     * {@link #releaseLateReservation}.
+     */
+    public void handleTimeout(String orderId, SagaDefinition.Deadline deadline) {
+        Order order = sagaStore.get(orderId);
+        if (order == null) return;
+
+        synchronized (order) {
+            if (sagaEngine.getState(orderId) != deadline.state()) return;
+
+            order.setErrorMessage("Timed out after " + deadline.timeout().toMillis() + " ms in " + deadline.state());
+            sendEvent(order, deadline.event());
+        }
+    }
+
+    /**
+     * Refunds a payment that went through after the saga stopped waiting for it, typically because
+     * its deadline failed the step; the saga itself will never undo it. A redelivered reply for the
+     * payment the saga did take carries its transaction id and is left alone, as is a repeat of a
+     * late one.
+     */
+    private boolean refundLatePayment(Order order, String transactionId) {
+        synchronized (order) {
+            if (transactionId == null || transactionId.equals(order.getPaymentTransactionId())) return false;
+            order.setPaymentTransactionId(transactionId);
+        }
+        log.warn("Payment {} for order {} succeeded after its saga stopped waiting, refunding it",
+                transactionId, order.getOrderId());
+        commandPublisher.publishRefundCommand(RefundPaymentCommand.builder()
+                .orderId(order.getOrderId())
+                .paymentTransactionId(transactionId)
+                .correlationId(order.getOrderId())
+                .build());
+        return true;
+    }
+
+    /**
+     * Releases an inventory reservation made after the saga stopped waiting for it, on the same
+     * terms as {@link #refundLatePayment}.
+     */
+    private boolean releaseLateReservation(Order order, String reservationId) {
+        synchronized (order) {
+            if (reservationId == null || reservationId.equals(order.getInventoryTransactionId())) return false;
+            order.setInventoryTransactionId(reservationId);
+        }
+        log.warn("Reservation {} for order {} succeeded after its saga stopped waiting, releasing it",
+                reservationId, order.getOrderId());
+        commandPublisher.publishReleaseInventoryCommand(ReleaseInventoryCommand.builder()
+                .orderId(order.getOrderId())
+                .reservationId(reservationId)
+                .correlationId(order.getOrderId())
+                .build());
+        return true;
+    }
+
+    /**
+     * Refunds a payment that succeeded for a saga no longer in the {@link SagaStore}, having ended
+     * and been evicted or ended before a restart, unless {@code SAGA_STATE} shows the saga took
+     * that payment. The refunded transaction is recorded there, so a redelivery is not refunded
+     * twice.
+     */
+    private void refundPaymentOfEndedSaga(PaymentProcessedEvent event) {
+        SagaStateEntity saga = findEndedSaga(event.getOrderId());
+        if (saga == null) {
+            log.warn("Payment {} succeeded for order {}, which has no ended saga; leaving it",
+                    event.getTransactionId(), event.getOrderId());
+            return;
+        }
+        Order order = toOrder(saga);
+        if (refundLatePayment(order, event.getTransactionId())) {
+            sagaStateWriter.enqueue(order, saga.getState());
+        }
+    }
+
+    /**
+     * Releases a reservation made for a saga no longer in the {@link SagaStore}, on the same terms
+     * as {@link #refundPaymentOfEndedSaga}.
+     */
+    private void releaseReservationOfEndedSaga(InventoryReservedEvent event) {
+        SagaStateEntity saga = findEndedSaga(event.getOrderId());
+        if (saga == null) {
+            log.warn("Reservation {} succeeded for order {}, which has no ended saga; leaving it",
+                    event.getReservationId(), event.getOrderId());
+            return;
+        }
+        Order order = toOrder(saga);
+        if (releaseLateReservation(order, event.getReservationId())) {
+            sagaStateWriter.enqueue(order, saga.getState());
+        }
+    }
+
+    private SagaStateEntity findEndedSaga(String orderId) {
+        return sagaStateRepository.findById(orderId)
+                .filter(saga -> sagaDefinition.isEndState(saga.getState()))
+                .orElse(null);
     }
 
-    private void updateOrderStatus(String orderId, OrderState status) {
-        OrderEntity order = orderRepository.findById(orderId).orElse(null);
-        if (order != null) {
-            order.setState(status);
-            orderRepository.save(order);
+    private static Order toOrder(SagaStateEntity saga) {
+        Order order = new Order();
+        order.setOrderId(saga.getOrderId());
+        order.setCustomerId(saga.getCustomerId());
+        order.setAmount(saga.getAmount());
+        order.setItems(saga.getItems());
+        order.setPaymentTransactionId(saga.getPaymentTransactionId());
+        order.setInventoryTransactionId(saga.getInventoryTransactionId());
+        order.setShippingTransactionId(saga.getShippingTransactionId());
+        order.setErrorMessage(saga.getErrorMessage());
+        return order;
+    }
+
+    /**
+     * Lets a reply through only if the saga's current state has a transition for it, so that
+     * duplicates and replies arriving after the saga moved on are only counted. The state is read
+     * under the saga's lock, so a reply that overtakes the step that requested it waits for it.
+     */
+    private boolean accepts(Order order, OrderEvent event) {
+        OrderState state;
+        synchronized (order) {
+            state = sagaEngine.getState(order.getOrderId());
+        }
+        if (sagaDefinition.accepts(state, event)) {
+            return true;
+        }
+        sagaMetrics.eventRejected(state, event);
+        log.debug("Saga {} in {} is not waiting for {}, dropping it", order.getOrderId(), state, event);
+        return false;
+    }
+
+    /**
+     * Drives the saga's own engine instance, records the step's latency, queues the resulting state
+     * for persistence, arms the deadline of the new state and, once the saga reaches an end state,
+     * releases the instance and queues the order's final status. Events the saga does not accept in
+     * its current state change nothing. Replies for one saga can arrive on different listener
+     * threads (both branches of the parallel shape, or a reply racing its deadline), so each step is
+     * serialized on the saga's order.
+     *
+     * @return whether the event moved the saga to another state
+     */
+    private boolean sendEvent(Order order, OrderEvent event) {
+        String orderId = order.getOrderId();
+        synchronized (order) {
+            OrderState source = sagaEngine.getState(orderId);
+            OrderState state = sagaEngine.sendEvent(orderId, event);
+            if (state == null) {
+                log.warn("No running saga for order {}, ignoring {}", orderId, event);
+                return false;
+            }
+            if (state == source) {
+                sagaMetrics.eventRejected(source, event);
+                log.debug("Saga {} in {} did not accept {}", orderId, state, event);
+                return false;
+            }
+
+            sagaMetrics.transition(order, source, event, state);
+            sagaStateWriter.enqueue(order, state);
+            sagaTimeoutScheduler.stateEntered(orderId, state);
+
+            if (sagaDefinition.isEndState(state)) {
+                sagaEngine.release(orderId);
+                sagaStore.markTerminal(orderId);
+                orderStatusWriter.enqueue(orderId, state);
+            }
+            return true;
         }
     }
 }
@@ -0,0 +1,197 @@
+package org.codeexperts.order.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for large numbers of mostly-cancelled timers.
+ * <p>
+ * Time advances in ticks of {@code tickMillis}. Level 0 has one slot per tick for the next
+ * {@value #WHEEL_SIZE} ticks; every further level covers {@value #WHEEL_SIZE} times the span of the
+ * one below, so {@value #LEVELS} levels reach {@code 64^4} ticks ahead. A timer is hashed into the
+ * level that covers its deadline and cascades down a level each time the coarser slot it sits in
+ * comes round, until it expires from level 0. Scheduling and cancelling are O(1) list operations on
+ * an intrusive doubly linked slot; advancing costs one slot per elapsed tick plus the cascades.
+ * Deadlines further out than the wheel spans are parked in the last top-level slot and re-hashed as
+ * they cascade.
+ * <p>
+ * All operations take a single lock. {@link #advance(long)} returns the expired payloads instead of
+ * running callbacks, so nothing foreign runs while the lock is held.
+ */
+public class TimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Slot<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"rawtypes", "unchecked"}) // arrays of a generic type can only be created raw
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheels = new Slot[LEVELS][WHEEL_SIZE];
+        for (Slot<T>[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Slot<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules {@code payload} to expire once the wheel has advanced to {@code deadlineMillis}.
+     * Deadlines that are already due expire on the next tick.
+     */
+    public synchronized Timer<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis - startMillis, tickMillis), currentTick + 1);
+        Timer<T> timer = new Timer<>(this, payload, deadlineTick);
+        add(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the payloads of all timers whose
+     * deadline has passed, earliest tick first.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Slot<T> slot = wheels[0][(int) (currentTick & WHEEL_MASK)];
+            Timer<T> timer;
+            while ((timer = slot.poll()) != null) {
+                size--;
+                expired.add(timer.payload);
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized boolean cancel(Timer<T> timer) {
+        if (timer.slot == null) {
+            return false;
+        }
+        timer.slot.unlink(timer);
+        size--;
+        return true;
+    }
+
+    private void add(Timer<T> timer) {
+        long ticksAhead = timer.deadlineTick - currentTick;
+        long placement = ticksAhead < MAX_SPAN ? timer.deadlineTick : currentTick + MAX_SPAN - 1;
+        long span = ticksAhead < MAX_SPAN ? ticksAhead : MAX_SPAN - 1;
+
+        int level = 0;
+        while (span >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((placement >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        wheels[level][index].link(timer);
+    }
+
+    /**
+     * Whenever the lower level wraps, empties the slot of the next level that has just come
+     * round and re-hashes its timers, which now land at least one level lower.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Slot<T> slot = wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            Timer<T> timer;
+            while ((timer = slot.poll()) != null) {
+                add(timer);
+            }
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    /**
+     * Handle to a scheduled payload.
+     */
+    public static final class Timer<T> {
+
+        private final TimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineTick;
+        private Slot<T> slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(TimingWheel<T> wheel, T payload, long deadlineTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Removes the timer from the wheel.
+         *
+         * @return {@code false} if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+
+    private static final class Slot<T> {
+
+        private Timer<T> head;
+
+        private void link(Timer<T> timer) {
+            timer.slot = this;
+            timer.prev = null;
+            timer.next = head;
+            if (head != null) {
+                head.prev = timer;
+            }
+            head = timer;
+        }
+
+        private void unlink(Timer<T> timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+            timer.slot = null;
+            timer.prev = null;
+            timer.next = null;
+        }
+
+        private Timer<T> poll() {
+            Timer<T> timer = head;
+            if (timer != null) {
+                unlink(timer);
+            }
+            return timer;
+        }
+    }
+}
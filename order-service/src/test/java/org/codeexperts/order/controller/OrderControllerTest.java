@@ -0,0 +1,151 @@
+package org.codeexperts.order.controller;
+
+import com.codeexpert.common.listener.DomainEventListener;
+import com.codeexpert.common.listener.KafkaListenerRegistrar;
+import org.codeexperts.order.service.BulkIntakeException;
+import org.codeexperts.order.service.OrderIntakeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OrderController.class)
+class OrderControllerTest {
+
+    private static final String ITEM = "{\"productId\": \"product-1\", \"quantity\": 2, \"price\": 21.00}";
+
+    private static final String ORDER = "{\"customerId\": \"customer-1\", \"amount\": 42.00, \"items\": [" + ITEM + "]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderIntakeService orderIntakeService;
+
+    @MockBean
+    private KafkaListenerRegistrar kafkaListenerRegistrar;
+
+    @MockBean
+    private DomainEventListener domainEventListener;
+
+    @Test
+    void acceptsOrderWith202AndOrderId() throws Exception {
+        when(orderIntakeService.submit(any())).thenReturn(CompletableFuture.completedFuture("order-1"));
+
+        MvcResult result = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.orderId").value("order-1"));
+    }
+
+    @Test
+    void acceptsBulkOrdersWith202AndOrderIdsInRequestOrder() throws Exception {
+        when(orderIntakeService.submitAll(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of("order-1", "order-2")));
+
+        MvcResult result = mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ORDER + "," + ORDER + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.orderIds[0]").value("order-1"))
+                .andExpect(jsonPath("$.orderIds[1]").value("order-2"));
+    }
+
+    @Test
+    void namesTheAcceptedOrdersOfAPartlyFailedBulkSubmission() throws Exception {
+        when(orderIntakeService.submitAll(anyList())).thenReturn(CompletableFuture.failedFuture(new CompletionException(
+                new BulkIntakeException(List.of("order-1"), new IllegalStateException("database down")))));
+
+        MvcResult result = mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ORDER + "," + ORDER + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.acceptedOrderIds[0]").value("order-1"));
+    }
+
+    @Test
+    void rejectsOrderWithoutItems() throws Exception {
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": \"customer-1\", \"amount\": 42.00, \"items\": []}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderIntakeService);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"customerId\": \"customer-1\", \"amount\": 0.00, \"items\": [" + ITEM + "]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00, \"items\": [null]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00, \"items\": [" + ITEM + ", null]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00,"
+                    + " \"items\": [{\"quantity\": 2, \"price\": 21.00}]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00,"
+                    + " \"items\": [{\"productId\": \"product-1\", \"quantity\": 0, \"price\": 21.00}]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00,"
+                    + " \"items\": [{\"productId\": \"product-1\", \"quantity\": -1, \"price\": 21.00}]}",
+            "{\"customerId\": \"customer-1\", \"amount\": 42.00,"
+                    + " \"items\": [{\"productId\": \"product-1\", \"quantity\": 2}]}"
+    })
+    void rejectsAnInvalidAmountOrItemWith400(String order) throws Exception {
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(order))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ORDER + ", " + order + "]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderIntakeService);
+    }
+
+    @Test
+    void rejectsANullOrderInABulkSubmissionWith400() throws Exception {
+        mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("[" + ORDER + ", null]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderIntakeService);
+    }
+
+    @Test
+    void rejectsEmptyBulkSubmissionWith400() throws Exception {
+        mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderIntakeService);
+    }
+
+    @Test
+    void rejectsBulkSubmissionWithAnInvalidOrderWith400() throws Exception {
+        mockMvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ORDER + ", {\"customerId\": \"\", \"amount\": 42.00, \"items\": []}]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderIntakeService);
+    }
+}
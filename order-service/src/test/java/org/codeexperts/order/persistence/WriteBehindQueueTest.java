@@ -0,0 +1,71 @@
+package org.codeexperts.order.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindQueueTest {
+
+    @Test
+    void coalescesValuesPerKeyAndFlushesOnClose() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 100, 60_000, batches::add);
+
+        queue.put("a", "a1");
+        queue.put("a", "a2");
+        queue.put("b", "b1");
+        queue.close();
+
+        List<String> written = new ArrayList<>();
+        batches.forEach(written::addAll);
+        assertThat(written).containsExactlyInAnyOrder("a2", "b1");
+    }
+
+    @Test
+    void flushesAsSoonAsBatchIsFull() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>("test", 2, 60_000, batches::add);
+
+        queue.put("a", "a1");
+        queue.put("b", "b1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder("a1", "b1");
+        queue.close();
+    }
+
+    @Test
+    void requeuesFailedBatchWithoutOverwritingNewerValues() throws Exception {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        List<String> written = new CopyOnWriteArrayList<>();
+        AtomicReference<WriteBehindQueue<String, String>> holder = new AtomicReference<>();
+        holder.set(new WriteBehindQueue<>("test", 100, 10, batch -> {
+            if (fail.getAndSet(false)) {
+                holder.get().put("a", "a2");
+                throw new IllegalStateException("database down");
+            }
+            written.addAll(batch);
+        }));
+
+        holder.get().put("a", "a1");
+        holder.get().put("b", "b1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        holder.get().close();
+
+        assertThat(written).containsExactlyInAnyOrder("a2", "b1");
+    }
+}
@@ -0,0 +1,114 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codeexperts.order.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedSagaStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedSagaStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new BoundedSagaStore(meterRegistry, 1000, 2, now::get);
+    }
+
+    @Test
+    void inFlightSagasAreNeverEvicted() {
+        store.put(order("a"));
+        now.set(1_000_000);
+
+        store.evict();
+
+        assertThat(store.get("a")).isNotNull();
+    }
+
+    @Test
+    void terminalSagasExpireAfterTtl() {
+        store.put(order("a"));
+        store.markTerminal("a");
+
+        now.set(999);
+        store.evict();
+        assertThat(store.get("a")).isNotNull();
+
+        now.set(1000);
+        store.evict();
+        assertThat(store.get("a")).isNull();
+        assertThat(meterRegistry.counter("saga.store.evictions", "cause", "expired").count()).isEqualTo(1);
+    }
+
+    @Test
+    void oldestTerminalSagasAreEvictedBeyondRetentionBound() {
+        store.put(order("a"));
+        store.put(order("b"));
+        store.put(order("c"));
+        store.put(order("in-flight"));
+
+        store.markTerminal("a");
+        store.markTerminal("b");
+        store.markTerminal("c");
+
+        assertThat(store.get("a")).isNull();
+        assertThat(store.get("b")).isNotNull();
+        assertThat(store.get("c")).isNotNull();
+        assertThat(store.get("in-flight")).isNotNull();
+        assertThat(meterRegistry.counter("saga.store.evictions", "cause", "size").count()).isEqualTo(1);
+    }
+
+    @Test
+    void restartedSagaIsNotEvictedByItsPreviousTerminalEntry() {
+        store.put(order("a"));
+        store.markTerminal("a");
+        store.put(order("a"));
+
+        now.set(5000);
+        store.evict();
+
+        assertThat(store.get("a")).isNotNull();
+    }
+
+    @Test
+    void countsEachSagaAsTerminalOnlyOnce() {
+        store.put(order("a"));
+        store.markTerminal("a");
+        store.markTerminal("a");
+        store.put(order("a"));
+        store.markTerminal("a");
+        store.put(order("b"));
+
+        assertThat(meterRegistry.get("saga.store.size").tag("state", "terminal").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("saga.store.size").tag("state", "in_flight").gauge().value()).isEqualTo(1);
+
+        now.set(1000);
+        store.evict();
+
+        assertThat(meterRegistry.get("saga.store.size").tag("state", "terminal").gauge().value()).isZero();
+        assertThat(store.get("b")).isNotNull();
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        store.put(order("a"));
+
+        store.get("a");
+        store.get("missing");
+
+        assertThat(meterRegistry.counter("saga.store.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("saga.store.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
@@ -0,0 +1,131 @@
+package org.codeexperts.order.saga;
+
+import com.codeexpert.common.command.ReleaseInventoryCommand;
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.publisher.MessagePublisher;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.service.OrderCommandPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelSagaShapeTest {
+
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private AnnotationConfigApplicationContext context;
+    private SagaEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("test", Map.of(
+                        "saga.shape", "parallel",
+                        "saga.timeout.payment-ms", "30000",
+                        "saga.timeout.inventory-ms", "10000")));
+        context.registerBean(MessagePublisher.class, () -> new MessagePublisher() {
+            @Override
+            public <T extends DomainEvent> void publish(String topic, String key, T message) {
+                published.add(message.getClass().getSimpleName());
+            }
+        });
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class);
+        context.refresh();
+
+        engine = new CompiledSagaEngine(context.getBean(SagaDefinition.class));
+        Order order = new Order();
+        order.setOrderId("a");
+        engine.start(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void requestsPaymentAndInventoryTogetherAndJoinsBeforeShipping() {
+        assertThat(engine.sendEvent("a", OrderEvent.START_ORDER)).isEqualTo(OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+        assertThat(published).containsExactly("ProcessPaymentCommand", "ReserveInventoryCommand");
+
+        engine.sendEvent("a", OrderEvent.INVENTORY_SUCCESS);
+        assertThat(published).doesNotContain("CreateShipmentCommand");
+
+        assertThat(engine.sendEvent("a", OrderEvent.PAYMENT_SUCCESS)).isEqualTo(OrderState.INVENTORY_RESERVED);
+        assertThat(published).endsWith("CreateShipmentCommand");
+        assertThat(engine.sendEvent("a", OrderEvent.SHIPPING_SUCCESS)).isEqualTo(OrderState.ORDER_COMPLETED);
+    }
+
+    @Test
+    void refundsPaymentWhenInventoryFails() {
+        engine.sendEvent("a", OrderEvent.START_ORDER);
+        engine.sendEvent("a", OrderEvent.INVENTORY_FAILED);
+        assertThat(engine.sendEvent("a", OrderEvent.PAYMENT_SUCCESS)).isEqualTo(OrderState.PAYMENT_COMPENSATING);
+        assertThat(engine.sendEvent("a", OrderEvent.COMPENSATE_PAYMENT)).isEqualTo(OrderState.ORDER_FAILED);
+
+        assertThat(published).contains(RefundPaymentCommand.class.getSimpleName())
+                .doesNotContain(ReleaseInventoryCommand.class.getSimpleName());
+    }
+
+    @Test
+    void releasesInventoryWithoutRefundWhenPaymentFails() {
+        engine.sendEvent("a", OrderEvent.START_ORDER);
+        engine.sendEvent("a", OrderEvent.INVENTORY_SUCCESS);
+        assertThat(engine.sendEvent("a", OrderEvent.PAYMENT_FAILED)).isEqualTo(OrderState.INVENTORY_RELEASING);
+        assertThat(engine.sendEvent("a", OrderEvent.COMPENSATE_INVENTORY)).isEqualTo(OrderState.ORDER_FAILED);
+
+        assertThat(published).contains(ReleaseInventoryCommand.class.getSimpleName())
+                .doesNotContain(RefundPaymentCommand.class.getSimpleName());
+    }
+
+    @Test
+    void failsWithoutCompensationWhenBothBranchesFail() {
+        engine.sendEvent("a", OrderEvent.START_ORDER);
+        engine.sendEvent("a", OrderEvent.PAYMENT_FAILED);
+        assertThat(engine.sendEvent("a", OrderEvent.INVENTORY_FAILED)).isEqualTo(OrderState.ORDER_FAILED);
+
+        assertThat(published).containsExactly("ProcessPaymentCommand", "ReserveInventoryCommand");
+    }
+
+    @Test
+    void acceptsEachReplyOnceAlongTheWay() {
+        SagaDefinition definition = context.getBean(SagaDefinition.class);
+        engine.sendEvent("a", OrderEvent.START_ORDER);
+        assertThat(definition.accepts(engine.getState("a"), OrderEvent.PAYMENT_SUCCESS)).isTrue();
+
+        engine.sendEvent("a", OrderEvent.PAYMENT_SUCCESS);
+        assertThat(definition.accepts(engine.getState("a"), OrderEvent.PAYMENT_SUCCESS)).isFalse();
+        assertThat(definition.accepts(engine.getState("a"), OrderEvent.PAYMENT_FAILED)).isFalse();
+        assertThat(definition.accepts(engine.getState("a"), OrderEvent.INVENTORY_SUCCESS)).isTrue();
+        assertThat(definition.accepts(null, OrderEvent.INVENTORY_SUCCESS)).isFalse();
+    }
+
+    @Test
+    void timesOutTheBranchWithTheShorterDeadlineFirstAndTimesBothFromTheFork() {
+        SagaDefinition definition = context.getBean(SagaDefinition.class);
+
+        SagaDefinition.Deadline fork = definition.getDeadline(OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+        assertThat(fork.event()).isEqualTo(OrderEvent.INVENTORY_FAILED);
+        assertThat(fork.timeout()).isEqualTo(Duration.ofSeconds(10));
+
+        SagaDefinition.Deadline payment = definition.getDeadline(OrderState.INVENTORY_FAILED_PAYMENT_PROCESSING);
+        assertThat(payment.event()).isEqualTo(OrderEvent.PAYMENT_FAILED);
+        assertThat(payment.timeout()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(payment.since()).isEqualTo(OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+        assertThat(definition.getDeadline(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING).since())
+                .isEqualTo(OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+    }
+}
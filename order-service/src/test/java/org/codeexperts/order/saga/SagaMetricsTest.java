@@ -0,0 +1,77 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SagaMetricsTest {
+
+    private final MockClock clock = new MockClock();
+    private SimpleMeterRegistry meterRegistry;
+    private SagaMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        SagaDefinition definition = SagaDefinition.builder(OrderState.PENDING)
+                .end(OrderState.ORDER_COMPLETED)
+                .end(OrderState.ORDER_FAILED)
+                .build();
+        meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        metrics = new SagaMetrics(definition, meterRegistry);
+    }
+
+    @Test
+    void recordsEachStepAndTheWholeSaga() {
+        Order order = new Order();
+        metrics.sagaStarted(order);
+
+        clock.add(5, TimeUnit.MILLISECONDS);
+        metrics.transition(order, OrderState.PENDING, OrderEvent.START_ORDER, OrderState.PAYMENT_PROCESSING);
+        clock.add(40, TimeUnit.MILLISECONDS);
+        metrics.transition(order, OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED, OrderState.ORDER_FAILED);
+
+        assertThat(step(OrderState.PENDING, OrderEvent.START_ORDER).totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+        assertThat(step(OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED).totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(40);
+        assertThat(meterRegistry.get("saga.duration").tag("outcome", "ORDER_FAILED").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(45);
+    }
+
+    @Test
+    void recoveredSagasRecordStepsButNoTotal() {
+        Order order = new Order();
+        metrics.sagaRecovered(order);
+
+        clock.add(10, TimeUnit.MILLISECONDS);
+        metrics.transition(order, OrderState.INVENTORY_RESERVED, OrderEvent.SHIPPING_SUCCESS, OrderState.ORDER_COMPLETED);
+
+        assertThat(step(OrderState.INVENTORY_RESERVED, OrderEvent.SHIPPING_SUCCESS).count()).isEqualTo(1);
+        assertThat(meterRegistry.find("saga.duration").timer()).isNull();
+    }
+
+    @Test
+    void countsRejectedEventsByStateAndEndedSagasAsNone() {
+        metrics.eventRejected(OrderState.INVENTORY_RESERVED, OrderEvent.PAYMENT_SUCCESS);
+        metrics.eventRejected(OrderState.INVENTORY_RESERVED, OrderEvent.PAYMENT_SUCCESS);
+        metrics.eventRejected(null, OrderEvent.SHIPPING_SUCCESS);
+
+        assertThat(meterRegistry.get("saga.events.rejected").tag("state", "INVENTORY_RESERVED")
+                .tag("event", "PAYMENT_SUCCESS").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("saga.events.rejected").tag("state", "NONE")
+                .tag("event", "SHIPPING_SUCCESS").counter().count()).isEqualTo(1);
+    }
+
+    private Timer step(OrderState state, OrderEvent event) {
+        return meterRegistry.get("saga.step").tag("state", state.name()).tag("event", event.name()).timer();
+    }
+}
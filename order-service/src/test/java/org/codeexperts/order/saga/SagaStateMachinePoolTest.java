@@ -0,0 +1,98 @@
+package org.codeexperts.order.saga;
+
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.publisher.MessagePublisher;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.service.OrderCommandPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SagaStateMachinePoolTest {
+
+    private AnnotationConfigApplicationContext context;
+    private SagaStateMachinePool pool;
+    private SagaEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MessagePublisher.class, () -> new MessagePublisher() {
+            @Override
+            public <T extends DomainEvent> void publish(String topic, String key, T message) {
+            }
+        });
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class);
+        context.refresh();
+
+        pool = new SagaStateMachinePool(context.getBean(StateMachineFactory.class), 1);
+        engine = new SpringStateMachineSagaEngine(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void recyclesTheMachineOfACompletedSagaForTheNextOne() {
+        StateMachine<OrderState, OrderEvent> first = complete("a");
+        engine.release("a");
+        assertThat(pool.idleCount()).isEqualTo(1);
+
+        start("b");
+
+        assertThat(pool.get("b")).isSameAs(first);
+        assertThat(engine.getState("b")).isEqualTo(OrderState.PENDING);
+        assertThat(engine.sendEvent("b", OrderEvent.START_ORDER)).isEqualTo(OrderState.PAYMENT_PROCESSING);
+        assertThat(pool.get("b").getExtendedState().get("order", Order.class).getOrderId()).isEqualTo("b");
+    }
+
+    @Test
+    void recyclesTheMachineOfASagaReleasedHalfWay() {
+        start("a");
+        engine.sendEvent("a", OrderEvent.START_ORDER);
+        engine.release("a");
+
+        start("b");
+
+        assertThat(engine.getState("b")).isEqualTo(OrderState.PENDING);
+        assertThat(engine.sendEvent("b", OrderEvent.START_ORDER)).isEqualTo(OrderState.PAYMENT_PROCESSING);
+    }
+
+    @Test
+    void dropsReleasedMachinesOnceTheIdleQueueIsFull() {
+        complete("a");
+        complete("b");
+
+        engine.release("a");
+        engine.release("b");
+
+        assertThat(pool.idleCount()).isEqualTo(1);
+        assertThat(pool.activeCount()).isZero();
+    }
+
+    private StateMachine<OrderState, OrderEvent> complete(String orderId) {
+        start(orderId);
+        engine.sendEvent(orderId, OrderEvent.START_ORDER);
+        engine.sendEvent(orderId, OrderEvent.PAYMENT_SUCCESS);
+        engine.sendEvent(orderId, OrderEvent.INVENTORY_SUCCESS);
+        assertThat(engine.sendEvent(orderId, OrderEvent.SHIPPING_SUCCESS)).isEqualTo(OrderState.ORDER_COMPLETED);
+        return pool.get(orderId);
+    }
+
+    private void start(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        engine.start(order);
+    }
+}
@@ -0,0 +1,125 @@
+package org.codeexperts.order.saga;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codeexperts.order.model.OrderEvent;
+import org.codeexperts.order.model.OrderState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SagaTimeoutSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> fired = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private SagaTimeoutScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        SagaDefinition definition = SagaDefinition.builder(OrderState.PENDING)
+                .end(OrderState.ORDER_COMPLETED)
+                .end(OrderState.ORDER_FAILED)
+                .transition(OrderState.PENDING, OrderEvent.START_ORDER, OrderState.PAYMENT_PROCESSING)
+                .transition(OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_SUCCESS, OrderState.ORDER_COMPLETED)
+                .transition(OrderState.PAYMENT_PROCESSING, OrderEvent.PAYMENT_FAILED, OrderState.ORDER_FAILED)
+                .deadline(OrderState.PAYMENT_PROCESSING, Duration.ofMillis(1000), OrderEvent.PAYMENT_FAILED)
+                .build();
+
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new SagaTimeoutScheduler(definition, meterRegistry, 10, now::get);
+        scheduler.onExpiry((orderId, deadline) -> fired.add(orderId + ":" + deadline.event()));
+    }
+
+    @Test
+    void firesFailureEventWhenDeadlinePasses() {
+        scheduler.stateEntered("a", OrderState.PAYMENT_PROCESSING);
+
+        now.set(990);
+        scheduler.tick();
+        assertThat(fired).isEmpty();
+
+        now.set(1000);
+        scheduler.tick();
+        assertThat(fired).containsExactly("a:PAYMENT_FAILED");
+        assertThat(scheduler.pendingCount()).isZero();
+        assertThat(meterRegistry.counter("saga.timeouts", "state", "PAYMENT_PROCESSING").count()).isEqualTo(1);
+    }
+
+    @Test
+    void leavingTheStateCancelsTheDeadline() {
+        scheduler.stateEntered("a", OrderState.PAYMENT_PROCESSING);
+        now.set(500);
+        scheduler.stateEntered("a", OrderState.ORDER_COMPLETED);
+
+        now.set(5000);
+        scheduler.tick();
+
+        assertThat(fired).isEmpty();
+        assertThat(scheduler.pendingCount()).isZero();
+    }
+
+    @Test
+    void reenteringTheSameStateKeepsTheRunningDeadline() {
+        scheduler.stateEntered("a", OrderState.PAYMENT_PROCESSING);
+        now.set(500);
+        scheduler.stateEntered("a", OrderState.PAYMENT_PROCESSING);
+
+        now.set(1000);
+        scheduler.tick();
+
+        assertThat(fired).containsExactly("a:PAYMENT_FAILED");
+    }
+
+    @Test
+    void branchDeadlinesCountFromTheFork() {
+        SagaDefinition definition = SagaDefinition.builder(OrderState.PENDING)
+                .end(OrderState.ORDER_FAILED)
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.PAYMENT_FAILED,
+                        OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING)
+                .transition(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, OrderEvent.PAYMENT_SUCCESS,
+                        OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING)
+                .transition(OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_FAILED,
+                        OrderState.ORDER_FAILED)
+                .transition(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING, OrderEvent.INVENTORY_FAILED,
+                        OrderState.ORDER_FAILED)
+                .deadline(OrderState.PAYMENT_AND_INVENTORY_PROCESSING, Duration.ofMillis(1000),
+                        OrderEvent.PAYMENT_FAILED)
+                .deadline(OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING, Duration.ofMillis(3000),
+                        OrderEvent.INVENTORY_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING)
+                .deadline(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING, Duration.ofMillis(3000),
+                        OrderEvent.INVENTORY_FAILED, OrderState.PAYMENT_AND_INVENTORY_PROCESSING)
+                .build();
+        SagaTimeoutScheduler forked = new SagaTimeoutScheduler(definition, meterRegistry, 10, now::get);
+        forked.onExpiry((orderId, deadline) -> {
+            fired.add(orderId + ":" + deadline.event());
+            if (deadline.event() == OrderEvent.PAYMENT_FAILED) {
+                forked.stateEntered(orderId, OrderState.PAYMENT_FAILED_INVENTORY_PROCESSING);
+            }
+        });
+
+        forked.stateEntered("timed-out", OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+        forked.stateEntered("paid", OrderState.PAYMENT_AND_INVENTORY_PROCESSING);
+        now.set(500);
+        forked.stateEntered("paid", OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING);
+
+        now.set(1000);
+        forked.tick();
+        assertThat(fired).containsExactly("timed-out:PAYMENT_FAILED");
+
+        now.set(2990);
+        forked.tick();
+        assertThat(fired).hasSize(1);
+
+        now.set(3000);
+        forked.tick();
+        assertThat(fired).containsExactlyInAnyOrder("timed-out:PAYMENT_FAILED", "timed-out:INVENTORY_FAILED",
+                "paid:INVENTORY_FAILED");
+        assertThat(forked.pendingCount()).isZero();
+    }
+}
@@ -0,0 +1,82 @@
+package org.codeexperts.order.service;
+
+import com.codeexpert.common.model.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codeexperts.order.dto.CreateOrderRequest;
+import org.codeexperts.order.entity.OrderEntity;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderIntakeServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderOrchestrator orderOrchestrator = mock(OrderOrchestrator.class);
+    private final OrderIntakeService intakeService = new OrderIntakeService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(intakeService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(intakeService, "orderOrchestrator", orderOrchestrator);
+        ReflectionTestUtils.setField(intakeService, "intakeExecutor", new TaskExecutorAdapter(Runnable::run));
+        ReflectionTestUtils.setField(intakeService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(intakeService, "bulkChunkSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void storesEachOrderWithItsProductAndStartsItsSaga() {
+        List<String> orderIds = intakeService.submitAll(List.of(
+                request("product-1", 2), request("product-2", 1), request("product-3", 5))).join();
+
+        ArgumentCaptor<List<OrderEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository, times(2)).saveAll(saved.capture());
+        List<OrderEntity> entities = saved.getAllValues().stream().flatMap(List::stream).toList();
+        assertThat(entities).extracting(OrderEntity::getId).containsExactlyElementsOf(orderIds);
+        assertThat(entities).extracting(OrderEntity::getProductId)
+                .containsExactly("product-1", "product-2", "product-3");
+        assertThat(entities).extracting(OrderEntity::getQuantity).containsExactly(2, 1, 5);
+        verify(orderOrchestrator, times(3)).startSaga(any(Order.class));
+    }
+
+    @Test
+    void namesTheOrdersAcceptedBeforeAChunkFailed() {
+        when(orderRepository.saveAll(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("database down"));
+
+        CompletableFuture<List<String>> submitted = intakeService.submitAll(List.of(
+                request("product-1", 2), request("product-2", 1), request("product-3", 5)));
+
+        assertThatThrownBy(submitted::join).cause()
+                .isInstanceOf(BulkIntakeException.class)
+                .hasRootCauseMessage("database down")
+                .satisfies(e -> assertThat(((BulkIntakeException) e).getAcceptedOrderIds()).hasSize(2));
+        verify(orderOrchestrator, times(2)).startSaga(any(Order.class));
+    }
+
+    private static CreateOrderRequest request(String productId, int quantity) {
+        return CreateOrderRequest.builder()
+                .customerId("customer-1")
+                .amount(BigDecimal.TEN)
+                .items(List.of(new OrderItem(productId, quantity, BigDecimal.TEN)))
+                .build();
+    }
+}
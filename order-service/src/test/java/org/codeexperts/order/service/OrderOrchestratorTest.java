@@ -0,0 +1,268 @@
+package org.codeexperts.order.service;
+
+import com.codeexpert.common.command.RefundPaymentCommand;
+import com.codeexpert.common.command.ReleaseInventoryCommand;
+import com.codeexpert.common.event.DomainEvent;
+import com.codeexpert.common.event.InventoryReservedEvent;
+import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.codeexpert.common.publisher.MessagePublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codeexperts.order.config.OrderStateMachineConfig;
+import org.codeexperts.order.entity.SagaStateEntity;
+import org.codeexperts.order.model.Order;
+import org.codeexperts.order.model.OrderState;
+import org.codeexperts.order.persistence.OrderStatusWriter;
+import org.codeexperts.order.persistence.SagaStateWriter;
+import org.codeexperts.order.repository.SagaStateRepository;
+import org.codeexperts.order.saga.BoundedSagaStore;
+import org.codeexperts.order.saga.CompiledSagaEngine;
+import org.codeexperts.order.saga.SagaDefinition;
+import org.codeexperts.order.saga.SagaEngine;
+import org.codeexperts.order.saga.SagaMetrics;
+import org.codeexperts.order.saga.SagaStore;
+import org.codeexperts.order.saga.SagaTimeoutScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderOrchestratorTest {
+
+    private final List<DomainEvent> published = new CopyOnWriteArrayList<>();
+    private volatile boolean publisherDown;
+    private volatile Thread replier;
+    private AnnotationConfigApplicationContext context;
+    private OrderOrchestrator orchestrator;
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void refundsAPaymentThatSucceedsAfterItsDeadlineOnce() {
+        start("sequential");
+        timeOut(OrderState.PAYMENT_PROCESSING);
+        assertThat(state()).as("released once failed").isNull();
+
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+
+        assertThat(published(RefundPaymentCommand.class)).singleElement()
+                .extracting(RefundPaymentCommand::getPaymentTransactionId).isEqualTo("tx-1");
+    }
+
+    @Test
+    void doesNotRefundARedeliveredPaymentTheSagaTook() {
+        start("sequential");
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+        assertThat(state()).isEqualTo(OrderState.PAYMENT_COMPLETED);
+
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+
+        assertThat(published(RefundPaymentCommand.class)).isEmpty();
+    }
+
+    @Test
+    void releasesAReservationThatSucceedsAfterItsDeadline() {
+        start("parallel");
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+        timeOut(OrderState.PAYMENT_COMPLETED_INVENTORY_PROCESSING);
+        assertThat(state()).isEqualTo(OrderState.PAYMENT_COMPENSATING);
+
+        orchestrator.handleInventoryEvent(reservationSucceeded("res-1"));
+
+        assertThat(published(ReleaseInventoryCommand.class)).singleElement()
+                .extracting(ReleaseInventoryCommand::getReservationId).isEqualTo("res-1");
+        assertThat(published(RefundPaymentCommand.class)).singleElement()
+                .extracting(RefundPaymentCommand::getPaymentTransactionId).isEqualTo("tx-1");
+    }
+
+    @Test
+    void refundsALatePaymentOfASagaAlreadyEvictedFromTheStore() {
+        start("sequential", 0);
+        timeOut(OrderState.PAYMENT_PROCESSING);
+        assertThat(context.getBean(SagaStore.class).get("a")).as("evicted once failed").isNull();
+        when(context.getBean(SagaStateRepository.class).findById("a"))
+                .thenReturn(Optional.of(endedSaga(OrderState.ORDER_FAILED, null)));
+
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+
+        assertThat(published(RefundPaymentCommand.class)).singleElement()
+                .extracting(RefundPaymentCommand::getPaymentTransactionId).isEqualTo("tx-1");
+        verify(context.getBean(SagaStateWriter.class)).enqueue(
+                argThat(order -> "tx-1".equals(order.getPaymentTransactionId())), eq(OrderState.ORDER_FAILED));
+    }
+
+    @Test
+    void releasesALateReservationOfASagaAlreadyEvictedFromTheStore() {
+        start("sequential", 0);
+        timeOut(OrderState.PAYMENT_PROCESSING);
+        when(context.getBean(SagaStateRepository.class).findById("a"))
+                .thenReturn(Optional.of(endedSaga(OrderState.ORDER_FAILED, null)));
+
+        orchestrator.handleInventoryEvent(reservationSucceeded("res-1"));
+
+        assertThat(published(ReleaseInventoryCommand.class)).singleElement()
+                .extracting(ReleaseInventoryCommand::getReservationId).isEqualTo("res-1");
+    }
+
+    @Test
+    void doesNotRefundARedeliveredPaymentOfAnEvictedSagaThatTookIt() {
+        start("sequential", 0);
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+        timeOut(OrderState.PAYMENT_COMPLETED);
+        PaymentRefundedEvent refunded = new PaymentRefundedEvent();
+        refunded.setOrderId("a");
+        orchestrator.handlePaymentRefundEvent(refunded);
+        assertThat(context.getBean(SagaStore.class).get("a")).as("evicted once failed").isNull();
+        when(context.getBean(SagaStateRepository.class).findById("a"))
+                .thenReturn(Optional.of(endedSaga(OrderState.ORDER_FAILED, "tx-1")));
+        published.clear();
+
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void leavesASuccessForAnOrderWithoutAnEndedSaga() {
+        start("sequential", 0);
+        timeOut(OrderState.PAYMENT_PROCESSING);
+
+        orchestrator.handlePaymentEvent(paymentSucceeded("tx-1"));
+
+        assertThat(published(RefundPaymentCommand.class)).isEmpty();
+    }
+
+    @Test
+    void waitsForTheStepUnderWayBeforeJudgingAReplyLate() throws Exception {
+        replier = new Thread(() -> orchestrator.handlePaymentEvent(paymentSucceeded("tx-1")));
+        start("sequential");
+        replier.join(5000);
+
+        assertThat(state()).isEqualTo(OrderState.PAYMENT_COMPLETED);
+        assertThat(published(RefundPaymentCommand.class)).isEmpty();
+    }
+
+    @Test
+    void failsAnOrderWhoseSagaCannotTakeItsFirstStep() {
+        publisherDown = true;
+        start("sequential");
+
+        assertThat(state()).isNull();
+        verify(context.getBean(OrderStatusWriter.class)).enqueue("a", OrderState.ORDER_FAILED);
+        assertThat(context.getBean(SagaTimeoutScheduler.class).pendingCount()).isZero();
+    }
+
+    private void start(String shape) {
+        start(shape, 30000);
+    }
+
+    private void start(String shape, long terminalTtlMillis) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("saga.shape", shape);
+        properties.put("saga.engine", "compiled");
+        properties.put("saga.store.terminal-ttl-ms", terminalTtlMillis);
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        context.registerBean(MessagePublisher.class, () -> new MessagePublisher() {
+            @Override
+            public <T extends DomainEvent> void publish(String topic, String key, T message) {
+                published.add(message);
+                replyWhileStepIsUnderWay();
+            }
+
+            @Override
+            public <T extends DomainEvent> CompletableFuture<Void> publishAsync(String topic, String key, T message) {
+                if (publisherDown) {
+                    throw new IllegalStateException("publisher down");
+                }
+                return MessagePublisher.super.publishAsync(topic, key, message);
+            }
+        });
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(SagaStateWriter.class, () -> mock(SagaStateWriter.class));
+        context.registerBean(OrderStatusWriter.class, () -> mock(OrderStatusWriter.class));
+        context.registerBean(SagaStateRepository.class, () -> mock(SagaStateRepository.class));
+        context.register(OrderStateMachineConfig.class, OrderCommandPublisher.class, CompiledSagaEngine.class,
+                BoundedSagaStore.class, SagaTimeoutScheduler.class, SagaMetrics.class, OrderOrchestrator.class);
+        context.refresh();
+        orchestrator = context.getBean(OrderOrchestrator.class);
+
+        Order order = new Order();
+        order.setOrderId("a");
+        order.setAmount(BigDecimal.TEN);
+        orchestrator.startSaga(order);
+    }
+
+    /**
+     * Lets the reply race the transition that published the command, as a participant on another
+     * thread can: the reply starts before the transition has completed and gets a moment to finish.
+     */
+    private void replyWhileStepIsUnderWay() {
+        Thread thread = replier;
+        if (thread != null && thread.getState() == Thread.State.NEW) {
+            thread.start();
+            try {
+                thread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void timeOut(OrderState state) {
+        orchestrator.handleTimeout("a", context.getBean(SagaDefinition.class).getDeadline(state));
+    }
+
+    private OrderState state() {
+        return context.getBean(SagaEngine.class).getState("a");
+    }
+
+    private static PaymentProcessedEvent paymentSucceeded(String transactionId) {
+        PaymentProcessedEvent event = new PaymentProcessedEvent();
+        event.setOrderId("a");
+        event.setStatus("SUCCESS");
+        event.setTransactionId(transactionId);
+        return event;
+    }
+
+    private static InventoryReservedEvent reservationSucceeded(String reservationId) {
+        InventoryReservedEvent event = new InventoryReservedEvent();
+        event.setOrderId("a");
+        event.setStatus("SUCCESS");
+        event.setReservationId(reservationId);
+        return event;
+    }
+
+    private static SagaStateEntity endedSaga(OrderState state, String paymentTransactionId) {
+        return SagaStateEntity.builder()
+                .orderId("a")
+                .state(state)
+                .amount(BigDecimal.TEN)
+                .paymentTransactionId(paymentTransactionId)
+                .build();
+    }
+
+    private <T> List<T> published(Class<T> type) {
+        return published.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+}
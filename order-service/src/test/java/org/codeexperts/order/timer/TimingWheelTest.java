@@ -0,0 +1,69 @@
+package org.codeexperts.order.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void expiresTimersOnTheTickOfTheirDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = 1 + random.nextInt(300_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        int expired = 0;
+        for (long now = 1; now <= 300_000; now++) {
+            for (long deadline : wheel.advance(now)) {
+                assertThat(deadline).isEqualTo(now);
+                expired++;
+            }
+        }
+
+        assertThat(expired).isEqualTo(deadlines.size());
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        TimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 5_000);
+        wheel.schedule("kept", 5_000);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+
+        assertThat(wheel.advance(4_990)).isEmpty();
+        assertThat(wheel.advance(5_000)).containsExactly("kept");
+    }
+
+    @Test
+    void overdueTimersExpireOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        wheel.advance(1_000);
+
+        wheel.schedule("late", 500);
+
+        assertThat(wheel.advance(1_005)).isEmpty();
+        assertThat(wheel.advance(1_010)).containsExactly("late");
+    }
+
+    @Test
+    void deadlinesBeyondTheWheelSpanAreReparked() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        long deadline = (1L << 24) * 3 + 17;
+        wheel.schedule("far", deadline);
+
+        assertThat(wheel.advance(deadline - 1)).isEmpty();
+        assertThat(wheel.advance(deadline)).containsExactly("far");
+    }
+}
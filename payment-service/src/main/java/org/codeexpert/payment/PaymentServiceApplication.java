@@ -3,7 +3,8 @@ package org.codeexpert.payment;
 import com.codeexpert.common.command.ProcessPaymentCommand;
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.listener.DomainEventListener;
-import com.codeexpert.common.listener.KafkaListenerRegistrar;
+import com.codeexpert.common.listener.ListenerRegistrar;
+import com.codeexpert.common.listener.ListenerOptions;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -12,12 +13,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class PaymentServiceApplication {
 
-    private final KafkaListenerRegistrar kafkaListenerRegistrar;
+    private final ListenerRegistrar listenerRegistrar;
     private final DomainEventListener paymentCommandListener;
 
     @Autowired
-    public PaymentServiceApplication(KafkaListenerRegistrar kafkaListenerRegistrar, DomainEventListener paymentCommandListener) {
-        this.kafkaListenerRegistrar = kafkaListenerRegistrar;
+    public PaymentServiceApplication(ListenerRegistrar listenerRegistrar, DomainEventListener paymentCommandListener) {
+        this.listenerRegistrar = listenerRegistrar;
         this.paymentCommandListener = paymentCommandListener;
     }
 
@@ -29,7 +30,12 @@ public class PaymentServiceApplication {
     public void registerKafkaListeners() {
         String groupId = "payment-service-group"; // Define group ID here or in properties
 
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.PAYMENT_COMMANDS, groupId, paymentCommandListener);
+        listenerRegistrar.registerListener(
+                KafkaTopics.PAYMENT_COMMANDS, groupId, paymentCommandListener,
+                ListenerOptions.builder()
+                        .retryDelays(ListenerOptions.STANDARD_RETRY_DELAYS)
+                        .deadLetter(true)
+                        .commitBatchSize(500)
+                        .build());
     }
 }
@@ -1,11 +1,15 @@
 package org.codeexpert.payment.service;
 
 import com.codeexpert.common.command.ProcessPaymentCommand;
+import com.codeexpert.common.command.RefundPaymentCommand;
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.event.DomainEvent;
 import com.codeexpert.common.event.PaymentProcessedEvent;
+import com.codeexpert.common.event.PaymentRefundedEvent;
+import com.codeexpert.common.idempotency.IdempotentCommandHandler;
 import com.codeexpert.common.listener.DomainEventListener;
-import com.codeexpert.common.publisher.MessagePublisher; // Changed import
+import com.codeexpert.common.listener.EventHandler;
+import com.codeexpert.common.listener.EventHandlers;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,45 +18,60 @@ import java.util.UUID;
 
 @Log4j2
 @Service
+@EventHandlers(consumes = {ProcessPaymentCommand.class, RefundPaymentCommand.class})
 public class PaymentCommandListener implements DomainEventListener {
 
-    private final MessagePublisher messagePublisher; // Changed injected type
+    private final IdempotentCommandHandler idempotentCommandHandler;
 
     @Autowired
-    public PaymentCommandListener(MessagePublisher messagePublisher) { // Changed injected type
-        this.messagePublisher = messagePublisher;
+    public PaymentCommandListener(IdempotentCommandHandler idempotentCommandHandler) {
+        this.idempotentCommandHandler = idempotentCommandHandler;
     }
 
     @Override
     public void onEvent(DomainEvent event) {
-        if (event instanceof ProcessPaymentCommand command) {
-            handleProcessPaymentCommand(command);
-        } else {
+        if (!PaymentCommandListenerDispatcher.dispatch(this, event)) {
             log.warn("Received unexpected event type: {}", event.getClass().getSimpleName());
         }
     }
 
-    private void handleProcessPaymentCommand(ProcessPaymentCommand processPaymentCommand) {
+    @EventHandler
+    void handleProcessPaymentCommand(ProcessPaymentCommand processPaymentCommand) {
+        idempotentCommandHandler.handleOnce(processPaymentCommand, KafkaTopics.PAYMENT_EVENTS, this::processPayment);
+    }
+
+    @EventHandler
+    void handleRefundPaymentCommand(RefundPaymentCommand refundPaymentCommand) {
+        idempotentCommandHandler.handleOnce(refundPaymentCommand, KafkaTopics.PAYMENT_EVENTS, this::refundPayment);
+    }
+
+    private PaymentProcessedEvent processPayment(ProcessPaymentCommand processPaymentCommand) {
         try {
             log.debug("Payment Service: Processing payment for order {}", processPaymentCommand.getOrderId());
-            PaymentProcessedEvent event = PaymentProcessedEvent.builder()
+            return PaymentProcessedEvent.builder()
                     .orderId(processPaymentCommand.getOrderId())
                     .transactionId(UUID.randomUUID().toString())
                     .status("SUCCESS")
                     .correlationId(processPaymentCommand.getCorrelationId())
                     .build();
-
-            messagePublisher.publish(KafkaTopics.PAYMENT_EVENTS, event.getOrderId(), event); // Changed commandPublisher to messagePublisher
         } catch (Exception e) {
             log.error("Error while processing payment: {}", processPaymentCommand, e);
-            PaymentProcessedEvent event = PaymentProcessedEvent.builder()
+            return PaymentProcessedEvent.builder()
                     .orderId(processPaymentCommand.getOrderId())
                     .status("FAILED")
                     .errorMessage(e.getMessage())
                     .correlationId(processPaymentCommand.getCorrelationId())
                     .build();
-
-            messagePublisher.publish(KafkaTopics.PAYMENT_EVENTS, event.getOrderId(), event); // Changed commandPublisher to messagePublisher
         }
     }
+
+    private PaymentRefundedEvent refundPayment(RefundPaymentCommand refundPaymentCommand) {
+        log.debug("Payment Service: Refunding payment {} for order {}",
+                refundPaymentCommand.getPaymentTransactionId(), refundPaymentCommand.getOrderId());
+        return PaymentRefundedEvent.builder()
+                .orderId(refundPaymentCommand.getOrderId())
+                .transactionId(refundPaymentCommand.getPaymentTransactionId())
+                .correlationId(refundPaymentCommand.getCorrelationId())
+                .build();
+    }
 }
@@ -65,9 +65,9 @@ import static org.junit.jupiter.api.Assertions.*;
         "spring.kafka.consumer.auto-offset-reset=earliest",
         "spring.kafka.consumer.group-id=payment-service-test-group",
 
-        // Kafka Producer Serialization
+        // Kafka Producer Serialization, as in production: the outbox relay sends events already encoded
         "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
-        "spring.kafka.producer.value-serializer=org.springframework.kafka.support.serializer.JsonSerializer",
+        "spring.kafka.producer.value-serializer=com.codeexpert.common.listener.EventKafkaSerializer",
 
         // Kafka Consumer Deserialization
         "spring.kafka.consumer.key-deserializer=org.apache.kafka.common.serialization.StringDeserializer",
@@ -2,8 +2,6 @@ package org.codeexpert.payment;
 
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.listener.KafkaListenerRegistrar;
-import com.codeexpert.common.publisher.KafkaMessagePublisher;
-import com.codeexpert.common.publisher.MessagePublisher;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
@@ -14,7 +12,6 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -56,12 +53,6 @@ public class TestConfig {
                 .build();
     }
 
-    @Bean
-    @Primary
-    public MessagePublisher messagePublisher(KafkaTemplate<String, Object> kafkaTemplate) {
-        return new KafkaMessagePublisher();
-    }
-
     @Bean
     @Primary
     public KafkaListenerRegistrar kafkaListenerRegistrar(
@@ -3,7 +3,8 @@ package org.codeexpert.shipping;
 import com.codeexpert.common.command.CreateShipmentCommand;
 import com.codeexpert.common.constant.KafkaTopics;
 import com.codeexpert.common.listener.DomainEventListener;
-import com.codeexpert.common.listener.KafkaListenerRegistrar;
+import com.codeexpert.common.listener.ListenerRegistrar;
+import com.codeexpert.common.listener.ListenerOptions;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -14,12 +15,12 @@ import org.springframework.statemachine.config.EnableStateMachine;
 @EnableStateMachine
 public class ShippingServiceApplication {
 
-    private final KafkaListenerRegistrar kafkaListenerRegistrar;
+    private final ListenerRegistrar listenerRegistrar;
     private final DomainEventListener shippingCommandListener;
 
     @Autowired
-    public ShippingServiceApplication(KafkaListenerRegistrar kafkaListenerRegistrar, DomainEventListener shippingCommandListener) {
-        this.kafkaListenerRegistrar = kafkaListenerRegistrar;
+    public ShippingServiceApplication(ListenerRegistrar listenerRegistrar, DomainEventListener shippingCommandListener) {
+        this.listenerRegistrar = listenerRegistrar;
         this.shippingCommandListener = shippingCommandListener;
     }
 
@@ -31,7 +32,14 @@ public class ShippingServiceApplication {
     public void registerKafkaListeners() {
         String groupId = "shipping-service-group"; // Define group ID here or in properties
 
-        kafkaListenerRegistrar.registerListener(
-                KafkaTopics.SHIPPING_COMMANDS, groupId, shippingCommandListener, CreateShipmentCommand.class);
+        listenerRegistrar.registerListener(
+                KafkaTopics.SHIPPING_COMMANDS, groupId, shippingCommandListener,
+                ListenerOptions.builder()
+                        .maxConcurrency(8)
+                        .retryDelays(ListenerOptions.STANDARD_RETRY_DELAYS)
+                        .deadLetter(true)
+                        .commitBatchSize(500)
+                        .build(),
+                CreateShipmentCommand.class);
     }
 }